@@ -0,0 +1,36 @@
+package icu.wwj.benchmark.tpcc;
+
+import icu.wwj.benchmark.tpcc.config.BenchmarkConfiguration;
+import io.vertx.sqlclient.SqlConnection;
+
+import java.lang.reflect.Proxy;
+import java.util.Properties;
+
+/**
+ * Shared state of the benchmarks, which run in the package of the driver to reach its package-private hot paths.
+ */
+final class BenchmarkFixtures {
+    
+    /**
+     * Master random holding the C values, there must only be one per JVM.
+     */
+    static final jTPCCRandom MASTER_RANDOM = new jTPCCRandom(123L, 259L, 7911L);
+    
+    private BenchmarkFixtures() {
+    }
+    
+    static BenchmarkConfiguration configuration() {
+        Properties props = new Properties();
+        props.setProperty("warehouses", "100");
+        props.setProperty("terminals", "1000");
+        props.setProperty("runSeconds", "60");
+        return new BenchmarkConfiguration(props);
+    }
+    
+    /**
+     * Connection for executors which are only used to generate inputs. Preparing a query only creates a handle, so every call returns null.
+     */
+    static SqlConnection unusedConnection() {
+        return (SqlConnection) Proxy.newProxyInstance(SqlConnection.class.getClassLoader(), new Class<?>[]{SqlConnection.class}, (proxy, method, args) -> null);
+    }
+}
@@ -0,0 +1,58 @@
+package icu.wwj.benchmark.tpcc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JTPCCRandomBenchmark {
+    
+    private jTPCCRandom random;
+    
+    @Setup
+    public void setup() {
+        random = BenchmarkFixtures.MASTER_RANDOM.newRandom();
+    }
+    
+    @Benchmark
+    public int nextInt() {
+        return random.nextInt(1, 10);
+    }
+    
+    @Benchmark
+    public int getItemID() {
+        return random.getItemID();
+    }
+    
+    @Benchmark
+    public int getCustomerID() {
+        return random.getCustomerID();
+    }
+    
+    @Benchmark
+    public String getCLast() {
+        return random.getCLast();
+    }
+    
+    /**
+     * Length of C_DATA appended by Payment for bad credit customers.
+     */
+    @Benchmark
+    public String getAString() {
+        return random.getAString(300, 500);
+    }
+}
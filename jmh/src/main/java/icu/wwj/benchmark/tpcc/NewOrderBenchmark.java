@@ -0,0 +1,51 @@
+package icu.wwj.benchmark.tpcc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Terminal input of NewOrder and the ordering of its lines by supply warehouse and item, which is a bubble sort over up to 15 lines.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NewOrderBenchmark {
+    
+    private NewOrderExecutor executor;
+    
+    private NewOrder newOrder;
+    
+    @Setup
+    public void setup() {
+        executor = new NewOrderExecutor(BenchmarkFixtures.configuration(), BenchmarkFixtures.MASTER_RANDOM.newRandom(), BenchmarkFixtures.unusedConnection(), new StatementTimer(null, null));
+        newOrder = executor.generate(1, 0);
+    }
+    
+    @Benchmark
+    public NewOrder generate() {
+        return executor.generate(1, 0);
+    }
+    
+    @Benchmark
+    public int[] sortOrderLines() {
+        return executor.sortOrderLines(newOrder);
+    }
+    
+    @Benchmark
+    public int[] generateAndSortOrderLines() {
+        return executor.sortOrderLines(executor.generate(1, 0));
+    }
+}
@@ -0,0 +1,65 @@
+package icu.wwj.benchmark.tpcc;
+
+import io.vertx.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Results recorded by {@code Terminal.onTransactionSuccess} go through a {@link ResultRingBuffer} and are encoded in batches by the result file writer.
+ * Each operation is one result, offered and then drained into the encoder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultEncodingBenchmark {
+    
+    private static final int BATCH_SIZE = 1024;
+    
+    private static final TPCCTransaction[] TRANSACTION_TYPES = TPCCTransaction.values();
+    
+    @Param({"CSV", "BINARY", "BINARY_COMPRESSED"})
+    public String format;
+    
+    private ResultRingBuffer ringBuffer;
+    
+    private ResultEncoder encoder;
+    
+    private long elapsedMillis;
+    
+    @Setup
+    public void setup() {
+        ringBuffer = new ResultRingBuffer(BATCH_SIZE);
+        encoder = switch (format) {
+            case "CSV" -> new CsvResultEncoder();
+            case "BINARY" -> new BinaryResultEncoder(false);
+            default -> new BinaryResultEncoder(true);
+        };
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Buffer offerAndEncode() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            elapsedMillis += 3;
+            ringBuffer.offer(elapsedMillis, 12 + i % 50, 10 + i % 40, TRANSACTION_TYPES[i % TRANSACTION_TYPES.length], 0 == i % 100, 0, false);
+        }
+        encoder.startBatch();
+        ringBuffer.drain(encoder);
+        return encoder.finishBatch();
+    }
+}
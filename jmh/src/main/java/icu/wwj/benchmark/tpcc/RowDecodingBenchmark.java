@@ -0,0 +1,119 @@
+package icu.wwj.benchmark.tpcc;
+
+import io.vertx.pgclient.impl.RowImpl;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.impl.RowDesc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading the columns of representative rows the way the executors do, by column name, and by index for comparison.
+ * Wire decoding is done by the client before rows reach the executors and is not covered.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowDecodingBenchmark {
+    
+    private static final RowDesc CUSTOMER = new RowDesc(List.of("c_first", "c_middle", "c_last", "c_street_1", "c_street_2", "c_city", "c_state", "c_zip",
+            "c_phone", "c_since", "c_credit", "c_credit_lim", "c_discount", "c_balance"));
+    
+    private static final RowDesc ITEM = new RowDesc(List.of("i_id", "i_name", "i_price", "i_data"));
+    
+    private Row customerRow;
+    
+    private List<Row> itemRows;
+    
+    private final Payment payment = new Payment(1, 1);
+    
+    private final NewOrder newOrder = new NewOrder(1, 1, 1);
+    
+    @Setup
+    public void setup() {
+        jTPCCRandom random = BenchmarkFixtures.MASTER_RANDOM.newRandom();
+        customerRow = new RowImpl(CUSTOMER);
+        customerRow.addValue(random.getAString(8, 16)).addValue("OE").addValue(random.getCLast()).addValue(random.getAString(10, 20))
+                .addValue(random.getAString(10, 20)).addValue(random.getAString(10, 20)).addValue(random.getState()).addValue(random.getNString(9, 9))
+                .addValue(random.getNString(16, 16)).addValue(java.time.LocalDateTime.now()).addValue("GC").addValue(50000.0).addValue(0.25).addValue(-10.0);
+        itemRows = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Row row = new RowImpl(ITEM);
+            row.addValue(random.getItemID()).addValue(random.getAString(14, 24)).addValue(random.nextDouble() * 100).addValue(random.getAString(26, 50));
+            itemRows.add(row);
+        }
+    }
+    
+    /**
+     * Customer columns read by Payment.
+     */
+    @Benchmark
+    public Payment customerByName() {
+        Row row = customerRow;
+        payment.c_first = row.getString("c_first");
+        payment.c_middle = row.getString("c_middle");
+        payment.c_last = row.getString("c_last");
+        payment.c_street_1 = row.getString("c_street_1");
+        payment.c_street_2 = row.getString("c_street_2");
+        payment.c_city = row.getString("c_city");
+        payment.c_state = row.getString("c_state");
+        payment.c_zip = row.getString("c_zip");
+        payment.c_phone = row.getString("c_phone");
+        payment.c_since = row.getLocalDateTime("c_since");
+        payment.c_credit = row.getString("c_credit");
+        payment.c_credit_lim = row.getDouble("c_credit_lim");
+        payment.c_discount = row.getDouble("c_discount");
+        payment.c_balance = row.getDouble("c_balance");
+        return payment;
+    }
+    
+    @Benchmark
+    public Payment customerByIndex() {
+        Row row = customerRow;
+        payment.c_first = row.getString(0);
+        payment.c_middle = row.getString(1);
+        payment.c_last = row.getString(2);
+        payment.c_street_1 = row.getString(3);
+        payment.c_street_2 = row.getString(4);
+        payment.c_city = row.getString(5);
+        payment.c_state = row.getString(6);
+        payment.c_zip = row.getString(7);
+        payment.c_phone = row.getString(8);
+        payment.c_since = row.getLocalDateTime(9);
+        payment.c_credit = row.getString(10);
+        payment.c_credit_lim = row.getDouble(11);
+        payment.c_discount = row.getDouble(12);
+        payment.c_balance = row.getDouble(13);
+        return payment;
+    }
+    
+    /**
+     * Item rows of the batch NewOrder profile.
+     */
+    @Benchmark
+    public NewOrder itemsByName() {
+        int i = 0;
+        for (Row each : itemRows) {
+            newOrder.ol_i_id[i] = each.getInteger("i_id");
+            newOrder.i_name[i] = each.getString("i_name");
+            newOrder.i_price[i] = each.getDouble("i_price");
+            newOrder.brand_generic[i] = each.getString("i_data");
+            i++;
+        }
+        return newOrder;
+    }
+}
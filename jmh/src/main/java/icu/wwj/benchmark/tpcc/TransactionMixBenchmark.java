@@ -0,0 +1,41 @@
+package icu.wwj.benchmark.tpcc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selection of the next transaction type from the weighted map, as done by terminals and the open loop dispatcher.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionMixBenchmark {
+    
+    private jTPCCRandom random;
+    
+    private TPCCTransaction[] transactionsMap;
+    
+    @Setup
+    public void setup() {
+        random = BenchmarkFixtures.MASTER_RANDOM.newRandom();
+        transactionsMap = TransactionMapGenerator.generate(BenchmarkFixtures.configuration());
+    }
+    
+    @Benchmark
+    public TPCCTransaction nextTransaction() {
+        return transactionsMap[random.nextInt(0, transactionsMap.length - 1)];
+    }
+}
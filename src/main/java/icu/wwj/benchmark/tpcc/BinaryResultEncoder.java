@@ -0,0 +1,115 @@
+package icu.wwj.benchmark.tpcc;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes results as fixed-width binary records grouped into blocks.
+ *
+ * <pre>
+ * file:   magic "TPCCRES1" (8 bytes) | compression (byte, 0 = none, 1 = deflate) | block*
+ * block:  record count (int) | base elapsed millis (long) | raw length (int) | stored length (int) | stored bytes
+ * record: elapsed millis delta from previous record (int) | latency millis (int) | db latency millis (int)
+ *         | transaction type ordinal (byte) | flags (byte, bit 0 = rollback, bit 1 = error) | skipped deliveries (short)
+ * </pre>
+ */
+public final class BinaryResultEncoder implements ResultEncoder {
+    
+    public static final byte[] MAGIC = "TPCCRES1".getBytes(StandardCharsets.US_ASCII);
+    
+    public static final int BLOCK_HEADER_LENGTH = 20;
+    
+    public static final int RECORD_LENGTH = 16;
+    
+    public static final byte FLAG_ROLLBACK = 1;
+    
+    public static final byte FLAG_ERROR = 1 << 1;
+    
+    private final Deflater deflater;
+    
+    private ByteBuffer records = ByteBuffer.allocate(RECORD_LENGTH * 4096);
+    
+    private byte[] compressed = new byte[0];
+    
+    private int recordCount;
+    
+    private long baseElapsedMillis;
+    
+    private long previousElapsedMillis;
+    
+    public BinaryResultEncoder(boolean compress) {
+        deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+    }
+    
+    @Override
+    public Buffer encodeHeader() {
+        return Buffer.buffer(MAGIC.length + 1).appendBytes(MAGIC).appendByte((byte) (null == deflater ? 0 : 1));
+    }
+    
+    @Override
+    public void startBatch() {
+        records.clear();
+        recordCount = 0;
+    }
+    
+    @Override
+    public void accept(long elapsedMillis, long latencyMillis, long dbLatencyMillis, TPCCTransaction transactionType, boolean rollback, int skippedDeliveries, boolean error) {
+        if (0 == recordCount) {
+            baseElapsedMillis = elapsedMillis;
+            previousElapsedMillis = elapsedMillis;
+        }
+        if (records.remaining() < RECORD_LENGTH) {
+            records = ByteBuffer.allocate(records.capacity() * 2).put(records.flip());
+        }
+        records.putInt((int) (elapsedMillis - previousElapsedMillis))
+                .putInt((int) latencyMillis)
+                .putInt((int) dbLatencyMillis)
+                .put((byte) transactionType.ordinal())
+                .put((byte) ((rollback ? FLAG_ROLLBACK : 0) | (error ? FLAG_ERROR : 0)))
+                .putShort((short) skippedDeliveries);
+        previousElapsedMillis = elapsedMillis;
+        recordCount++;
+    }
+    
+    @Override
+    public Buffer finishBatch() {
+        if (0 == recordCount) {
+            return null;
+        }
+        int rawLength = records.position();
+        byte[] stored = records.array();
+        int storedLength = rawLength;
+        if (null != deflater) {
+            storedLength = deflate(rawLength);
+            stored = compressed;
+        }
+        return Buffer.buffer(BLOCK_HEADER_LENGTH + storedLength)
+                .appendInt(recordCount)
+                .appendLong(baseElapsedMillis)
+                .appendInt(rawLength)
+                .appendInt(storedLength)
+                .appendBytes(stored, 0, storedLength);
+    }
+    
+    private int deflate(int rawLength) {
+        if (compressed.length < rawLength + 64) {
+            compressed = new byte[rawLength + rawLength / 8 + 64];
+        }
+        deflater.reset();
+        deflater.setInput(records.array(), 0, rawLength);
+        deflater.finish();
+        int result = 0;
+        while (!deflater.finished()) {
+            if (result == compressed.length) {
+                byte[] grown = new byte[compressed.length * 2];
+                System.arraycopy(compressed, 0, grown, 0, result);
+                compressed = grown;
+            }
+            result += deflater.deflate(compressed, result, compressed.length - result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,109 @@
+package icu.wwj.benchmark.tpcc;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Streams results out of a file written by {@link BinaryResultEncoder}, one block at a time.
+ */
+public final class BinaryResultReader {
+    
+    private static final TPCCTransaction[] TRANSACTION_TYPES = TPCCTransaction.values();
+    
+    private final DataInputStream in;
+    
+    private final Inflater inflater;
+    
+    private byte[] stored = new byte[0];
+    
+    private byte[] raw = new byte[0];
+    
+    public BinaryResultReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        byte[] magic = new byte[BinaryResultEncoder.MAGIC.length];
+        this.in.readFully(magic);
+        if (!Arrays.equals(BinaryResultEncoder.MAGIC, magic)) {
+            throw new IOException("Not a binary TPC-C result file");
+        }
+        inflater = 0 == this.in.readByte() ? null : new Inflater();
+    }
+    
+    /**
+     * Read blocks which start at the beginning of the stream, e.g. a range of blocks in the middle of a file.
+     *
+     * @param compressed whether blocks are compressed, as stored after the magic of the file
+     */
+    BinaryResultReader(InputStream in, boolean compressed) {
+        this.in = new DataInputStream(in);
+        inflater = compressed ? new Inflater() : null;
+    }
+    
+    /**
+     * Check whether the leading bytes of a file are the magic of the binary result format.
+     *
+     * @param header leading bytes of a file
+     * @return true if the file is a binary result file
+     */
+    public static boolean isBinary(byte[] header) {
+        return header.length >= BinaryResultEncoder.MAGIC.length && Arrays.equals(BinaryResultEncoder.MAGIC, 0, BinaryResultEncoder.MAGIC.length, header, 0, BinaryResultEncoder.MAGIC.length);
+    }
+    
+    /**
+     * Read the next block and pass its results to the consumer.
+     *
+     * @return number of results read, or -1 at the end of the file
+     */
+    public int readBlock(ResultRingBuffer.ResultConsumer consumer) throws IOException {
+        int recordCount;
+        try {
+            recordCount = in.readInt();
+        } catch (final EOFException ignored) {
+            return -1;
+        }
+        long elapsedMillis = in.readLong();
+        int rawLength = in.readInt();
+        int storedLength = in.readInt();
+        if (stored.length < storedLength) {
+            stored = new byte[storedLength];
+        }
+        in.readFully(stored, 0, storedLength);
+        ByteBuffer records = ByteBuffer.wrap(null == inflater ? stored : inflate(storedLength, rawLength), 0, rawLength);
+        for (int i = 0; i < recordCount; i++) {
+            elapsedMillis += records.getInt();
+            int latencyMillis = records.getInt();
+            int dbLatencyMillis = records.getInt();
+            TPCCTransaction transactionType = TRANSACTION_TYPES[records.get()];
+            byte flags = records.get();
+            int skippedDeliveries = records.getShort();
+            consumer.accept(elapsedMillis, latencyMillis, dbLatencyMillis, transactionType,
+                    0 != (flags & BinaryResultEncoder.FLAG_ROLLBACK), skippedDeliveries, 0 != (flags & BinaryResultEncoder.FLAG_ERROR));
+        }
+        return recordCount;
+    }
+    
+    private byte[] inflate(int storedLength, int rawLength) throws IOException {
+        if (raw.length < rawLength) {
+            raw = new byte[rawLength];
+        }
+        inflater.reset();
+        inflater.setInput(stored, 0, storedLength);
+        try {
+            int inflated = 0;
+            while (inflated < rawLength && !inflater.finished()) {
+                inflated += inflater.inflate(raw, inflated, rawLength - inflated);
+            }
+            if (inflated != rawLength) {
+                throw new IOException("Corrupted result block, expected %d bytes but inflated %d".formatted(rawLength, inflated));
+            }
+        } catch (final DataFormatException ex) {
+            throw new IOException("Corrupted result block", ex);
+        }
+        return raw;
+    }
+}
@@ -0,0 +1,268 @@
+package icu.wwj.benchmark.tpcc;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.impl.VertxInternal;
+import io.vertx.core.metrics.MetricsOptions;
+import io.vertx.core.net.NetClientOptions;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.core.spi.VertxMetricsFactory;
+import io.vertx.core.spi.metrics.ClientMetrics;
+import io.vertx.core.spi.metrics.TCPMetrics;
+import io.vertx.core.spi.metrics.VertxMetrics;
+import io.vertx.sqlclient.SqlConnection;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instruments the database connection pool through the Vert.x metrics SPI.
+ *
+ * <p>The pool reports every connection request when it is queued and when a connection is handed out, which gives the acquisition time
+ * and the depth of the wait queue. Database connections are told apart from other TCP connections by {@link #METRICS_NAME}
+ * to record their lifetimes. The time connections spend executing statements, divided by the number of open connections,
+ * gives the occupancy of the pool: close to 1 means terminals wait for the database rather than the other way round.
+ * Pipelined statements overlap on their connection, so occupancy above 1 is the average number of statements in flight per connection.</p>
+ */
+public final class ConnectionPoolMetrics implements VertxMetricsFactory, VertxMetrics {
+
+    /**
+     * Metrics name of the connect options of the pool.
+     */
+    static final String METRICS_NAME = "tpcc";
+
+    /**
+     * Acquisition time in microseconds.
+     */
+    private final Recorder acquisitionTimeRecorder = new Recorder(3);
+
+    private final Histogram totalAcquisitionTimes = new Histogram(3);
+
+    /**
+     * Lifetime of closed connections in milliseconds.
+     */
+    private final Recorder lifetimeRecorder = new Recorder(3);
+
+    private final Histogram totalLifetimes = new Histogram(3);
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final AtomicInteger maxWaiting = new AtomicInteger();
+
+    private final AtomicInteger openConnections = new AtomicInteger();
+
+    /**
+     * Connections in a transaction attempt, connections held by a terminal between transactions are not busy.
+     */
+    private final AtomicInteger busyConnections = new AtomicInteger();
+
+    private final LongAdder openedConnections = new LongAdder();
+
+    private final LongAdder closedConnections = new LongAdder();
+
+    private final LongAdder statements = new LongAdder();
+
+    private final LongAdder statementNanos = new LongAdder();
+
+    private final Map<SqlConnection, LongAdder> transactionCounts = new ConcurrentHashMap<>();
+
+    private long intervalStartNanoTime = System.nanoTime();
+
+    private long intervalStatements;
+
+    private long intervalStatementNanos;
+
+    /**
+     * Get the instance installed by {@link #install(VertxOptions)}.
+     *
+     * @return metrics or null if the pool is not instrumented
+     */
+    public static ConnectionPoolMetrics of(Vertx vertx) {
+        VertxMetrics result = vertx instanceof VertxInternal ? ((VertxInternal) vertx).metricsSPI() : null;
+        return result instanceof ConnectionPoolMetrics ? (ConnectionPoolMetrics) result : null;
+    }
+
+    /**
+     * Install a new instance to the Vert.x instance created with the options.
+     */
+    public static VertxOptions install(VertxOptions vertxOptions) {
+        return vertxOptions.setMetricsOptions(new MetricsOptions().setEnabled(true).setFactory(new ConnectionPoolMetrics()));
+    }
+
+    @Override
+    public VertxMetrics metrics(VertxOptions options) {
+        return this;
+    }
+
+    @Override
+    public ClientMetrics<?, ?, ?, ?> createClientMetrics(SocketAddress remoteAddress, String type, String namespace) {
+        return "sql".equals(type) && METRICS_NAME.equals(namespace) ? new PoolClientMetrics() : null;
+    }
+
+    @Override
+    public TCPMetrics<?> createNetClientMetrics(NetClientOptions options) {
+        return METRICS_NAME.equals(options.getMetricsName()) ? new ConnectionTCPMetrics() : null;
+    }
+
+    /**
+     * Count a transaction begun on the connection, which is busy until {@link #finishTransaction()}.
+     */
+    void recordTransaction(SqlConnection connection) {
+        busyConnections.incrementAndGet();
+        transactionCounts.computeIfAbsent(connection, __ -> new LongAdder()).increment();
+    }
+
+    void finishTransaction() {
+        busyConnections.decrementAndGet();
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    public int getBusyConnections() {
+        return busyConnections.get();
+    }
+
+    public long getOpenedConnections() {
+        return openedConnections.sum();
+    }
+
+    public long getClosedConnections() {
+        return closedConnections.sum();
+    }
+
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    /**
+     * Get the maximum number of connection requests waiting at once since the previous call.
+     */
+    public int collectIntervalMaxWaiting() {
+        return maxWaiting.getAndSet(waiting.get());
+    }
+
+    /**
+     * Get acquisition times in microseconds recorded since the previous call.
+     *
+     * @return histogram of the current interval
+     */
+    public synchronized Histogram collectIntervalAcquisitionTimes() {
+        Histogram result = acquisitionTimeRecorder.getIntervalHistogram();
+        totalAcquisitionTimes.add(result);
+        return result;
+    }
+
+    /**
+     * Get all acquisition times in microseconds collected so far.
+     *
+     * @return histogram of the whole run
+     */
+    public synchronized Histogram getTotalAcquisitionTimes() {
+        return totalAcquisitionTimes.copy();
+    }
+
+    /**
+     * Get lifetimes in milliseconds of all connections closed so far.
+     *
+     * @return histogram of the whole run
+     */
+    public synchronized Histogram getTotalLifetimes() {
+        totalLifetimes.add(lifetimeRecorder.getIntervalHistogram());
+        return totalLifetimes.copy();
+    }
+
+    /**
+     * Get the number of statements executed since the previous call and the share of time open connections spent executing them.
+     *
+     * @return statements and occupancy
+     */
+    public synchronized double[] collectIntervalOccupancy() {
+        long now = System.nanoTime();
+        long currentStatements = statements.sum();
+        long currentStatementNanos = statementNanos.sum();
+        int connections = Math.max(1, openConnections.get());
+        double occupancy = (double) (currentStatementNanos - intervalStatementNanos) / (now - intervalStartNanoTime) / connections;
+        double[] result = {currentStatements - intervalStatements, occupancy};
+        intervalStartNanoTime = now;
+        intervalStatements = currentStatements;
+        intervalStatementNanos = currentStatementNanos;
+        return result;
+    }
+
+    /**
+     * Get statistics of the transactions begun per connection.
+     */
+    public LongSummaryStatistics getTransactionsPerConnection() {
+        return transactionCounts.values().stream().mapToLong(LongAdder::sum).summaryStatistics();
+    }
+
+    /**
+     * Discard acquisition times and transactions per connection recorded so far, e.g. during the warmup.
+     * Connection counters and lifetimes cover the whole run.
+     */
+    public synchronized void resetTotals() {
+        acquisitionTimeRecorder.reset();
+        totalAcquisitionTimes.reset();
+        transactionCounts.values().forEach(LongAdder::reset);
+    }
+
+    private final class PoolClientMetrics implements ClientMetrics<Long, Long, Object, Object> {
+
+        @Override
+        public Long enqueueRequest() {
+            int current = waiting.incrementAndGet();
+            maxWaiting.accumulateAndGet(current, Math::max);
+            return System.nanoTime();
+        }
+
+        @Override
+        public void dequeueRequest(Long enqueueNanoTime) {
+            waiting.decrementAndGet();
+            acquisitionTimeRecorder.recordValue((System.nanoTime() - enqueueNanoTime) / 1000);
+        }
+
+        @Override
+        public Long requestBegin(String uri, Object request) {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void responseEnd(Long beginNanoTime) {
+            statements.increment();
+            statementNanos.add(System.nanoTime() - beginNanoTime);
+        }
+
+        @Override
+        public void requestReset(Long beginNanoTime) {
+            statementNanos.add(System.nanoTime() - beginNanoTime);
+        }
+    }
+
+    private final class ConnectionTCPMetrics implements TCPMetrics<Long> {
+
+        @Override
+        public Long connected(SocketAddress remoteAddress, String remoteName) {
+            openConnections.incrementAndGet();
+            openedConnections.increment();
+            return System.nanoTime();
+        }
+
+        @Override
+        public void disconnected(Long connectNanoTime, SocketAddress remoteAddress) {
+            openConnections.decrementAndGet();
+            closedConnections.increment();
+            lifetimeRecorder.recordValue((System.nanoTime() - connectNanoTime) / 1_000_000);
+        }
+    }
+}
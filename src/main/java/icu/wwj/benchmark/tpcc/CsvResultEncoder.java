@@ -0,0 +1,67 @@
+package icu.wwj.benchmark.tpcc;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes results as lines of {@code run,elapsed,latency,dblatency,ttype,rbk,dskipped,error}.
+ */
+public final class CsvResultEncoder implements ResultEncoder {
+    
+    public static final String HEADER = "run,elapsed,latency,dblatency,ttype,rbk,dskipped,error\n";
+    
+    private static final byte[][] TRANSACTION_TYPE_NAMES = new byte[TPCCTransaction.values().length][];
+    
+    static {
+        for (TPCCTransaction each : TPCCTransaction.values()) {
+            TRANSACTION_TYPE_NAMES[each.ordinal()] = each.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+    
+    private final byte[] digits = new byte[20];
+    
+    private Buffer batch;
+    
+    @Override
+    public Buffer encodeHeader() {
+        return Buffer.buffer(HEADER);
+    }
+    
+    @Override
+    public void startBatch() {
+        batch = Buffer.buffer(64 * 1024);
+    }
+    
+    @Override
+    public Buffer finishBatch() {
+        Buffer result = batch.length() > 0 ? batch : null;
+        batch = null;
+        return result;
+    }
+    
+    @Override
+    public void accept(long elapsedMillis, long latencyMillis, long dbLatencyMillis, TPCCTransaction transactionType, boolean rollback, int skippedDeliveries, boolean error) {
+        batch.appendByte((byte) '0').appendByte((byte) ',');
+        appendLong(elapsedMillis).appendByte((byte) ',');
+        appendLong(latencyMillis).appendByte((byte) ',');
+        appendLong(dbLatencyMillis).appendByte((byte) ',');
+        batch.appendBytes(TRANSACTION_TYPE_NAMES[transactionType.ordinal()]).appendByte((byte) ',');
+        batch.appendByte((byte) (rollback ? '1' : '0')).appendByte((byte) ',');
+        appendLong(skippedDeliveries).appendByte((byte) ',');
+        batch.appendByte((byte) (error ? '1' : '0')).appendByte((byte) '\n');
+    }
+    
+    private Buffer appendLong(long value) {
+        if (value < 0) {
+            batch.appendByte((byte) '-');
+            value = -value;
+        }
+        int position = digits.length;
+        do {
+            digits[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        return batch.appendBytes(digits, position, digits.length - position);
+    }
+}
@@ -0,0 +1,282 @@
+package icu.wwj.benchmark.tpcc;
+
+import io.vertx.sqlclient.Tuple;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Generates the initial database population defined in TPC-C 4.3.3.1 as column arrays for {@link TPCCTable#getInsertSQL()}.
+ */
+public class DataGenerator {
+
+    public static final int ITEMS = 100000;
+
+    public static final int DISTRICTS_PER_WAREHOUSE = 10;
+
+    public static final int CUSTOMERS_PER_DISTRICT = 3000;
+
+    /**
+     * Orders with an id below this have been delivered, the rest are rows of NEW_ORDER.
+     */
+    public static final int FIRST_NEW_ORDER_ID = 2101;
+
+    private final jTPCCRandom random;
+
+    public DataGenerator(jTPCCRandom random) {
+        this.random = random;
+    }
+
+    public Tuple generateItems(int firstItemId, int lastItemId) {
+        int count = lastItemId - firstItemId + 1;
+        Integer[] i_id = new Integer[count];
+        String[] i_name = new String[count];
+        Double[] i_price = new Double[count];
+        String[] i_data = new String[count];
+        Integer[] i_im_id = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            i_id[i] = firstItemId + i;
+            i_name[i] = random.getAString(14, 24);
+            i_price[i] = (double) random.nextLong(100, 10000) / 100.0;
+            i_data[i] = generateData();
+            i_im_id[i] = random.nextInt(1, 10000);
+        }
+        return Tuple.tuple().addValue(i_id).addValue(i_name).addValue(i_price).addValue(i_data).addValue(i_im_id);
+    }
+
+    public Tuple generateWarehouse(int w_id) {
+        return Tuple.tuple()
+                .addValue(new Integer[]{w_id})
+                .addValue(new Double[]{300000.0})
+                .addValue(new Double[]{(double) random.nextLong(0, 2000) / 10000.0})
+                .addValue(new String[]{random.getAString(6, 10)})
+                .addValue(new String[]{random.getAString(10, 20)})
+                .addValue(new String[]{random.getAString(10, 20)})
+                .addValue(new String[]{random.getAString(10, 20)})
+                .addValue(new String[]{random.getState()})
+                .addValue(new String[]{random.getNString(4, 4) + "11111"});
+    }
+
+    public Tuple generateStock(int w_id, int firstItemId, int lastItemId) {
+        int count = lastItemId - firstItemId + 1;
+        Integer[] s_w_id = new Integer[count];
+        Integer[] s_i_id = new Integer[count];
+        Integer[] s_quantity = new Integer[count];
+        Integer[] zeros = new Integer[count];
+        String[] s_data = new String[count];
+        String[][] s_dist = new String[10][count];
+        for (int i = 0; i < count; i++) {
+            s_w_id[i] = w_id;
+            s_i_id[i] = firstItemId + i;
+            s_quantity[i] = random.nextInt(10, 100);
+            zeros[i] = 0;
+            s_data[i] = generateData();
+            for (String[] each : s_dist) {
+                each[i] = random.getAString(24, 24);
+            }
+        }
+        Tuple result = Tuple.tuple().addValue(s_w_id).addValue(s_i_id).addValue(s_quantity).addValue(zeros).addValue(zeros).addValue(zeros).addValue(s_data);
+        for (String[] each : s_dist) {
+            result.addValue(each);
+        }
+        return result;
+    }
+
+    public Tuple generateDistricts(int w_id) {
+        int count = DISTRICTS_PER_WAREHOUSE;
+        Integer[] d_w_id = new Integer[count];
+        Integer[] d_id = new Integer[count];
+        Double[] d_ytd = new Double[count];
+        Double[] d_tax = new Double[count];
+        Integer[] d_next_o_id = new Integer[count];
+        String[] d_name = new String[count];
+        String[] d_street_1 = new String[count];
+        String[] d_street_2 = new String[count];
+        String[] d_city = new String[count];
+        String[] d_state = new String[count];
+        String[] d_zip = new String[count];
+        for (int i = 0; i < count; i++) {
+            d_w_id[i] = w_id;
+            d_id[i] = i + 1;
+            d_ytd[i] = 30000.0;
+            d_tax[i] = (double) random.nextLong(0, 2000) / 10000.0;
+            d_next_o_id[i] = CUSTOMERS_PER_DISTRICT + 1;
+            d_name[i] = random.getAString(6, 10);
+            d_street_1[i] = random.getAString(10, 20);
+            d_street_2[i] = random.getAString(10, 20);
+            d_city[i] = random.getAString(10, 20);
+            d_state[i] = random.getState();
+            d_zip[i] = random.getNString(4, 4) + "11111";
+        }
+        return Tuple.tuple().addValue(d_w_id).addValue(d_id).addValue(d_ytd).addValue(d_tax).addValue(d_next_o_id).addValue(d_name)
+                .addValue(d_street_1).addValue(d_street_2).addValue(d_city).addValue(d_state).addValue(d_zip);
+    }
+
+    /**
+     * Generate customers and their HISTORY rows. The first 1000 customers of a district get every C_LAST syllable combination once,
+     * the others are chosen by NURand with the C-Load value, see 4.3.2.3 and 2.1.6.
+     */
+    public Map<TPCCTable, Tuple> generateCustomers(int w_id, int d_id, int firstCustomerId, int lastCustomerId) {
+        int count = lastCustomerId - firstCustomerId + 1;
+        LocalDateTime now = LocalDateTime.now();
+        Integer[] c_w_id = new Integer[count];
+        Integer[] c_d_id = new Integer[count];
+        Integer[] c_id = new Integer[count];
+        Double[] c_discount = new Double[count];
+        String[] c_credit = new String[count];
+        String[] c_last = new String[count];
+        String[] c_first = new String[count];
+        Double[] c_credit_lim = new Double[count];
+        Double[] c_balance = new Double[count];
+        Double[] c_ytd_payment = new Double[count];
+        Integer[] c_payment_cnt = new Integer[count];
+        Integer[] c_delivery_cnt = new Integer[count];
+        String[] c_street_1 = new String[count];
+        String[] c_street_2 = new String[count];
+        String[] c_city = new String[count];
+        String[] c_state = new String[count];
+        String[] c_zip = new String[count];
+        String[] c_phone = new String[count];
+        LocalDateTime[] c_since = new LocalDateTime[count];
+        String[] c_middle = new String[count];
+        String[] c_data = new String[count];
+        Double[] h_amount = new Double[count];
+        String[] h_data = new String[count];
+        for (int i = 0; i < count; i++) {
+            int customerId = firstCustomerId + i;
+            c_w_id[i] = w_id;
+            c_d_id[i] = d_id;
+            c_id[i] = customerId;
+            c_discount[i] = (double) random.nextLong(0, 5000) / 10000.0;
+            c_credit[i] = random.nextInt(1, 100) <= 90 ? "GC" : "BC";
+            c_last[i] = customerId <= 1000 ? random.getCLast(customerId - 1) : random.getCLast();
+            c_first[i] = random.getAString(8, 16);
+            c_credit_lim[i] = 50000.0;
+            c_balance[i] = -10.0;
+            c_ytd_payment[i] = 10.0;
+            c_payment_cnt[i] = 1;
+            c_delivery_cnt[i] = 0;
+            c_street_1[i] = random.getAString(10, 20);
+            c_street_2[i] = random.getAString(10, 20);
+            c_city[i] = random.getAString(10, 20);
+            c_state[i] = random.getState();
+            c_zip[i] = random.getNString(4, 4) + "11111";
+            c_phone[i] = random.getNString(16, 16);
+            c_since[i] = now;
+            c_middle[i] = "OE";
+            c_data[i] = random.getAString(300, 500);
+            h_amount[i] = 10.0;
+            h_data[i] = random.getAString(12, 24);
+        }
+        Map<TPCCTable, Tuple> result = new EnumMap<>(TPCCTable.class);
+        result.put(TPCCTable.CUSTOMER, Tuple.tuple().addValue(c_w_id).addValue(c_d_id).addValue(c_id).addValue(c_discount).addValue(c_credit)
+                .addValue(c_last).addValue(c_first).addValue(c_credit_lim).addValue(c_balance).addValue(c_ytd_payment).addValue(c_payment_cnt)
+                .addValue(c_delivery_cnt).addValue(c_street_1).addValue(c_street_2).addValue(c_city).addValue(c_state).addValue(c_zip)
+                .addValue(c_phone).addValue(c_since).addValue(c_middle).addValue(c_data));
+        result.put(TPCCTable.HISTORY, Tuple.tuple().addValue(c_id).addValue(c_d_id).addValue(c_w_id).addValue(c_d_id).addValue(c_w_id)
+                .addValue(c_since).addValue(h_amount).addValue(h_data));
+        return result;
+    }
+
+    /**
+     * Generate a random permutation of customer ids used as O_C_ID of the orders of a district.
+     */
+    public int[] permuteCustomerIds() {
+        int[] result = new int[CUSTOMERS_PER_DISTRICT];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = i + 1;
+        }
+        for (int i = result.length - 1; i > 0; i--) {
+            int j = random.nextInt(0, i);
+            int tmp = result[i];
+            result[i] = result[j];
+            result[j] = tmp;
+        }
+        return result;
+    }
+
+    /**
+     * Generate orders with their ORDER_LINE rows, and NEW_ORDER rows for the undelivered ones.
+     *
+     * @param customerIds permutation of customer ids of the district indexed by O_ID - 1
+     */
+    public Map<TPCCTable, Tuple> generateOrders(int w_id, int d_id, int firstOrderId, int lastOrderId, int[] customerIds) {
+        int count = lastOrderId - firstOrderId + 1;
+        LocalDateTime now = LocalDateTime.now();
+        Integer[] o_w_id = new Integer[count];
+        Integer[] o_d_id = new Integer[count];
+        Integer[] o_id = new Integer[count];
+        Integer[] o_c_id = new Integer[count];
+        Integer[] o_carrier_id = new Integer[count];
+        Integer[] o_ol_cnt = new Integer[count];
+        Integer[] o_all_local = new Integer[count];
+        LocalDateTime[] o_entry_d = new LocalDateTime[count];
+        int lines = 0;
+        for (int i = 0; i < count; i++) {
+            int orderId = firstOrderId + i;
+            o_w_id[i] = w_id;
+            o_d_id[i] = d_id;
+            o_id[i] = orderId;
+            o_c_id[i] = customerIds[orderId - 1];
+            o_carrier_id[i] = orderId < FIRST_NEW_ORDER_ID ? random.nextInt(1, 10) : null;
+            o_ol_cnt[i] = random.nextInt(5, 15);
+            o_all_local[i] = 1;
+            o_entry_d[i] = now;
+            lines += o_ol_cnt[i];
+        }
+        Integer[] ol_w_id = new Integer[lines];
+        Integer[] ol_d_id = new Integer[lines];
+        Integer[] ol_o_id = new Integer[lines];
+        Integer[] ol_number = new Integer[lines];
+        Integer[] ol_i_id = new Integer[lines];
+        LocalDateTime[] ol_delivery_d = new LocalDateTime[lines];
+        Double[] ol_amount = new Double[lines];
+        Integer[] ol_quantity = new Integer[lines];
+        String[] ol_dist_info = new String[lines];
+        int line = 0;
+        for (int i = 0; i < count; i++) {
+            boolean delivered = o_id[i] < FIRST_NEW_ORDER_ID;
+            for (int number = 1; number <= o_ol_cnt[i]; number++) {
+                ol_w_id[line] = w_id;
+                ol_d_id[line] = d_id;
+                ol_o_id[line] = o_id[i];
+                ol_number[line] = number;
+                ol_i_id[line] = random.nextInt(1, ITEMS);
+                ol_delivery_d[line] = delivered ? now : null;
+                ol_amount[line] = delivered ? 0.0 : (double) random.nextLong(1, 999999) / 100.0;
+                ol_quantity[line] = 5;
+                ol_dist_info[line] = random.getAString(24, 24);
+                line++;
+            }
+        }
+        Map<TPCCTable, Tuple> result = new EnumMap<>(TPCCTable.class);
+        result.put(TPCCTable.OORDER, Tuple.tuple().addValue(o_w_id).addValue(o_d_id).addValue(o_id).addValue(o_c_id).addValue(o_carrier_id)
+                .addValue(o_ol_cnt).addValue(o_all_local).addValue(o_entry_d));
+        result.put(TPCCTable.ORDER_LINE, Tuple.tuple().addValue(ol_w_id).addValue(ol_d_id).addValue(ol_o_id).addValue(ol_number).addValue(ol_i_id)
+                .addValue(ol_delivery_d).addValue(ol_amount).addValue(ol_w_id).addValue(ol_quantity).addValue(ol_dist_info));
+        int firstNewOrderId = Math.max(firstOrderId, FIRST_NEW_ORDER_ID);
+        if (firstNewOrderId <= lastOrderId) {
+            int newOrders = lastOrderId - firstNewOrderId + 1;
+            Integer[] no_o_id = new Integer[newOrders];
+            for (int i = 0; i < newOrders; i++) {
+                no_o_id[i] = firstNewOrderId + i;
+            }
+            result.put(TPCCTable.NEW_ORDER, Tuple.tuple().addValue(Arrays.copyOf(o_w_id, newOrders)).addValue(Arrays.copyOf(o_d_id, newOrders)).addValue(no_o_id));
+        }
+        return result;
+    }
+
+    /**
+     * I_DATA and S_DATA, 10% of them contain "ORIGINAL" at a random position.
+     */
+    private String generateData() {
+        String result = random.getAString(26, 50);
+        if (random.nextInt(1, 100) <= 10) {
+            int position = random.nextInt(0, result.length() - 8);
+            result = result.substring(0, position) + "ORIGINAL" + result.substring(position + 8);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,139 @@
+package icu.wwj.benchmark.tpcc;
+
+import icu.wwj.benchmark.tpcc.config.BenchmarkConfiguration;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Tuple;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the schema and loads the initial population with {@link LoadWorker}s.
+ *
+ * <p>Units of work are the chunks of ITEM followed by the warehouses, handed out to workers one at a time.
+ * Indexes are built concurrently and foreign keys are added once all rows have been loaded.</p>
+ */
+public final class DataLoader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataLoader.class);
+
+    private final BenchmarkConfiguration configuration;
+
+    private final Vertx vertx;
+
+    private final Pool pool;
+
+    /**
+     * The master random of the load, whose C for C_LAST is the C-Load value recorded in bmsql_config.
+     */
+    @Getter
+    private final jTPCCRandom random;
+
+    @Getter
+    private final int itemChunks;
+
+    private final AtomicInteger nextUnit = new AtomicInteger();
+
+    private final AtomicInteger loadedWarehouses = new AtomicInteger();
+
+    private long loadStartNanoTime;
+
+    public DataLoader(BenchmarkConfiguration configuration, Vertx vertx, Pool pool) {
+        this.configuration = configuration;
+        this.vertx = vertx;
+        this.pool = pool;
+        random = new jTPCCRandom();
+        itemChunks = (DataGenerator.ITEMS + configuration.getLoadBatchRows() - 1) / configuration.getLoadBatchRows();
+    }
+
+    public Future<Void> load() {
+        long startNanoTime = System.nanoTime();
+        LOGGER.info("Creating tables.");
+        return executeScript("tpcc_tables.sql")
+                .compose(__ -> insertConfig())
+                .compose(__ -> loadRows())
+                .compose(__ -> createIndexes())
+                .compose(__ -> {
+                    LOGGER.info("Creating foreign keys.");
+                    return executeScript("tpcc_foreign_keys.sql");
+                })
+                .compose(__ -> {
+                    LOGGER.info("Analyzing tables.");
+                    return pool.query("ANALYZE").execute().<Void>mapEmpty();
+                })
+                .onSuccess(__ -> LOGGER.info("Loaded {} warehouses in {}s.", configuration.getWarehouses(), TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanoTime)))
+                .onFailure(cause -> LOGGER.error("Failed to load data, caused by:", cause));
+    }
+
+    private Future<Void> insertConfig() {
+        List<Tuple> rows = Arrays.asList(
+                Tuple.of("warehouses", String.valueOf(configuration.getWarehouses())),
+                Tuple.of("nURandCLast", String.valueOf(random.getNURandCLast())),
+                Tuple.of("nURandCC_ID", String.valueOf(random.getNURandCC_ID())),
+                Tuple.of("nURandCI_ID", String.valueOf(random.getNURandCI_ID())));
+        return pool.preparedQuery("INSERT INTO bmsql_config (cfg_name, cfg_value) VALUES ($1, $2)").executeBatch(rows).mapEmpty();
+    }
+
+    private Future<Void> loadRows() {
+        LOGGER.info("Loading {} warehouses with {} load workers.", configuration.getWarehouses(), configuration.getLoadWorkers());
+        loadStartNanoTime = System.nanoTime();
+        List<Future> finished = new CopyOnWriteArrayList<>();
+        AtomicInteger idGenerator = new AtomicInteger();
+        return vertx.deployVerticle(() -> {
+                    Promise<Void> finishPromise = Promise.promise();
+                    finished.add(finishPromise.future());
+                    return new LoadWorker(configuration, idGenerator.incrementAndGet(), pool, this, finishPromise);
+                }, new DeploymentOptions().setInstances(configuration.getLoadWorkers()))
+                .compose(deploymentId -> CompositeFuture.all(new ArrayList<>(finished)).eventually(__ -> vertx.undeploy(deploymentId)))
+                .mapEmpty();
+    }
+
+    private Future<Void> createIndexes() {
+        LOGGER.info("Creating indexes.");
+        List<Future> futures = new ArrayList<>();
+        for (String each : readScript("tpcc_indexes.sql").split("\n")) {
+            if (!each.isBlank() && !each.startsWith("--")) {
+                futures.add(pool.query(each).execute());
+            }
+        }
+        return CompositeFuture.all(futures).mapEmpty();
+    }
+
+    int nextUnit() {
+        return nextUnit.getAndIncrement();
+    }
+
+    void onWarehouseLoaded(int warehouseId) {
+        int loaded = loadedWarehouses.incrementAndGet();
+        long elapsedSeconds = Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - loadStartNanoTime));
+        LOGGER.info("Warehouse {} loaded, {}/{} warehouses, {} warehouses per minute.", warehouseId, loaded, configuration.getWarehouses(), loaded * 60L / elapsedSeconds);
+    }
+
+    private Future<Void> executeScript(String name) {
+        return pool.query(readScript(name)).execute().mapEmpty();
+    }
+
+    static String readScript(String name) {
+        try (InputStream in = DataLoader.class.getResourceAsStream("/" + name)) {
+            return new String(Objects.requireNonNull(in, name + " not found").readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to read " + name, ex);
+        }
+    }
+}
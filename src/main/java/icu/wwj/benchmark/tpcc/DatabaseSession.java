@@ -0,0 +1,37 @@
+package icu.wwj.benchmark.tpcc;
+
+import icu.wwj.benchmark.tpcc.config.BenchmarkConfiguration;
+import io.vertx.sqlclient.SqlConnection;
+import lombok.Getter;
+
+/**
+ * A connection with the executors of all transaction types. Prepared statements of the executors are bound to the connection,
+ * so they are created once per connection no matter how many terminals use it.
+ */
+@Getter
+public final class DatabaseSession {
+    
+    private final SqlConnection connection;
+    
+    private final StatementTimer statementTimer;
+    
+    private final NewOrderExecutor newOrderExecutor;
+    
+    private final PaymentExecutor paymentExecutor;
+    
+    private final OrderStatusExecutor orderStatusExecutor;
+    
+    private final StockLevelExecutor stockLevelExecutor;
+    
+    private final DeliveryExecutor deliveryExecutor;
+    
+    public DatabaseSession(BenchmarkConfiguration configuration, jTPCCRandom random, SqlConnection connection, StatementTimer statementTimer) {
+        this.connection = connection;
+        this.statementTimer = statementTimer;
+        newOrderExecutor = new NewOrderExecutor(configuration, random, connection, statementTimer);
+        paymentExecutor = new PaymentExecutor(configuration, random, connection, statementTimer);
+        orderStatusExecutor = new OrderStatusExecutor(configuration, random, connection, statementTimer);
+        stockLevelExecutor = new StockLevelExecutor(configuration, random, connection, statementTimer);
+        deliveryExecutor = new DeliveryExecutor(configuration, random, connection, statementTimer);
+    }
+}
@@ -1,6 +1,7 @@
 package icu.wwj.benchmark.tpcc;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 
 class Delivery {
 
@@ -11,8 +12,15 @@ class Delivery {
     LocalDateTime ol_delivery_d;
     
     final int[] delivered_o_id = new int[10];
+    
+    long queuedNanoTime;
 
     Delivery(int w_id) {
         this.w_id = w_id;
     }
+
+    @Override
+    public String toString() {
+        return "Delivery{w_id=%d, o_carrier_id=%d, delivered_o_id=%s}".formatted(w_id, o_carrier_id, Arrays.toString(delivered_o_id));
+    }
 }
@@ -12,7 +12,7 @@ import io.vertx.sqlclient.Tuple;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 
-public class DeliveryExecutor implements TransactionExecutor<Void> {
+public class DeliveryExecutor implements TransactionExecutor<Delivery, Integer> {
     
     private final BenchmarkConfiguration configuration;
 
@@ -32,43 +32,58 @@ public class DeliveryExecutor implements TransactionExecutor<Void> {
 
     private final PreparedQuery<RowSet<Row>> stmtDeliveryBGUpdateCustomer;
 
-    public DeliveryExecutor(BenchmarkConfiguration configuration, jTPCCRandom random, SqlConnection connection) {
+    private final PreparedQuery<RowSet<Row>> stmtDeliveryBGProcedure;
+
+    public DeliveryExecutor(BenchmarkConfiguration configuration, jTPCCRandom random, SqlConnection connection, StatementTimer statementTimer) {
         this.configuration = configuration;
         this.random = random;
-        stmtDeliveryBGSelectOldestNewOrder = connection.preparedQuery(
+        stmtDeliveryBGSelectOldestNewOrder = statementTimer.prepare("stmtDeliveryBGSelectOldestNewOrder", connection.preparedQuery(
                 "SELECT no_o_id " +
                         "    FROM bmsql_new_order " +
                         "    WHERE no_w_id = $1 AND no_d_id = $2 " +
-                        "    ORDER BY no_o_id ASC limit 1");
-        stmtDeliveryBGDeleteOldestNewOrder = connection.preparedQuery(
+                        "    ORDER BY no_o_id ASC limit 1"));
+        stmtDeliveryBGDeleteOldestNewOrder = statementTimer.prepare("stmtDeliveryBGDeleteOldestNewOrder", connection.preparedQuery(
                 "DELETE FROM bmsql_new_order " +
-                        "    WHERE no_w_id = $1 AND no_d_id = $2 AND no_o_id = $3");
-        stmtDeliveryBGSelectOrder = connection.preparedQuery(
+                        "    WHERE no_w_id = $1 AND no_d_id = $2 AND no_o_id = $3"));
+        stmtDeliveryBGSelectOrder = statementTimer.prepare("stmtDeliveryBGSelectOrder", connection.preparedQuery(
                 "SELECT o_c_id " +
                         "    FROM bmsql_oorder " +
-                        "    WHERE o_w_id = $1 AND o_d_id = $2 AND o_id = $3");
-        stmtDeliveryBGUpdateOrder = connection.preparedQuery(
+                        "    WHERE o_w_id = $1 AND o_d_id = $2 AND o_id = $3"));
+        stmtDeliveryBGUpdateOrder = statementTimer.prepare("stmtDeliveryBGUpdateOrder", connection.preparedQuery(
                 "UPDATE bmsql_oorder " +
                         "    SET o_carrier_id = $1 " +
-                        "    WHERE o_w_id = $2 AND o_d_id = $3 AND o_id = $4");
-        stmtDeliveryBGSelectSumOLAmount = connection.preparedQuery(
+                        "    WHERE o_w_id = $2 AND o_d_id = $3 AND o_id = $4"));
+        stmtDeliveryBGSelectSumOLAmount = statementTimer.prepare("stmtDeliveryBGSelectSumOLAmount", connection.preparedQuery(
                 "SELECT sum(ol_amount) AS sum_ol_amount " +
                         "    FROM bmsql_order_line " +
-                        "    WHERE ol_w_id = $1 AND ol_d_id = $2 AND ol_o_id = $3");
-        stmtDeliveryBGUpdateOrderLine = connection.preparedQuery(
+                        "    WHERE ol_w_id = $1 AND ol_d_id = $2 AND ol_o_id = $3"));
+        stmtDeliveryBGUpdateOrderLine = statementTimer.prepare("stmtDeliveryBGUpdateOrderLine", connection.preparedQuery(
                 "UPDATE bmsql_order_line " +
                         "    SET ol_delivery_d = $1 " +
-                        "    WHERE ol_w_id = $2 AND ol_d_id = $3 AND ol_o_id = $4");
-        stmtDeliveryBGUpdateCustomer = connection.preparedQuery(
+                        "    WHERE ol_w_id = $2 AND ol_d_id = $3 AND ol_o_id = $4"));
+        stmtDeliveryBGUpdateCustomer = statementTimer.prepare("stmtDeliveryBGUpdateCustomer", connection.preparedQuery(
                 "UPDATE bmsql_customer " +
                         "    SET c_balance = c_balance + $1, " +
                         "        c_delivery_cnt = c_delivery_cnt + 1 " +
-                        "    WHERE c_w_id = $2 AND c_d_id = $3 AND c_id = $4");
+                        "    WHERE c_w_id = $2 AND c_d_id = $3 AND c_id = $4"));
+        stmtDeliveryBGProcedure = configuration.isStoredProcedures() ? statementTimer.prepare("stmtDeliveryBGProcedure", connection.preparedQuery("SELECT bmsql_proc_delivery($1, $2, $3) AS skipped")) : null;
     }
 
+    /**
+     * Execute a delivery, either generated by the terminal or queued for deferred execution.
+     * The delivery date is the time of the attempt, not the time the delivery was queued.
+     *
+     * @return number of districts skipped because no undelivered order was found
+     */
     @Override
-    public Future<Void> execute(Transaction transaction, final int warehouseId) {
-        Delivery generated = generateDelivery(warehouseId);
+    public Future<Integer> execute(Transaction transaction, Delivery generated) {
+        Arrays.fill(generated.delivered_o_id, -1);
+        generated.ol_delivery_d = LocalDateTime.now();
+        if (null != stmtDeliveryBGProcedure) {
+            return stmtDeliveryBGProcedure.execute(Tuple.of(generated.w_id, generated.o_carrier_id, generated.ol_delivery_d))
+                    .compose(rows -> transaction.commit().map(rows.iterator().next().getInteger("skipped")),
+                            cause -> transaction.rollback().compose(unused -> Future.failedFuture(cause)));
+        }
         return Future.succeededFuture(generated)
                 .compose(delivery -> handleDistrictId(delivery, 1))
                 .compose(delivery -> handleDistrictId(delivery, 2))
@@ -80,14 +95,30 @@ public class DeliveryExecutor implements TransactionExecutor<Void> {
                 .compose(delivery -> handleDistrictId(delivery, 8))
                 .compose(delivery -> handleDistrictId(delivery, 9))
                 .compose(delivery -> handleDistrictId(delivery, 10))
-                .compose(__ -> transaction.commit(), cause -> transaction.rollback().compose(unused -> Future.failedFuture(cause)));
+                .compose(delivery -> transaction.commit().map(countSkippedDistricts(delivery)), cause -> transaction.rollback().compose(unused -> Future.failedFuture(cause)));
+    }
+
+    private static int countSkippedDistricts(Delivery delivery) {
+        int result = 0;
+        for (int each : delivery.delivered_o_id) {
+            if (each < 0) {
+                result++;
+            }
+        }
+        return result;
     }
 
-    private Delivery generateDelivery(int warehouseId) {
+    @Override
+    public Delivery generate(int warehouseId, int districtId) {
+        return generate(random, warehouseId);
+    }
+
+    /**
+     * Generate a delivery without a connection, e.g. to be queued for deferred execution.
+     */
+    static Delivery generate(jTPCCRandom random, int warehouseId) {
         Delivery delivery = new Delivery(warehouseId);
-        delivery.ol_delivery_d = LocalDateTime.now();
         delivery.o_carrier_id = random.nextInt(1, 10);
-        Arrays.fill(delivery.delivered_o_id, -1);
         return delivery;
     }
 
@@ -133,8 +164,7 @@ public class DeliveryExecutor implements TransactionExecutor<Void> {
                     return rows.iterator().next().getInteger("o_c_id");
                 }))
                 // Update ORDER_LINE setting the ol_delivery_d.
-                // TODO Using same LocalDateTime instead of LocalDateTime.now()
-                .compose(o_c_id -> stmtDeliveryBGUpdateOrderLine.execute(Tuple.of(LocalDateTime.now(), delivery.w_id, d_id, o_id))
+                .compose(o_c_id -> stmtDeliveryBGUpdateOrderLine.execute(Tuple.of(delivery.ol_delivery_d, delivery.w_id, d_id, o_id))
                         // Select the sum(ol_amount) from ORDER_LINE.
                         .compose(__ -> stmtDeliveryBGSelectSumOLAmount.execute(Tuple.of(delivery.w_id, d_id, o_id)).map(rows -> {
                             if (0 == rows.size()) {
@@ -0,0 +1,97 @@
+package icu.wwj.benchmark.tpcc;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Queue of deliveries requested by terminals and executed in background by {@link DeliveryWorker}s.
+ */
+public final class DeliveryQueue {
+    
+    private final Queue<Delivery> deliveries = new ConcurrentLinkedQueue<>();
+    
+    private final Queue<DeliveryWorker> idleWorkers = new ConcurrentLinkedQueue<>();
+    
+    private final AtomicInteger size = new AtomicInteger();
+    
+    /**
+     * Queueing time in microseconds recorded by workers.
+     */
+    private final Recorder queueingTimeRecorder = new Recorder(3);
+    
+    private final Histogram totalQueueingTimes = new Histogram(3);
+    
+    public void offer(Delivery delivery) {
+        deliveries.add(delivery);
+        size.incrementAndGet();
+        DeliveryWorker idleWorker = idleWorkers.poll();
+        if (null != idleWorker) {
+            idleWorker.wakeUp();
+        }
+    }
+    
+    Delivery poll() {
+        Delivery result = deliveries.poll();
+        if (null != result) {
+            size.decrementAndGet();
+        }
+        return result;
+    }
+    
+    void park(DeliveryWorker worker) {
+        idleWorkers.add(worker);
+    }
+    
+    /**
+     * Remove a parked worker.
+     *
+     * @return false if the worker has already been polled by a producer and is going to be woken up
+     */
+    boolean unpark(DeliveryWorker worker) {
+        return idleWorkers.remove(worker);
+    }
+    
+    boolean isEmpty() {
+        return deliveries.isEmpty();
+    }
+    
+    public int size() {
+        return size.get();
+    }
+    
+    void recordQueueingTime(long queueingNanos) {
+        queueingTimeRecorder.recordValue(queueingNanos / 1000);
+    }
+    
+    /**
+     * Get queueing times in microseconds recorded since the previous call.
+     *
+     * @return histogram of the current interval
+     */
+    public synchronized Histogram collectIntervalQueueingTimes() {
+        Histogram result = queueingTimeRecorder.getIntervalHistogram();
+        totalQueueingTimes.add(result);
+        return result;
+    }
+    
+    /**
+     * Get all queueing times in microseconds collected so far.
+     *
+     * @return histogram of the whole run
+     */
+    public synchronized Histogram getTotalQueueingTimes() {
+        return totalQueueingTimes.copy();
+    }
+    
+    /**
+     * Discard queueing times recorded so far, e.g. during the warmup.
+     */
+    public synchronized void resetTotalQueueingTimes() {
+        queueingTimeRecorder.reset();
+        totalQueueingTimes.reset();
+    }
+}
@@ -0,0 +1,144 @@
+package icu.wwj.benchmark.tpcc;
+
+import icu.wwj.benchmark.tpcc.config.BenchmarkConfiguration;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.SqlConnection;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.SingleWriterRecorder;
+
+/**
+ * Executes deliveries queued by terminals in background with its own connection, as required by TPC-C 2.7.2.
+ */
+@Slf4j
+public class DeliveryWorker extends AbstractVerticle {
+    
+    private final BenchmarkConfiguration configuration;
+    
+    private final int id;
+    
+    private final jTPCCRandom random;
+    
+    private final Pool pool;
+    
+    private final DeliveryQueue deliveryQueue;
+    
+    private final ResultFileWriter resultFileWriter;
+    
+    private final ResultReporter resultReporter;
+    
+    private final SingleWriterRecorder latencyRecorder;
+    
+    private final TransactionCounters.Writer counters;
+    
+    private final StatementTimer statementTimer;
+    
+    private RetryPolicy retryPolicy;
+    
+    private SqlConnection connection;
+    
+    private DeliveryExecutor deliveryExecutor;
+    
+    private ResultRingBuffer resultRingBuffer;
+    
+    private boolean idle;
+    
+    private boolean stop;
+    
+    private Promise<Void> stopPromise;
+    
+    public DeliveryWorker(BenchmarkConfiguration configuration, int id, jTPCCRandom random, Pool pool, DeliveryQueue deliveryQueue, ResultReporter resultReporter, ResultFileWriter resultFileWriter) {
+        this.configuration = configuration;
+        this.id = id;
+        this.random = random;
+        this.pool = pool;
+        this.deliveryQueue = deliveryQueue;
+        this.resultFileWriter = resultFileWriter;
+        this.resultReporter = resultReporter;
+        latencyRecorder = resultReporter.getLatencyRecorders()[configuration.getTerminals() + id - 1][TPCCTransaction.DELIVERY_BG.ordinal()];
+        counters = resultReporter.getTransactionCounters().writer(configuration.getTerminals() + id - 1);
+        statementTimer = resultReporter.newStatementTimer();
+    }
+    
+    @Override
+    public void start(Promise<Void> startPromise) {
+        resultRingBuffer = resultFileWriter.getRingBuffer();
+        retryPolicy = new RetryPolicy(getVertx(), configuration);
+        pool.getConnection().onSuccess(sqlConnection -> {
+            connection = sqlConnection;
+            deliveryExecutor = new DeliveryExecutor(configuration, random, connection, statementTimer);
+            MessageConsumer<Long> startConsumer = getVertx().eventBus().localConsumer("start");
+            startConsumer.handler(msg -> {
+                startConsumer.unregister();
+                log.info("DeliveryWorker-{} started.", id);
+                processNextDelivery();
+            });
+            startPromise.complete();
+        }).onFailure(startPromise::fail);
+    }
+    
+    void wakeUp() {
+        context.runOnContext(__ -> {
+            if (idle) {
+                idle = false;
+                processNextDelivery();
+            }
+        });
+    }
+    
+    private void processNextDelivery() {
+        if (stop) {
+            closeConnection();
+            return;
+        }
+        Delivery delivery = deliveryQueue.poll();
+        if (null == delivery) {
+            idle = true;
+            deliveryQueue.park(this);
+            // A delivery may have been queued after polling but before parking.
+            if (!deliveryQueue.isEmpty() && deliveryQueue.unpark(this)) {
+                idle = false;
+                processNextDelivery();
+            }
+            return;
+        }
+        long executionStartNanoTime = System.nanoTime();
+        deliveryQueue.recordQueueingTime(executionStartNanoTime - delivery.queuedNanoTime);
+        statementTimer.start(TPCCTransaction.DELIVERY_BG);
+        retryPolicy.execute(connection, statementTimer, transaction -> deliveryExecutor.execute(transaction, delivery), counters, TPCCTransaction.DELIVERY_BG)
+                .compose(skippedDeliveries -> onDeliveryFinished(delivery, executionStartNanoTime, skippedDeliveries, false), cause -> {
+                    log.error("Error occurred running " + TPCCTransaction.DELIVERY_BG, cause);
+                    return onDeliveryFinished(delivery, executionStartNanoTime, 0, true);
+                })
+                .onComplete(__ -> processNextDelivery());
+    }
+    
+    private Future<Void> onDeliveryFinished(Delivery delivery, long executionStartNanoTime, int skippedDeliveries, boolean error) {
+        long databaseNanos = error ? -1L : statementTimer.finish(delivery.queuedNanoTime, delivery);
+        long finishNanoTime = System.nanoTime();
+        long completionNanos = finishNanoTime - delivery.queuedNanoTime;
+        long executionNanos = databaseNanos < 0 ? finishNanoTime - executionStartNanoTime : databaseNanos;
+        if (!error) {
+            latencyRecorder.recordValue(completionNanos / 1000);
+            counters.increment(TPCCTransaction.DELIVERY_BG, TransactionCounters.COMPLETED);
+        }
+        return resultFileWriter.write(resultRingBuffer, (finishNanoTime - resultReporter.getMeasurementStartNanoTime()) / 1_000_000, completionNanos / 1_000_000,
+                executionNanos / 1_000_000, TPCCTransaction.DELIVERY_BG, false, skippedDeliveries, error);
+    }
+    
+    private void closeConnection() {
+        connection.close().onComplete(__ -> stopPromise.tryComplete());
+    }
+    
+    @Override
+    public void stop(Promise<Void> stopPromise) {
+        this.stopPromise = stopPromise;
+        stop = true;
+        if (idle && deliveryQueue.unpark(this)) {
+            closeConnection();
+        }
+    }
+}
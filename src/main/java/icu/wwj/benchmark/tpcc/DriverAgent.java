@@ -0,0 +1,93 @@
+package icu.wwj.benchmark.tpcc;
+
+import icu.wwj.benchmark.tpcc.config.BenchmarkConfiguration;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetClientOptions;
+import io.vertx.core.net.NetSocket;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Driver process taking part in a run of the {@link DriverCoordinator}.
+ *
+ * <p>The terminals of the agent use its own warehouse range. They start together with the terminals of the other agents
+ * once the coordinator has received ready from all of them, and the counters and latencies of the agent are streamed back to the coordinator.</p>
+ */
+public final class DriverAgent {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DriverAgent.class);
+
+    private final Vertx vertx;
+
+    private final BenchmarkConfiguration configuration;
+
+    private final Promise<jTPCCRandom> welcomePromise = Promise.promise();
+
+    private final Promise<Void> startPromise = Promise.promise();
+
+    private NetSocket socket;
+
+    public DriverAgent(Vertx vertx, BenchmarkConfiguration configuration) {
+        this.vertx = vertx;
+        this.configuration = configuration;
+    }
+
+    /**
+     * Connect to the coordinator, retrying until it is listening.
+     *
+     * @return master random of the run with the C values chosen by the coordinator
+     */
+    public Future<jTPCCRandom> connect() {
+        String[] hostAndPort = configuration.getCoordinatorAddress().split(":");
+        NetClientOptions options = new NetClientOptions().setReconnectAttempts(60).setReconnectInterval(1000L).setTcpNoDelay(true);
+        LOGGER.info("Connecting to coordinator {}, warehouses {}-{}.", configuration.getCoordinatorAddress(), configuration.getFirstWarehouse(), configuration.getLastWarehouse());
+        return vertx.createNetClient(options).connect(Integer.parseInt(hostAndPort[1]), hostAndPort[0]).compose(socket -> {
+            this.socket = socket;
+            DriverProtocol.handle(socket, this::handleMessage);
+            socket.closeHandler(__ -> {
+                welcomePromise.tryFail("Connection to coordinator closed");
+                startPromise.tryFail("Connection to coordinator closed");
+            });
+            return welcomePromise.future();
+        });
+    }
+
+    private void handleMessage(JsonObject message) {
+        switch (message.getString(DriverProtocol.TYPE)) {
+            case DriverProtocol.WELCOME -> welcomePromise.tryComplete(
+                    new jTPCCRandom(message.getLong("nURandCLast"), message.getLong("nURandCC_ID"), message.getLong("nURandCI_ID")));
+            case DriverProtocol.START -> startPromise.tryComplete();
+            default -> LOGGER.warn("Unknown message from coordinator: {}", message);
+        }
+    }
+
+    /**
+     * Report the deployed terminals as ready and wait for all agents.
+     */
+    public Future<Void> awaitStart() {
+        LOGGER.info("Terminals ready, waiting for the other agents.");
+        DriverProtocol.send(socket, new JsonObject().put(DriverProtocol.TYPE, DriverProtocol.READY)
+                .put("firstWarehouse", configuration.getFirstWarehouse()).put("lastWarehouse", configuration.getLastWarehouse())
+                .put("terminals", configuration.getTerminals()));
+        return startPromise.future();
+    }
+
+    /**
+     * Report the counters and latencies of the interval, the coordinator sums the rates of the latest interval of every agent.
+     */
+    public void reportInterval(TransactionCounters.Snapshot intervalCounters, Histogram[] intervalHistograms) {
+        DriverProtocol.send(socket, new JsonObject().put(DriverProtocol.TYPE, DriverProtocol.INTERVAL).put("intervalNanos", intervalCounters.getNanos())
+                .put("newOrderCount", intervalCounters.getNewOrders()).put("totalCount", intervalCounters.getTotal())
+                .put("histograms", DriverProtocol.encodeHistograms(intervalHistograms)));
+    }
+
+    public Future<Void> reportFinish(long elapsedMillis, long newOrderCount, long totalCount, Histogram[] totalHistograms) {
+        DriverProtocol.send(socket, new JsonObject().put(DriverProtocol.TYPE, DriverProtocol.FINISH).put("elapsedMillis", elapsedMillis)
+                .put("newOrderCount", newOrderCount).put("totalCount", totalCount).put("histograms", DriverProtocol.encodeHistograms(totalHistograms)));
+        return socket.end().eventually(__ -> socket.close());
+    }
+}
@@ -0,0 +1,263 @@
+package icu.wwj.benchmark.tpcc;
+
+import icu.wwj.benchmark.tpcc.config.BenchmarkConfiguration;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetServerOptions;
+import io.vertx.core.net.NetSocket;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.PoolOptions;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Coordinates a run driven by several {@link DriverAgent} processes, each running the terminals of its own warehouse range.
+ *
+ * <p>Agents are started together once all of them are ready, like the {@code start} event published to local terminals.
+ * Counters and latency histograms streamed back by the agents are merged into one report.
+ * All state is confined to the context of the server.</p>
+ */
+public final class DriverCoordinator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DriverCoordinator.class);
+
+    private static final int TRANSACTION_TYPES = TPCCTransaction.values().length;
+
+    private final BenchmarkConfiguration configuration;
+
+    private final Vertx vertx;
+
+    private final jTPCCRandom random;
+
+    private final List<AgentState> agents = new ArrayList<>();
+
+    private final Promise<Void> finishPromise = Promise.promise();
+
+    private final Histogram[] intervalHistograms = newHistograms();
+
+    private final Histogram[] totalHistograms = newHistograms();
+
+    private boolean started;
+
+    private long realtimeReporter = -1;
+
+    private LocalDateTime sessionStartLocalDateTime;
+
+    public DriverCoordinator(BenchmarkConfiguration configuration, Vertx vertx, jTPCCRandom random) {
+        this.configuration = configuration;
+        this.vertx = vertx;
+        this.random = random;
+    }
+
+    /**
+     * Run the coordinator until all agents have finished.
+     */
+    public static void coordinate(BenchmarkConfiguration configuration) {
+        Vertx vertx = Vertx.vertx();
+        Pool pool = TPCC.createPool(configuration, vertx, new PoolOptions().setMaxSize(1));
+        TPCC.createRandom(pool).eventually(__ -> pool.close())
+                .compose(random -> new DriverCoordinator(configuration, vertx, random).run())
+                .onFailure(cause -> LOGGER.error("Coordinated run failed, caused by:", cause))
+                .eventually(__ -> vertx.close());
+    }
+
+    public Future<Void> run() {
+        String[] hostAndPort = configuration.getCoordinatorAddress().split(":");
+        return vertx.createNetServer(new NetServerOptions().setTcpNoDelay(true)).connectHandler(this::onConnect)
+                .listen(Integer.parseInt(hostAndPort[1]), hostAndPort[0])
+                .compose(server -> {
+                    LOGGER.info("Coordinator listening on {}, waiting for {} agents.", configuration.getCoordinatorAddress(), configuration.getAgents());
+                    return finishPromise.future().eventually(__ -> server.close());
+                });
+    }
+
+    private void onConnect(NetSocket socket) {
+        if (started || agents.size() >= configuration.getAgents()) {
+            LOGGER.warn("Rejected agent {}, {} agents are already connected.", socket.remoteAddress(), agents.size());
+            socket.close();
+            return;
+        }
+        AgentState agent = new AgentState(socket);
+        agents.add(agent);
+        DriverProtocol.handle(socket, message -> handleMessage(agent, message));
+        socket.closeHandler(__ -> {
+            if (!agent.finished) {
+                finishPromise.tryFail("Agent " + agent.address + " disconnected before the end of the run");
+            }
+        });
+        DriverProtocol.send(socket, new JsonObject().put(DriverProtocol.TYPE, DriverProtocol.WELCOME)
+                .put("nURandCLast", random.getNURandCLast()).put("nURandCC_ID", random.getNURandCC_ID()).put("nURandCI_ID", random.getNURandCI_ID()));
+    }
+
+    private void handleMessage(AgentState agent, JsonObject message) {
+        switch (message.getString(DriverProtocol.TYPE)) {
+            case DriverProtocol.READY -> onReady(agent, message);
+            case DriverProtocol.INTERVAL -> {
+                agent.updateInterval(message);
+                merge(intervalHistograms, message);
+            }
+            case DriverProtocol.FINISH -> {
+                agent.update(message);
+                merge(totalHistograms, message);
+                agent.finished = true;
+                if (agents.stream().allMatch(each -> each.finished)) {
+                    finalReport();
+                    finishPromise.tryComplete();
+                }
+            }
+            default -> LOGGER.warn("Unknown message from agent {}: {}", agent.address, message);
+        }
+    }
+
+    private void onReady(AgentState agent, JsonObject message) {
+        agent.firstWarehouse = message.getInteger("firstWarehouse");
+        agent.lastWarehouse = message.getInteger("lastWarehouse");
+        agent.terminals = message.getInteger("terminals");
+        agent.ready = true;
+        long readyAgents = agents.stream().filter(each -> each.ready).count();
+        LOGGER.info("Agent {} ready with {} terminals on warehouses {}-{}, {}/{} agents ready.",
+                agent.address, agent.terminals, agent.firstWarehouse, agent.lastWarehouse, readyAgents, configuration.getAgents());
+        if (readyAgents == configuration.getAgents()) {
+            start();
+        }
+    }
+
+    private void start() {
+        agents.sort(Comparator.comparingInt(each -> each.firstWarehouse));
+        for (int i = 1; i < agents.size(); i++) {
+            if (agents.get(i).firstWarehouse <= agents.get(i - 1).lastWarehouse) {
+                LOGGER.warn("Warehouses of agent {} overlap with agent {}.", agents.get(i).address, agents.get(i - 1).address);
+            }
+        }
+        LOGGER.info("Starting {} agents.", agents.size());
+        started = true;
+        sessionStartLocalDateTime = LocalDateTime.now();
+        for (AgentState each : agents) {
+            DriverProtocol.send(each.socket, new JsonObject().put(DriverProtocol.TYPE, DriverProtocol.START));
+        }
+        if (configuration.getReportIntervalSeconds() > 0) {
+            realtimeReporter = vertx.setPeriodic(configuration.getReportIntervalSeconds() * 1000L, __ -> reportCurrentTPM());
+        }
+    }
+
+    private void reportCurrentTPM() {
+        double intervalTpmTotal = 0;
+        double intervalTpmC = 0;
+        for (AgentState each : agents) {
+            intervalTpmTotal += each.intervalTpmTotal;
+            intervalTpmC += each.intervalTpmC;
+        }
+        LOGGER.info("Current tpmTOTAL: {}\tCurrent tpmC: {}", Math.round(intervalTpmTotal * 100) / 100.0, Math.round(intervalTpmC * 100) / 100.0);
+        TPCC.logLatency("Interval", intervalHistograms);
+        for (Histogram each : intervalHistograms) {
+            each.reset();
+        }
+    }
+
+    private void finalReport() {
+        if (-1 != realtimeReporter) {
+            vertx.cancelTimer(realtimeReporter);
+        }
+        long newOrderCount = 0;
+        long totalCount = 0;
+        for (AgentState each : agents) {
+            LOGGER.info("Agent {} warehouses {}-{}\ttpmC = {}\ttpmTOTAL = {}", each.address, each.firstWarehouse, each.lastWarehouse,
+                    each.tpm(each.newOrderCount), each.tpm(each.totalCount));
+            newOrderCount += each.newOrderCount;
+            totalCount += each.totalCount;
+        }
+        LOGGER.info("Measured tpmC (NewOrders) = {}", sumTpm(true));
+        LOGGER.info("Measured tpmTOTAL = {}", sumTpm(false));
+        LOGGER.info("Session Start     = {}", sessionStartLocalDateTime);
+        LOGGER.info("Session End       = {}", LocalDateTime.now());
+        LOGGER.info("Transaction Count = {}", totalCount);
+        LOGGER.info("New Order Count   = {}", newOrderCount);
+        TPCC.logLatency("Total", totalHistograms);
+        TPCC.reportResponseTimeConstraints(totalHistograms);
+    }
+
+    /**
+     * Agents run concurrently, so the rate of the run is the sum of the rates measured by each agent over its own measurement.
+     */
+    private double sumTpm(boolean newOrders) {
+        double result = 0;
+        for (AgentState each : agents) {
+            result += each.tpm(newOrders ? each.newOrderCount : each.totalCount);
+        }
+        return Math.round(result * 100) / 100.0;
+    }
+
+    private static void merge(Histogram[] target, JsonObject message) {
+        Histogram[] histograms = DriverProtocol.decodeHistograms(message.getJsonArray("histograms"));
+        for (int i = 0; i < TRANSACTION_TYPES; i++) {
+            target[i].add(histograms[i]);
+        }
+    }
+
+    private static Histogram[] newHistograms() {
+        Histogram[] result = new Histogram[TRANSACTION_TYPES];
+        for (int i = 0; i < TRANSACTION_TYPES; i++) {
+            result[i] = new Histogram(3);
+        }
+        return result;
+    }
+
+    private static final class AgentState {
+
+        private final NetSocket socket;
+
+        private final String address;
+
+        private int firstWarehouse;
+
+        private int lastWarehouse;
+
+        private int terminals;
+
+        private boolean ready;
+
+        private boolean finished;
+
+        private long elapsedMillis;
+
+        private long newOrderCount;
+
+        private long totalCount;
+
+        /**
+         * Rates of the latest interval reported by the agent.
+         */
+        private double intervalTpmC;
+
+        private double intervalTpmTotal;
+
+        private AgentState(NetSocket socket) {
+            this.socket = socket;
+            address = socket.remoteAddress().toString();
+        }
+
+        private void update(JsonObject message) {
+            elapsedMillis = message.getLong("elapsedMillis");
+            newOrderCount = message.getLong("newOrderCount");
+            totalCount = message.getLong("totalCount");
+        }
+
+        private void updateInterval(JsonObject message) {
+            long intervalNanos = message.getLong("intervalNanos");
+            intervalTpmC = TransactionCounters.perMinute(message.getLong("newOrderCount"), intervalNanos);
+            intervalTpmTotal = TransactionCounters.perMinute(message.getLong("totalCount"), intervalNanos);
+        }
+
+        private double tpm(long count) {
+            return 0 == elapsedMillis ? 0 : Math.round(count * 60_000.0 / elapsedMillis * 100) / 100.0;
+        }
+    }
+}
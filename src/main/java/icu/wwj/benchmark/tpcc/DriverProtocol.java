@@ -0,0 +1,77 @@
+package icu.wwj.benchmark.tpcc;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetSocket;
+import io.vertx.core.parsetools.RecordParser;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+
+/**
+ * Messages exchanged between the {@link DriverCoordinator} and its {@link DriverAgent}s, one JSON object per line.
+ *
+ * <ul>
+ *     <li>{@code welcome}: coordinator to agent on connect, carries the C values of the run shared by all terminals (TPC-C 2.1.6).</li>
+ *     <li>{@code ready}: agent to coordinator once its terminals are deployed.</li>
+ *     <li>{@code start}: coordinator to agents once all agents are ready.</li>
+ *     <li>{@code interval}: agent to coordinator every report interval, counters and latencies of the interval.</li>
+ *     <li>{@code finish}: agent to coordinator at the end of the run, cumulative counters and the latencies of the whole run.</li>
+ * </ul>
+ */
+final class DriverProtocol {
+
+    static final String TYPE = "type";
+
+    static final String WELCOME = "welcome";
+
+    static final String READY = "ready";
+
+    static final String START = "start";
+
+    static final String INTERVAL = "interval";
+
+    static final String FINISH = "finish";
+
+    private DriverProtocol() {
+    }
+
+    static void send(NetSocket socket, JsonObject message) {
+        socket.write(message.toBuffer().appendByte((byte) '\n'));
+    }
+
+    static void handle(NetSocket socket, Consumer<JsonObject> handler) {
+        socket.handler(RecordParser.newDelimited("\n", (Buffer line) -> handler.accept(line.toJsonObject())));
+    }
+
+    /**
+     * Encode latency histograms indexed by {@link TPCCTransaction#ordinal()}.
+     */
+    static JsonArray encodeHistograms(Histogram[] histograms) {
+        JsonArray result = new JsonArray();
+        for (Histogram each : histograms) {
+            ByteBuffer buffer = ByteBuffer.allocate(each.getNeededByteBufferCapacity());
+            int length = each.encodeIntoCompressedByteBuffer(buffer);
+            byte[] bytes = new byte[length];
+            buffer.flip();
+            buffer.get(bytes);
+            result.add(bytes);
+        }
+        return result;
+    }
+
+    static Histogram[] decodeHistograms(JsonArray encoded) {
+        Histogram[] result = new Histogram[encoded.size()];
+        for (int i = 0; i < result.length; i++) {
+            try {
+                result[i] = Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded.getBinary(i)), 0);
+            } catch (DataFormatException ex) {
+                throw new IllegalArgumentException("Malformed histogram", ex);
+            }
+        }
+        return result;
+    }
+}
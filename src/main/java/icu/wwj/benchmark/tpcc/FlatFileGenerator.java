@@ -0,0 +1,216 @@
+package icu.wwj.benchmark.tpcc;
+
+import icu.wwj.benchmark.tpcc.config.BenchmarkConfiguration;
+import io.vertx.sqlclient.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates the initial population as CSV files to be loaded by server side {@code COPY ... FROM}.
+ *
+ * <p>Warehouses are split into partitions of {@code generateWarehousesPerFile} warehouses generated in parallel by fork-join,
+ * and every partition is written to its own file per table, so files of one table can be copied by several sessions at once.
+ * Rows come from {@link DataGenerator}, the same as the online {@link DataLoader}.</p>
+ */
+public final class FlatFileGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FlatFileGenerator.class);
+
+    private static final TPCCTable[] WAREHOUSE_TABLES = {
+            TPCCTable.WAREHOUSE, TPCCTable.STOCK, TPCCTable.DISTRICT, TPCCTable.CUSTOMER, TPCCTable.HISTORY,
+            TPCCTable.OORDER, TPCCTable.NEW_ORDER, TPCCTable.ORDER_LINE};
+
+    private final BenchmarkConfiguration configuration;
+
+    private final Path outputDirectory;
+
+    private final jTPCCRandom random;
+
+    private final int warehousesPerFile;
+
+    private final AtomicInteger generatedWarehouses = new AtomicInteger();
+
+    public FlatFileGenerator(BenchmarkConfiguration configuration, Path outputDirectory) {
+        this.configuration = configuration;
+        this.outputDirectory = outputDirectory.toAbsolutePath();
+        random = new jTPCCRandom();
+        warehousesPerFile = configuration.getGenerateWarehousesPerFile();
+    }
+
+    /**
+     * Generate files for the configured warehouses.
+     *
+     * @param args output directory
+     */
+    public static void generate(BenchmarkConfiguration configuration, String[] args) throws IOException {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("Usage: generate <output directory>");
+        }
+        new FlatFileGenerator(configuration, Path.of(args[0])).generate();
+    }
+
+    public void generate() throws IOException {
+        long startNanoTime = System.nanoTime();
+        Files.createDirectories(outputDirectory);
+        LOGGER.info("Generating {} warehouses into {} with {} warehouses per file.", configuration.getWarehouses(), outputDirectory, warehousesPerFile);
+        ForkJoinPool forkJoinPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            forkJoinPool.invoke(new RecursiveAction() {
+
+                @Override
+                protected void compute() {
+                    invokeAll(new ItemTask(), new PartitionTask(0, (configuration.getWarehouses() + warehousesPerFile - 1) / warehousesPerFile));
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } finally {
+            forkJoinPool.shutdown();
+        }
+        writeConfig();
+        writeScripts();
+        LOGGER.info("Generated {} warehouses in {}s. Run tpcc_tables.sql, copy.sql, tpcc_indexes.sql and tpcc_foreign_keys.sql in {}.",
+                configuration.getWarehouses(), TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanoTime), outputDirectory);
+    }
+
+    private Path getFile(String tableName, int firstWarehouse, int lastWarehouse) {
+        return outputDirectory.resolve(tableName + "." + firstWarehouse + "-" + lastWarehouse + ".csv");
+    }
+
+    private void writeConfig() throws IOException {
+        String content = "warehouses," + configuration.getWarehouses() + "\n"
+                + "nURandCLast," + random.getNURandCLast() + "\n"
+                + "nURandCC_ID," + random.getNURandCC_ID() + "\n"
+                + "nURandCI_ID," + random.getNURandCI_ID() + "\n";
+        Files.writeString(outputDirectory.resolve("bmsql_config.csv"), content, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Write one COPY statement per line, so the statements can be distributed across sessions, and the DDL scripts of the loader.
+     */
+    private void writeScripts() throws IOException {
+        List<String> statements = new ArrayList<>();
+        statements.add(copyStatement("bmsql_config", "cfg_name, cfg_value", outputDirectory.resolve("bmsql_config.csv")));
+        statements.add(copyStatement(TPCCTable.ITEM, outputDirectory.resolve(TPCCTable.ITEM.getTableName() + ".csv")));
+        for (TPCCTable table : WAREHOUSE_TABLES) {
+            for (int first = 1; first <= configuration.getWarehouses(); first += warehousesPerFile) {
+                statements.add(copyStatement(table, getFile(table.getTableName(), first, Math.min(first + warehousesPerFile - 1, configuration.getWarehouses()))));
+            }
+        }
+        Files.write(outputDirectory.resolve("copy.sql"), statements, StandardCharsets.UTF_8);
+        for (String each : new String[]{"tpcc_tables.sql", "tpcc_indexes.sql", "tpcc_foreign_keys.sql"}) {
+            Files.writeString(outputDirectory.resolve(each), DataLoader.readScript(each), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String copyStatement(TPCCTable table, Path file) {
+        return copyStatement(table.getTableName(), table.getColumnNames(), file);
+    }
+
+    private static String copyStatement(String tableName, String columnNames, Path file) {
+        return "COPY " + tableName + " (" + columnNames + ") FROM '" + file + "' WITH (FORMAT csv);";
+    }
+
+    private final class ItemTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            DataGenerator dataGenerator = new DataGenerator(random.newRandom());
+            try (TableFileWriter writer = new TableFileWriter(outputDirectory.resolve(TPCCTable.ITEM.getTableName() + ".csv"))) {
+                for (int first = 1; first <= DataGenerator.ITEMS; first += configuration.getLoadBatchRows()) {
+                    writer.write(dataGenerator.generateItems(first, Math.min(first + configuration.getLoadBatchRows() - 1, DataGenerator.ITEMS)));
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Generate partitions in [firstPartition, lastPartition), splitting until a single partition is left.
+     */
+    private final class PartitionTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int firstPartition;
+
+        private final int lastPartition;
+
+        private PartitionTask(int firstPartition, int lastPartition) {
+            this.firstPartition = firstPartition;
+            this.lastPartition = lastPartition;
+        }
+
+        @Override
+        protected void compute() {
+            if (lastPartition - firstPartition > 1) {
+                int middle = (firstPartition + lastPartition) >>> 1;
+                invokeAll(new PartitionTask(firstPartition, middle), new PartitionTask(middle, lastPartition));
+                return;
+            }
+            int firstWarehouse = firstPartition * warehousesPerFile + 1;
+            int lastWarehouse = Math.min(firstWarehouse + warehousesPerFile - 1, configuration.getWarehouses());
+            try {
+                generatePartition(firstWarehouse, lastWarehouse);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private void generatePartition(int firstWarehouse, int lastWarehouse) throws IOException {
+            DataGenerator dataGenerator = new DataGenerator(random.newRandom());
+            int batchRows = configuration.getLoadBatchRows();
+            Map<TPCCTable, TableFileWriter> writers = new EnumMap<>(TPCCTable.class);
+            try {
+                for (TPCCTable each : WAREHOUSE_TABLES) {
+                    writers.put(each, new TableFileWriter(getFile(each.getTableName(), firstWarehouse, lastWarehouse)));
+                }
+                for (int w_id = firstWarehouse; w_id <= lastWarehouse; w_id++) {
+                    writers.get(TPCCTable.WAREHOUSE).write(dataGenerator.generateWarehouse(w_id));
+                    for (int first = 1; first <= DataGenerator.ITEMS; first += batchRows) {
+                        writers.get(TPCCTable.STOCK).write(dataGenerator.generateStock(w_id, first, Math.min(first + batchRows - 1, DataGenerator.ITEMS)));
+                    }
+                    writers.get(TPCCTable.DISTRICT).write(dataGenerator.generateDistricts(w_id));
+                    for (int d_id = 1; d_id <= DataGenerator.DISTRICTS_PER_WAREHOUSE; d_id++) {
+                        for (int first = 1; first <= DataGenerator.CUSTOMERS_PER_DISTRICT; first += batchRows) {
+                            write(writers, dataGenerator.generateCustomers(w_id, d_id, first, Math.min(first + batchRows - 1, DataGenerator.CUSTOMERS_PER_DISTRICT)));
+                        }
+                        int[] customerIds = dataGenerator.permuteCustomerIds();
+                        int ordersPerBatch = Math.max(1, batchRows / 10);
+                        for (int first = 1; first <= DataGenerator.CUSTOMERS_PER_DISTRICT; first += ordersPerBatch) {
+                            write(writers, dataGenerator.generateOrders(w_id, d_id, first, Math.min(first + ordersPerBatch - 1, DataGenerator.CUSTOMERS_PER_DISTRICT), customerIds));
+                        }
+                    }
+                    LOGGER.info("Warehouse {} generated, {}/{} warehouses.", w_id, generatedWarehouses.incrementAndGet(), configuration.getWarehouses());
+                }
+            } finally {
+                for (TableFileWriter each : writers.values()) {
+                    each.close();
+                }
+            }
+        }
+
+        private void write(Map<TPCCTable, TableFileWriter> writers, Map<TPCCTable, Tuple> batches) throws IOException {
+            for (Map.Entry<TPCCTable, Tuple> entry : batches.entrySet()) {
+                writers.get(entry.getKey()).write(entry.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package icu.wwj.benchmark.tpcc;
+
+import icu.wwj.benchmark.tpcc.config.BenchmarkConfiguration;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.PreparedQuery;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.Tuple;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Loads the units of work handed out by {@link DataLoader} with its own connection.
+ * Rows are generated on worker threads, so generation scales with the number of load workers instead of the event loop.
+ */
+@Slf4j
+public class LoadWorker extends AbstractVerticle {
+
+    private final BenchmarkConfiguration configuration;
+
+    private final int id;
+
+    private final Pool pool;
+
+    private final DataLoader dataLoader;
+
+    private final DataGenerator dataGenerator;
+
+    private final Promise<Void> finishPromise;
+
+    private final Map<TPCCTable, PreparedQuery<RowSet<Row>>> insertStatements = new EnumMap<>(TPCCTable.class);
+
+    private SqlConnection connection;
+
+    public LoadWorker(BenchmarkConfiguration configuration, int id, Pool pool, DataLoader dataLoader, Promise<Void> finishPromise) {
+        this.configuration = configuration;
+        this.id = id;
+        this.pool = pool;
+        this.dataLoader = dataLoader;
+        this.finishPromise = finishPromise;
+        dataGenerator = new DataGenerator(dataLoader.getRandom().newRandom());
+    }
+
+    @Override
+    public void start(Promise<Void> startPromise) {
+        pool.getConnection()
+                // Losing the most recent rows on a crash is acceptable for a load, the whole load would be repeated anyway.
+                .compose(sqlConnection -> sqlConnection.query("SET synchronous_commit TO OFF").execute().map(sqlConnection))
+                .onSuccess(sqlConnection -> {
+                    connection = sqlConnection;
+                    for (TPCCTable each : TPCCTable.values()) {
+                        insertStatements.put(each, connection.preparedQuery(each.getInsertSQL()));
+                    }
+                    startPromise.complete();
+                    loadNextUnit();
+                }).onFailure(startPromise::fail);
+    }
+
+    private void loadNextUnit() {
+        int unit = dataLoader.nextUnit();
+        Future<Void> future;
+        if (unit < dataLoader.getItemChunks()) {
+            future = loadItems(unit);
+        } else if (unit - dataLoader.getItemChunks() < configuration.getWarehouses()) {
+            int warehouseId = unit - dataLoader.getItemChunks() + 1;
+            future = loadWarehouse(warehouseId).onSuccess(__ -> dataLoader.onWarehouseLoaded(warehouseId));
+        } else {
+            log.debug("LoadWorker-{} finished.", id);
+            connection.close().onComplete(__ -> finishPromise.tryComplete());
+            return;
+        }
+        future.onSuccess(__ -> loadNextUnit()).onFailure(cause -> connection.close().onComplete(__ -> finishPromise.tryFail(cause)));
+    }
+
+    private Future<Void> loadItems(int chunk) {
+        int batchRows = configuration.getLoadBatchRows();
+        int firstItemId = chunk * batchRows + 1;
+        int lastItemId = Math.min(firstItemId + batchRows - 1, DataGenerator.ITEMS);
+        return insert(() -> Map.of(TPCCTable.ITEM, dataGenerator.generateItems(firstItemId, lastItemId)));
+    }
+
+    private Future<Void> loadWarehouse(int w_id) {
+        int batchRows = configuration.getLoadBatchRows();
+        Future<Void> result = insert(() -> Map.of(TPCCTable.WAREHOUSE, dataGenerator.generateWarehouse(w_id)))
+                .compose(__ -> forEachChunk(1, DataGenerator.ITEMS, batchRows,
+                        (first, last) -> insert(() -> Map.of(TPCCTable.STOCK, dataGenerator.generateStock(w_id, first, last)))))
+                .compose(__ -> insert(() -> Map.of(TPCCTable.DISTRICT, dataGenerator.generateDistricts(w_id))));
+        for (int d = 1; d <= DataGenerator.DISTRICTS_PER_WAREHOUSE; d++) {
+            int d_id = d;
+            result = result.compose(__ -> forEachChunk(1, DataGenerator.CUSTOMERS_PER_DISTRICT, batchRows,
+                            (first, last) -> insert(() -> dataGenerator.generateCustomers(w_id, d_id, first, last))))
+                    .compose(__ -> loadOrders(w_id, d_id, batchRows));
+        }
+        return result;
+    }
+
+    private Future<Void> loadOrders(int w_id, int d_id, int batchRows) {
+        int[] customerIds = dataGenerator.permuteCustomerIds();
+        // An order has 10 order lines on average.
+        int ordersPerBatch = Math.max(1, batchRows / 10);
+        return forEachChunk(1, DataGenerator.CUSTOMERS_PER_DISTRICT, ordersPerBatch,
+                (first, last) -> insert(() -> dataGenerator.generateOrders(w_id, d_id, first, last, customerIds)));
+    }
+
+    private static Future<Void> forEachChunk(int first, int last, int chunkSize, BiFunction<Integer, Integer, Future<Void>> task) {
+        Future<Void> result = Future.succeededFuture();
+        for (int start = first; start <= last; start += chunkSize) {
+            int chunkFirst = start;
+            int chunkLast = Math.min(start + chunkSize - 1, last);
+            result = result.compose(__ -> task.apply(chunkFirst, chunkLast));
+        }
+        return result;
+    }
+
+    /**
+     * Generate rows on a worker thread, then insert them. Statements of all tables are pipelined on the connection.
+     */
+    private Future<Void> insert(Supplier<Map<TPCCTable, Tuple>> generator) {
+        return getVertx().<Map<TPCCTable, Tuple>>executeBlocking(promise -> promise.complete(generator.get()), false).compose(batches -> {
+            List<Future> futures = new ArrayList<>(batches.size());
+            batches.forEach((table, batch) -> futures.add(insertStatements.get(table).execute(batch)));
+            return CompositeFuture.all(futures).mapEmpty();
+        });
+    }
+}
@@ -0,0 +1,167 @@
+package icu.wwj.benchmark.tpcc;
+
+import icu.wwj.benchmark.tpcc.config.BenchmarkConfiguration;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.sqlclient.Pool;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves live metrics of the run in the Prometheus text format on {@code /metrics}.
+ *
+ * <p>Counters and latencies cover the whole session, so dashboards derive rates and windowed mean latencies with {@code rate()}.
+ * Scrapes drain the latency recorders without taking results away from the interval reports.</p>
+ */
+public final class MetricsServer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsServer.class);
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final Vertx vertx;
+
+    private final BenchmarkConfiguration configuration;
+
+    private final Pool pool;
+
+    private final ResultReporter resultReporter;
+
+    private final ResultFileWriter resultFileWriter;
+
+    private final SessionPool sessionPool;
+
+    private final DeliveryQueue deliveryQueue;
+
+    private final OpenLoopDispatcher openLoopDispatcher;
+
+    private final ConnectionPoolMetrics poolMetrics;
+
+    private HttpServer server;
+
+    /**
+     * @param sessionPool shared sessions or null
+     * @param deliveryQueue queue of deferred deliveries or null
+     * @param openLoopDispatcher dispatcher of the open loop mode or null
+     */
+    public MetricsServer(Vertx vertx, BenchmarkConfiguration configuration, Pool pool, ResultReporter resultReporter, ResultFileWriter resultFileWriter,
+                         SessionPool sessionPool, DeliveryQueue deliveryQueue, OpenLoopDispatcher openLoopDispatcher) {
+        this.vertx = vertx;
+        this.configuration = configuration;
+        this.pool = pool;
+        this.resultReporter = resultReporter;
+        this.resultFileWriter = resultFileWriter;
+        this.sessionPool = sessionPool;
+        this.deliveryQueue = deliveryQueue;
+        this.openLoopDispatcher = openLoopDispatcher;
+        poolMetrics = ConnectionPoolMetrics.of(vertx);
+    }
+
+    public Future<Void> start() {
+        return vertx.createHttpServer().requestHandler(this::handle).listen(configuration.getMetricsPort(), configuration.getMetricsHost())
+                .onSuccess(listening -> {
+                    server = listening;
+                    LOGGER.info("Serving metrics on http://{}:{}/metrics", configuration.getMetricsHost(), listening.actualPort());
+                }).mapEmpty();
+    }
+
+    public Future<Void> close() {
+        return null == server ? Future.succeededFuture() : server.close();
+    }
+
+    private void handle(HttpServerRequest request) {
+        if (!"/metrics".equals(request.path())) {
+            request.response().setStatusCode(404).end();
+            return;
+        }
+        request.response().putHeader("Content-Type", "text/plain; version=0.0.4; charset=utf-8").end(format());
+    }
+
+    private String format() {
+        StringBuilder result = new StringBuilder(8192);
+        Histogram[] histograms = resultReporter.snapshotTotalHistograms();
+        header(result, "tpcc_transactions_total", "counter", "Transactions completed, by type.");
+        for (TPCCTransaction each : TPCCTransaction.values()) {
+            sample(result, "tpcc_transactions_total", each, null, histograms[each.ordinal()].getTotalCount());
+        }
+        header(result, "tpcc_rollbacks_total", "counter", "NewOrder transactions rolled back for an unused item number.");
+        sample(result, "tpcc_rollbacks_total", TPCCTransaction.NEW_ORDER, null, resultReporter.sumRollbackCount());
+        header(result, "tpcc_errors_total", "counter", "Transactions failed after all retries, by type.");
+        retryCounter(result, "tpcc_errors_total", TransactionCounters.FAILURES, 1);
+        header(result, "tpcc_retries_total", "counter", "Attempts retried after a retryable SQLSTATE, by type.");
+        retryCounter(result, "tpcc_retries_total", TransactionCounters.RETRIES, 1);
+        header(result, "tpcc_retry_wasted_seconds_total", "counter", "Time spent in failed attempts and backoffs, by type.");
+        retryCounter(result, "tpcc_retry_wasted_seconds_total", TransactionCounters.WASTED_NANOS, 1_000_000_000.0);
+        header(result, "tpcc_latency_seconds", "summary", "Response time since the start of the session, by type.");
+        for (TPCCTransaction each : TPCCTransaction.values()) {
+            Histogram histogram = histograms[each.ordinal()];
+            for (double quantile : QUANTILES) {
+                sample(result, "tpcc_latency_seconds", each, "quantile=\"" + quantile + "\"", histogram.getValueAtPercentile(quantile * 100) / 1_000_000.0);
+            }
+            sample(result, "tpcc_latency_seconds_sum", each, null, histogram.getMean() * histogram.getTotalCount() / 1_000_000.0);
+            sample(result, "tpcc_latency_seconds_count", each, null, histogram.getTotalCount());
+        }
+        gauge(result, "tpcc_pool_opened_connections", "Connections currently opened by the pool, busy or not.", pool.size());
+        if (null != poolMetrics) {
+            gauge(result, "tpcc_pool_busy_connections", "Connections of the pool in a transaction.", poolMetrics.getBusyConnections());
+            gauge(result, "tpcc_pool_waiting", "Requests waiting for a connection of the pool.", poolMetrics.getWaiting());
+            header(result, "tpcc_pool_statements_total", "counter", "Statements executed by connections of the pool.");
+            result.append("tpcc_pool_statements_total ").append(poolMetrics.getStatements()).append('\n');
+            header(result, "tpcc_pool_connections_opened_total", "counter", "Database connections opened.");
+            result.append("tpcc_pool_connections_opened_total ").append(poolMetrics.getOpenedConnections()).append('\n');
+        }
+        if (null != sessionPool) {
+            int idle = sessionPool.getIdleSessions();
+            header(result, "tpcc_sessions", "gauge", "Shared sessions, by state.");
+            result.append("tpcc_sessions{state=\"idle\"} ").append(idle).append('\n');
+            result.append("tpcc_sessions{state=\"in_use\"} ").append(configuration.getSessionPoolSize() - idle).append('\n');
+            gauge(result, "tpcc_session_waiters", "Terminals waiting for a shared session.", sessionPool.getWaiters());
+        }
+        if (null != deliveryQueue) {
+            gauge(result, "tpcc_delivery_queue_depth", "Deliveries queued for the delivery workers.", deliveryQueue.size());
+        }
+        if (null != openLoopDispatcher) {
+            gauge(result, "tpcc_open_loop_backlog", "Arrivals waiting for an idle terminal.", openLoopDispatcher.getBacklogSize());
+        }
+        gauge(result, "tpcc_result_buffered", "Results buffered in ring buffers, not yet encoded.", resultFileWriter.getBufferedResults());
+        gauge(result, "tpcc_result_pending_write_bytes", "Encoded results queued for the result file.", resultFileWriter.getPendingWriteBytes());
+        header(result, "tpcc_results_written_total", "counter", "Results written to the result file.");
+        result.append("tpcc_results_written_total ").append(resultFileWriter.getWrittenResults()).append('\n');
+        header(result, "tpcc_result_producer_stalls_total", "counter", "Times a producer waited for free space in its result ring buffer.");
+        result.append("tpcc_result_producer_stalls_total ").append(resultFileWriter.getProducerStalls()).append('\n');
+        return result.toString();
+    }
+
+    private void retryCounter(StringBuilder result, String name, int counter, double divisor) {
+        for (TPCCTransaction each : TPCCTransaction.values()) {
+            sample(result, name, each, null, resultReporter.sumRetryCounter(each, counter) / divisor);
+        }
+    }
+
+    private static void header(StringBuilder result, String name, String type, String help) {
+        result.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        result.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void gauge(StringBuilder result, String name, String help, long value) {
+        header(result, name, "gauge", help);
+        result.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder result, String name, TPCCTransaction transactionType, String label, double value) {
+        result.append(name).append("{type=\"").append(transactionType).append('"');
+        if (null != label) {
+            result.append(',').append(label);
+        }
+        result.append("} ");
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            result.append((long) value);
+        } else {
+            result.append(value);
+        }
+        result.append('\n');
+    }
+}
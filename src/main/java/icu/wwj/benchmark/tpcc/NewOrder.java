@@ -36,4 +36,20 @@ class NewOrder {
         this.d_id = d_id;
         this.c_id = c_id;
     }
+
+    /**
+     * Terminal input, order lines as {@code ol_i_id@ol_supply_w_id*ol_quantity}.
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("NewOrder{w_id=").append(w_id).append(", d_id=").append(d_id).append(", c_id=").append(c_id)
+                .append(", o_all_local=").append(o_all_local).append(", order_lines=[");
+        for (int i = 0; i < 15 && 0 != ol_i_id[i]; i++) {
+            if (i > 0) {
+                result.append(", ");
+            }
+            result.append(ol_i_id[i]).append('@').append(ol_supply_w_id[i]).append('*').append(ol_quantity[i]);
+        }
+        return result.append("]}").toString();
+    }
 }
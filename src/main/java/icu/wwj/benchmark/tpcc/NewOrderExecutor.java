@@ -2,8 +2,10 @@ package icu.wwj.benchmark.tpcc;
 
 import icu.wwj.benchmark.tpcc.config.BenchmarkConfiguration;
 import io.vertx.core.Future;
+import io.vertx.pgclient.PgException;
 import io.vertx.sqlclient.PreparedQuery;
 import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowIterator;
 import io.vertx.sqlclient.RowSet;
 import io.vertx.sqlclient.SqlConnection;
 import io.vertx.sqlclient.Transaction;
@@ -11,9 +13,16 @@ import io.vertx.sqlclient.Tuple;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-public class NewOrderExecutor implements TransactionExecutor<Boolean> {
+public class NewOrderExecutor implements TransactionExecutor<NewOrder, Boolean> {
+    
+    /**
+     * SQLSTATE raised by bmsql_proc_new_order for an unused item number.
+     */
+    private static final String ITEM_INVALID_SQL_STATE = "TPCC1";
     
     private final BenchmarkConfiguration configuration;
 
@@ -37,57 +46,125 @@ public class NewOrderExecutor implements TransactionExecutor<Boolean> {
 
     public PreparedQuery<RowSet<Row>> stmtNewOrderInsertOrderLine;
 
-    public NewOrderExecutor(BenchmarkConfiguration configuration, jTPCCRandom random, SqlConnection connection) {
+    public PreparedQuery<RowSet<Row>> stmtNewOrderBatchSelectItems;
+
+    public PreparedQuery<RowSet<Row>> stmtNewOrderBatchUpdateDistSelectWhseCust;
+
+    public PreparedQuery<RowSet<Row>> stmtNewOrderBatchSelectStocks;
+
+    public PreparedQuery<RowSet<Row>> stmtNewOrderBatchInsertOrderUpdateStocks;
+
+    public PreparedQuery<RowSet<Row>> stmtNewOrderProcedure;
+
+    public NewOrderExecutor(BenchmarkConfiguration configuration, jTPCCRandom random, SqlConnection connection, StatementTimer statementTimer) {
         this.configuration = configuration;
         this.random = random;
-        stmtNewOrderSelectWhseCust = connection.preparedQuery(
+        stmtNewOrderSelectWhseCust = statementTimer.prepare("stmtNewOrderSelectWhseCust", connection.preparedQuery(
                 "SELECT c_discount, c_last, c_credit, w_tax " +
                         "FROM bmsql_customer " +
                         "JOIN bmsql_warehouse ON (w_id = c_w_id) " +
-                        "WHERE c_w_id = $1 AND c_d_id = $2 AND c_id = $3");
-        stmtNewOrderSelectDist = connection.preparedQuery(
+                        "WHERE c_w_id = $1 AND c_d_id = $2 AND c_id = $3"));
+        stmtNewOrderSelectDist = statementTimer.prepare("stmtNewOrderSelectDist", connection.preparedQuery(
                 "SELECT d_tax, d_next_o_id " +
                         "FROM bmsql_district " +
                         "WHERE d_w_id = $1 AND d_id = $2 " +
-                        "FOR UPDATE");
-        stmtNewOrderUpdateDist = connection.preparedQuery(
+                        "FOR UPDATE"));
+        stmtNewOrderUpdateDist = statementTimer.prepare("stmtNewOrderUpdateDist", connection.preparedQuery(
                 "UPDATE bmsql_district " +
                         "SET d_next_o_id = d_next_o_id + 1 " +
-                        "WHERE d_w_id = $1 AND d_id = $2");
-        stmtNewOrderInsertOrder = connection.preparedQuery(
+                        "WHERE d_w_id = $1 AND d_id = $2"));
+        stmtNewOrderInsertOrder = statementTimer.prepare("stmtNewOrderInsertOrder", connection.preparedQuery(
                 "INSERT INTO bmsql_oorder (" +
                         "    o_id, o_d_id, o_w_id, o_c_id, o_entry_d, " +
                         "    o_ol_cnt, o_all_local) " +
-                        "VALUES ($1, $2, $3, $4, $5, $6, $7)");
-        stmtNewOrderInsertNewOrder = connection.preparedQuery(
+                        "VALUES ($1, $2, $3, $4, $5, $6, $7)"));
+        stmtNewOrderInsertNewOrder = statementTimer.prepare("stmtNewOrderInsertNewOrder", connection.preparedQuery(
                 "INSERT INTO bmsql_new_order (" +
                         "no_o_id, no_d_id, no_w_id) " +
-                        "VALUES ($1, $2, $3)");
-        stmtNewOrderSelectStock = connection.preparedQuery(
+                        "VALUES ($1, $2, $3)"));
+        stmtNewOrderSelectStock = statementTimer.prepare("stmtNewOrderSelectStock", connection.preparedQuery(
                 "SELECT s_quantity, s_data, " +
                         "   s_dist_01, s_dist_02, s_dist_03, s_dist_04, " +
                         "   s_dist_05, s_dist_06, s_dist_07, s_dist_08, " +
                         "   s_dist_09, s_dist_10 " +
                         "FROM bmsql_stock " +
                         "WHERE s_w_id = $1 AND s_i_id = $2 " +
-                        "FOR UPDATE");
-        stmtNewOrderSelectItem = connection.preparedQuery(
-                "SELECT i_price, i_name, i_data FROM bmsql_item WHERE i_id = $1");
-        stmtNewOrderUpdateStock = connection.preparedQuery(
+                        "FOR UPDATE"));
+        stmtNewOrderSelectItem = statementTimer.prepare("stmtNewOrderSelectItem", connection.preparedQuery(
+                "SELECT i_price, i_name, i_data FROM bmsql_item WHERE i_id = $1"));
+        stmtNewOrderUpdateStock = statementTimer.prepare("stmtNewOrderUpdateStock", connection.preparedQuery(
                 "UPDATE bmsql_stock " +
                         "SET s_quantity = $1, s_ytd = s_ytd + $2, " +
                         "    s_order_cnt = s_order_cnt + 1, " +
                         "    s_remote_cnt = s_remote_cnt + $3 " +
-                        "WHERE s_w_id = $4 AND s_i_id = $5");
-        stmtNewOrderInsertOrderLine = connection.preparedQuery(
+                        "WHERE s_w_id = $4 AND s_i_id = $5"));
+        stmtNewOrderInsertOrderLine = statementTimer.prepare("stmtNewOrderInsertOrderLine", connection.preparedQuery(
                 "INSERT INTO bmsql_order_line (" +
                         "    ol_o_id, ol_d_id, ol_w_id, ol_number, " +
                         "    ol_i_id, ol_supply_w_id, ol_quantity, " +
                         "    ol_amount, ol_dist_info) " +
-                        "VALUES ($1, $2, $3, $4, $5, $6, $7, $8, $9)");
+                        "VALUES ($1, $2, $3, $4, $5, $6, $7, $8, $9)"));
+        if (configuration.isStoredProcedures()) {
+            stmtNewOrderProcedure = statementTimer.prepare("stmtNewOrderProcedure", connection.preparedQuery("SELECT bmsql_proc_new_order($1, $2, $3, $4, $5, $6, $7, $8) AS total_amount"));
+        } else if (BenchmarkConfiguration.NewOrderProfile.BATCH == configuration.getNewOrderProfile()) {
+            prepareBatchStatements(connection, statementTimer);
+        }
     }
 
-    private NewOrder generateNewOrder(int warehouse) {
+    private void prepareBatchStatements(SqlConnection connection, StatementTimer statementTimer) {
+        stmtNewOrderBatchSelectItems = statementTimer.prepare("stmtNewOrderBatchSelectItems", connection.preparedQuery(
+                "SELECT i_id, i_price, i_name, i_data FROM bmsql_item WHERE i_id = ANY($1)"));
+        stmtNewOrderBatchUpdateDistSelectWhseCust = statementTimer.prepare("stmtNewOrderBatchUpdateDistSelectWhseCust", connection.preparedQuery(
+                "WITH d AS (" +
+                        "    UPDATE bmsql_district " +
+                        "    SET d_next_o_id = d_next_o_id + 1 " +
+                        "    WHERE d_w_id = $1 AND d_id = $2 " +
+                        "    RETURNING d_tax, d_next_o_id - 1 AS o_id) " +
+                        "SELECT d_tax, o_id, c_discount, c_last, c_credit, w_tax " +
+                        "FROM d, bmsql_customer " +
+                        "JOIN bmsql_warehouse ON (w_id = c_w_id) " +
+                        "WHERE c_w_id = $1 AND c_d_id = $2 AND c_id = $3"));
+        stmtNewOrderBatchSelectStocks = statementTimer.prepare("stmtNewOrderBatchSelectStocks", connection.preparedQuery(
+                "SELECT s_w_id, s_i_id, s_quantity, s_data, " +
+                        "   CASE $3::int4 WHEN 1 THEN s_dist_01 WHEN 2 THEN s_dist_02 WHEN 3 THEN s_dist_03 " +
+                        "   WHEN 4 THEN s_dist_04 WHEN 5 THEN s_dist_05 WHEN 6 THEN s_dist_06 WHEN 7 THEN s_dist_07 " +
+                        "   WHEN 8 THEN s_dist_08 WHEN 9 THEN s_dist_09 ELSE s_dist_10 END AS s_dist_info " +
+                        "FROM bmsql_stock " +
+                        "WHERE (s_w_id, s_i_id) IN (SELECT * FROM unnest($1::int4[], $2::int4[])) " +
+                        "ORDER BY s_w_id, s_i_id " +
+                        "FOR UPDATE"));
+        stmtNewOrderBatchInsertOrderUpdateStocks = statementTimer.prepare("stmtNewOrderBatchInsertOrderUpdateStocks", connection.preparedQuery(
+                "WITH o AS (" +
+                        "    INSERT INTO bmsql_oorder (" +
+                        "        o_id, o_d_id, o_w_id, o_c_id, o_entry_d, " +
+                        "        o_ol_cnt, o_all_local) " +
+                        "    VALUES ($1, $2, $3, $4, $5, $6, $7)), " +
+                        "no AS (" +
+                        "    INSERT INTO bmsql_new_order (" +
+                        "        no_o_id, no_d_id, no_w_id) " +
+                        "    VALUES ($1, $2, $3)), " +
+                        "s AS (" +
+                        "    UPDATE bmsql_stock " +
+                        "    SET s_quantity = u.quantity, s_ytd = s_ytd + u.ytd, " +
+                        "        s_order_cnt = s_order_cnt + u.order_cnt, " +
+                        "        s_remote_cnt = s_remote_cnt + u.remote_cnt " +
+                        "    FROM unnest($8::int4[], $9::int4[], $10::int4[], $11::int4[], $12::int4[], $13::int4[]) " +
+                        "        AS u (w_id, i_id, quantity, ytd, order_cnt, remote_cnt) " +
+                        "    WHERE s_w_id = u.w_id AND s_i_id = u.i_id) " +
+                        "INSERT INTO bmsql_order_line (" +
+                        "    ol_o_id, ol_d_id, ol_w_id, ol_number, " +
+                        "    ol_i_id, ol_supply_w_id, ol_quantity, " +
+                        "    ol_amount, ol_dist_info) " +
+                        "SELECT $1::int4, $2::int4, $3::int4, l.ol_number, " +
+                        "    l.ol_i_id, l.ol_supply_w_id, l.ol_quantity, " +
+                        "    l.ol_amount, l.ol_dist_info " +
+                        "FROM unnest($14::int4[], $15::int4[], $16::int4[], $17::int4[], $18::float8[], $19::text[]) " +
+                        "    AS l (ol_number, ol_i_id, ol_supply_w_id, ol_quantity, ol_amount, ol_dist_info)"));
+    }
+
+    @Override
+    public NewOrder generate(int warehouse, int districtId) {
+        // 2.4.1.2
         NewOrder newOrder = new NewOrder(warehouse, random.nextInt(1, 10), random.getCustomerID());
         int i = 0;
         // 2.4.1.3
@@ -119,10 +196,18 @@ public class NewOrderExecutor implements TransactionExecutor<Boolean> {
     }
 
     @Override
-    public Future<Boolean> execute(Transaction transaction, int warehouseId) {
-        NewOrder generated = generateNewOrder(warehouseId);
+    public Future<Boolean> execute(Transaction transaction, NewOrder generated) {
         // The o_entry_d is now.
         generated.o_entry_d = LocalDateTime.now();
+        generated.total_amount = 0.0;
+        int[] ol_seq = sortOrderLines(generated);
+        if (null != stmtNewOrderProcedure) {
+            return executeProcedure(transaction, generated, ol_seq);
+        }
+        return null == stmtNewOrderBatchSelectItems ? executeStandard(transaction, generated, ol_seq) : executeBatch(transaction, generated, ol_seq);
+    }
+
+    int[] sortOrderLines(NewOrder generated) {
         int ol_cnt;
         final int[] ol_seq = new int[15];
         /*
@@ -155,6 +240,10 @@ public class NewOrderExecutor implements TransactionExecutor<Boolean> {
             }
         }
         generated.o_ol_cnt = ol_cnt;
+        return ol_seq;
+    }
+
+    private Future<Boolean> executeStandard(Transaction transaction, NewOrder generated, int[] ol_seq) {
         Future<NewOrder> future = Future.succeededFuture(generated);
         return future.compose(newOrder -> stmtNewOrderSelectDist.execute(Tuple.of(newOrder.w_id, newOrder.d_id))
                 // Retrieve the required data from DISTRICT
@@ -197,14 +286,164 @@ public class NewOrderExecutor implements TransactionExecutor<Boolean> {
                 orderLineFuture = orderLineFuture.compose(__ -> processItem(newOrder, ol_number, i_id, seq, orderLineInserts, stockUpdates));
             }
             return orderLineFuture
-                    .eventually(__ -> stockUpdates.isEmpty() ? Future.succeededFuture() : stmtNewOrderUpdateStock.executeBatch(stockUpdates))
-                    .eventually(__ -> orderLineInserts.isEmpty() ? Future.succeededFuture() : stmtNewOrderInsertOrderLine.executeBatch(orderLineInserts))
+                    // Failures of the batches must not be swallowed, otherwise the commit silently turns into a rollback.
+                    .compose(__ -> stockUpdates.isEmpty() ? Future.succeededFuture() : stmtNewOrderUpdateStock.executeBatch(stockUpdates))
+                    .compose(__ -> orderLineInserts.isEmpty() ? Future.succeededFuture() : stmtNewOrderInsertOrderLine.executeBatch(orderLineInserts))
                     .compose(__ -> transaction.commit().map(false),
                             cause -> transaction.rollback()
                                     .compose(unused -> ItemInvalidException.INSTANCE == cause ? Future.succeededFuture(true) : Future.failedFuture(cause)));
         });
     }
 
+    /**
+     * Execute the NewOrder by bmsql_proc_new_order. An unused item number is raised as {@link #ITEM_INVALID_SQL_STATE}.
+     */
+    private Future<Boolean> executeProcedure(Transaction transaction, NewOrder newOrder, int[] ol_seq) {
+        Integer[] supplyWarehouseIds = new Integer[newOrder.o_ol_cnt];
+        Integer[] itemIds = new Integer[newOrder.o_ol_cnt];
+        Integer[] quantities = new Integer[newOrder.o_ol_cnt];
+        for (int i = 0; i < newOrder.o_ol_cnt; i++) {
+            supplyWarehouseIds[i] = newOrder.ol_supply_w_id[ol_seq[i]];
+            itemIds[i] = newOrder.ol_i_id[ol_seq[i]];
+            quantities[i] = newOrder.ol_quantity[ol_seq[i]];
+        }
+        Tuple params = Tuple.tuple().addValue(newOrder.w_id).addValue(newOrder.d_id).addValue(newOrder.c_id).addValue(newOrder.o_all_local)
+                .addValue(newOrder.o_entry_d).addValue(supplyWarehouseIds).addValue(itemIds).addValue(quantities);
+        return stmtNewOrderProcedure.execute(params)
+                .compose(rows -> {
+                    newOrder.total_amount = rows.iterator().next().getDouble("total_amount");
+                    return transaction.commit().map(false);
+                }, cause -> transaction.rollback()
+                        .compose(unused -> cause instanceof PgException && ITEM_INVALID_SQL_STATE.equals(((PgException) cause).getCode()) ? Future.succeededFuture(true) : Future.failedFuture(cause)));
+    }
+
+    /**
+     * Execute the NewOrder with a fixed number of round trips regardless of the number of order lines.
+     * Items are looked up before the DISTRICT row is locked, and all STOCK rows are locked by one statement in the order of ol_supply_w_id, ol_i_id.
+     */
+    private Future<Boolean> executeBatch(Transaction transaction, NewOrder newOrder, int[] ol_seq) {
+        Integer[] itemIds = new Integer[newOrder.o_ol_cnt];
+        for (int i = 0; i < newOrder.o_ol_cnt; i++) {
+            itemIds[i] = newOrder.ol_i_id[i];
+        }
+        return stmtNewOrderBatchSelectItems.execute(Tuple.of(itemIds))
+                // Retrieve all ITEMs at once
+                .compose(itemRows -> {
+                    Map<Integer, Row> items = new HashMap<>(itemRows.size() * 2);
+                    for (Row each : itemRows) {
+                        items.put(each.getInteger("i_id"), each);
+                    }
+                    for (int i = 0; i < newOrder.o_ol_cnt; i++) {
+                        int i_id = newOrder.ol_i_id[i];
+                        Row itemRow = items.get(i_id);
+                        if (null == itemRow) {
+                            if (i_id < 1 || i_id > 100000) {
+                                return Future.failedFuture(ItemInvalidException.INSTANCE);
+                            }
+                            return Future.failedFuture(new IllegalStateException("ITEM with I_ID=%d not found".formatted(i_id)));
+                        }
+                        newOrder.i_name[i] = itemRow.getString("i_name");
+                        newOrder.i_price[i] = itemRow.getDouble("i_price");
+                        newOrder.brand_generic[i] = itemRow.getString("i_data");
+                    }
+                    return stmtNewOrderBatchUpdateDistSelectWhseCust.execute(Tuple.of(newOrder.w_id, newOrder.d_id, newOrder.c_id));
+                })
+                // Update the DISTRICT bumping the D_NEXT_O_ID and retrieve the required data from DISTRICT, CUSTOMER and WAREHOUSE
+                .compose(rows -> {
+                    if (0 == rows.size()) {
+                        return Future.failedFuture(new IllegalStateException("District, Warehouse or Customer for W_ID=%d D_ID=%d C_ID=%d not found".formatted(newOrder.w_id, newOrder.d_id, newOrder.c_id)));
+                    }
+                    Row row = rows.iterator().next();
+                    newOrder.d_tax = row.getDouble("d_tax");
+                    newOrder.o_id = row.getInteger("o_id");
+                    newOrder.w_tax = row.getDouble("w_tax");
+                    newOrder.c_last = row.getString("c_last");
+                    newOrder.c_credit = row.getString("c_credit");
+                    newOrder.c_discount = row.getDouble("c_discount");
+                    Integer[] supplyWarehouseIds = new Integer[newOrder.o_ol_cnt];
+                    Integer[] stockItemIds = new Integer[newOrder.o_ol_cnt];
+                    for (int i = 0; i < newOrder.o_ol_cnt; i++) {
+                        supplyWarehouseIds[i] = newOrder.ol_supply_w_id[ol_seq[i]];
+                        stockItemIds[i] = newOrder.ol_i_id[ol_seq[i]];
+                    }
+                    return stmtNewOrderBatchSelectStocks.execute(Tuple.of(supplyWarehouseIds, stockItemIds, newOrder.d_id));
+                })
+                // Lock all STOCK rows, then insert the ORDER, NEW_ORDER and ORDER_LINE rows and update the STOCK rows at once
+                .compose(stockRows -> stmtNewOrderBatchInsertOrderUpdateStocks.execute(processStocks(newOrder, ol_seq, stockRows)))
+                .compose(__ -> transaction.commit().map(false),
+                        cause -> transaction.rollback()
+                                .compose(unused -> ItemInvalidException.INSTANCE == cause ? Future.succeededFuture(true) : Future.failedFuture(cause)));
+    }
+
+    /**
+     * Stock rows and order lines are both ordered by ol_supply_w_id, ol_i_id, so an item ordered more than once occupies adjacent lines.
+     * Such lines are applied to the stock one after another and merged into a single stock update.
+     */
+    private Tuple processStocks(NewOrder newOrder, int[] ol_seq, RowSet<Row> stockRows) {
+        int ol_cnt = newOrder.o_ol_cnt;
+        Integer[] olNumbers = new Integer[ol_cnt];
+        Integer[] olItemIds = new Integer[ol_cnt];
+        Integer[] olSupplyWarehouseIds = new Integer[ol_cnt];
+        Integer[] olQuantities = new Integer[ol_cnt];
+        Double[] olAmounts = new Double[ol_cnt];
+        String[] olDistInfos = new String[ol_cnt];
+        List<Integer> stockWarehouseIds = new ArrayList<>(ol_cnt);
+        List<Integer> stockItemIds = new ArrayList<>(ol_cnt);
+        List<Integer> stockQuantities = new ArrayList<>(ol_cnt);
+        List<Integer> stockYtds = new ArrayList<>(ol_cnt);
+        List<Integer> stockOrderCounts = new ArrayList<>(ol_cnt);
+        List<Integer> stockRemoteCounts = new ArrayList<>(ol_cnt);
+        RowIterator<Row> stockIterator = stockRows.iterator();
+        Row stockRow = null;
+        int stock = -1;
+        for (int i = 0; i < ol_cnt; i++) {
+            int seq = ol_seq[i];
+            int supplyWarehouseId = newOrder.ol_supply_w_id[seq];
+            int itemId = newOrder.ol_i_id[seq];
+            if (stock < 0 || stockWarehouseIds.get(stock) != supplyWarehouseId || stockItemIds.get(stock) != itemId) {
+                if (!stockIterator.hasNext()) {
+                    throw new IllegalStateException("STOCK with S_W_ID=%d S_I_ID=%d not found".formatted(supplyWarehouseId, itemId));
+                }
+                stockRow = stockIterator.next();
+                if (stockRow.getInteger("s_w_id") != supplyWarehouseId || stockRow.getInteger("s_i_id") != itemId) {
+                    throw new IllegalStateException("STOCK with S_W_ID=%d S_I_ID=%d not found".formatted(supplyWarehouseId, itemId));
+                }
+                stock++;
+                stockWarehouseIds.add(supplyWarehouseId);
+                stockItemIds.add(itemId);
+                stockQuantities.add(stockRow.getInteger("s_quantity"));
+                stockYtds.add(0);
+                stockOrderCounts.add(0);
+                stockRemoteCounts.add(0);
+            }
+            int quantity = newOrder.ol_quantity[seq];
+            int s_quantity = stockQuantities.get(stock);
+            newOrder.s_quantity[seq] = s_quantity;
+            newOrder.ol_amount[seq] = newOrder.i_price[seq] * quantity;
+            // brand_generic holds i_data until the stock row is known
+            newOrder.brand_generic[seq] = newOrder.brand_generic[seq].contains("ORIGINAL") && stockRow.getString("s_data").contains("ORIGINAL") ? "B" : "G";
+            newOrder.total_amount += newOrder.ol_amount[seq] * (1.0 - newOrder.c_discount) * (1.0 + newOrder.w_tax + newOrder.d_tax);
+            stockQuantities.set(stock, s_quantity + (s_quantity >= quantity + 10 ? -quantity : +91));
+            stockYtds.set(stock, stockYtds.get(stock) + quantity);
+            stockOrderCounts.set(stock, stockOrderCounts.get(stock) + 1);
+            stockRemoteCounts.set(stock, stockRemoteCounts.get(stock) + (supplyWarehouseId == newOrder.w_id ? 0 : 1));
+            olNumbers[i] = i + 1;
+            olItemIds[i] = itemId;
+            olSupplyWarehouseIds[i] = supplyWarehouseId;
+            olQuantities[i] = quantity;
+            olAmounts[i] = newOrder.ol_amount[seq];
+            olDistInfos[i] = stockRow.getString("s_dist_info");
+        }
+        return Tuple.tuple()
+                .addValue(newOrder.o_id).addValue(newOrder.d_id).addValue(newOrder.w_id).addValue(newOrder.c_id)
+                .addValue(newOrder.o_entry_d).addValue(newOrder.o_ol_cnt).addValue(newOrder.o_all_local)
+                .addValue(stockWarehouseIds.toArray(new Integer[0])).addValue(stockItemIds.toArray(new Integer[0]))
+                .addValue(stockQuantities.toArray(new Integer[0])).addValue(stockYtds.toArray(new Integer[0]))
+                .addValue(stockOrderCounts.toArray(new Integer[0])).addValue(stockRemoteCounts.toArray(new Integer[0]))
+                .addValue(olNumbers).addValue(olItemIds).addValue(olSupplyWarehouseIds)
+                .addValue(olQuantities).addValue(olAmounts).addValue(olDistInfos);
+    }
+
     private Future<Void> processItem(NewOrder newOrder, int ol_number, int i_id, int seq, List<Tuple> orderLineInserts, List<Tuple> stockUpdates) {
         return stmtNewOrderSelectItem.execute(Tuple.of(i_id)).compose(itemRows -> {
             if (0 == itemRows.size()) {
@@ -0,0 +1,155 @@
+package icu.wwj.benchmark.tpcc;
+
+import icu.wwj.benchmark.tpcc.config.BenchmarkConfiguration;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+
+/**
+ * Generates transactions at a target rate independent of response times and dispatches them to idle terminals.
+ *
+ * <p>Arrivals that find no idle terminal wait in a backlog keeping their intended start time, which terminals use to measure latency.
+ * A stalled database therefore shows up as latency instead of a lower arrival rate, avoiding coordinated omission.
+ * All state is confined to the context of the dispatcher.</p>
+ */
+public final class OpenLoopDispatcher {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(OpenLoopDispatcher.class);
+    
+    private static final long TICK_MILLIS = 1L;
+    
+    private static final TPCCTransaction[] TRANSACTION_TYPES = TPCCTransaction.values();
+    
+    private final Vertx vertx;
+    
+    private final Context context;
+    
+    private final BenchmarkConfiguration.ArrivalDistribution arrivalDistribution;
+    
+    private final double meanIntervalNanos;
+    
+    private final TPCCTransaction[] transactionsMap;
+    
+    private final jTPCCRandom random;
+    
+    private final Queue<Terminal> idleTerminals = new ArrayDeque<>();
+    
+    private long[] backlogIntendedNanoTimes = new long[1024];
+    
+    private byte[] backlogTransactionTypes = new byte[1024];
+    
+    private int backlogHead;
+    
+    /**
+     * Written on the context of the dispatcher only, volatile for the reporter and the metrics server reading it.
+     */
+    private volatile int backlogSize;
+    
+    private volatile int maxBacklogSize;
+    
+    private long dispatchedCount;
+    
+    private long nextArrivalNanoTime;
+    
+    private long timerId = -1;
+    
+    public OpenLoopDispatcher(Vertx vertx, BenchmarkConfiguration configuration, jTPCCRandom random) {
+        this.vertx = vertx;
+        this.random = random;
+        context = vertx.getOrCreateContext();
+        arrivalDistribution = configuration.getArrivalDistribution();
+        meanIntervalNanos = 60_000_000_000.0 / configuration.getTargetTpm();
+        transactionsMap = TransactionMapGenerator.generate(configuration);
+    }
+    
+    public void start(long sessionStartNanoTime) {
+        context.runOnContext(__ -> {
+            nextArrivalNanoTime = sessionStartNanoTime;
+            timerId = vertx.setPeriodic(TICK_MILLIS, unused -> generateArrivals());
+        });
+    }
+    
+    public void stop() {
+        context.runOnContext(__ -> {
+            vertx.cancelTimer(timerId);
+            LOGGER.info("Open loop dispatcher stopped, {} transactions dispatched, {} arrivals were never dispatched, max backlog {}.",
+                    dispatchedCount, backlogSize, maxBacklogSize);
+        });
+    }
+    
+    /**
+     * Hand an idle terminal back to the dispatcher. Called on the context of the terminal.
+     */
+    public void release(Terminal terminal) {
+        context.runOnContext(terminal.getReleaseHandler());
+    }
+    
+    void onTerminalIdle(Terminal terminal) {
+        if (0 == backlogSize) {
+            idleTerminals.add(terminal);
+            return;
+        }
+        dispatch(terminal);
+    }
+    
+    private void generateArrivals() {
+        long now = System.nanoTime();
+        while (nextArrivalNanoTime <= now) {
+            enqueue(nextArrivalNanoTime, transactionsMap[random.nextInt(0, transactionsMap.length - 1)]);
+            nextArrivalNanoTime += (long) (BenchmarkConfiguration.ArrivalDistribution.POISSON == arrivalDistribution
+                    ? -Math.log(1.0 - random.nextDouble()) * meanIntervalNanos : meanIntervalNanos);
+        }
+        maxBacklogSize = Math.max(maxBacklogSize, backlogSize);
+        Terminal terminal;
+        while (backlogSize > 0 && null != (terminal = idleTerminals.poll())) {
+            dispatch(terminal);
+        }
+    }
+    
+    private void enqueue(long intendedNanoTime, TPCCTransaction transactionType) {
+        if (backlogSize == backlogIntendedNanoTimes.length) {
+            growBacklog();
+        }
+        int index = (backlogHead + backlogSize) % backlogIntendedNanoTimes.length;
+        backlogIntendedNanoTimes[index] = intendedNanoTime;
+        backlogTransactionTypes[index] = (byte) transactionType.ordinal();
+        backlogSize++;
+    }
+    
+    private void growBacklog() {
+        int capacity = backlogIntendedNanoTimes.length;
+        long[] intendedNanoTimes = Arrays.copyOf(backlogIntendedNanoTimes, capacity * 2);
+        byte[] transactionTypes = Arrays.copyOf(backlogTransactionTypes, capacity * 2);
+        System.arraycopy(backlogIntendedNanoTimes, 0, intendedNanoTimes, capacity, backlogHead);
+        System.arraycopy(backlogTransactionTypes, 0, transactionTypes, capacity, backlogHead);
+        backlogIntendedNanoTimes = intendedNanoTimes;
+        backlogTransactionTypes = transactionTypes;
+    }
+    
+    private void dispatch(Terminal terminal) {
+        long intendedNanoTime = backlogIntendedNanoTimes[backlogHead];
+        TPCCTransaction transactionType = TRANSACTION_TYPES[backlogTransactionTypes[backlogHead]];
+        backlogHead = (backlogHead + 1) % backlogIntendedNanoTimes.length;
+        backlogSize--;
+        dispatchedCount++;
+        terminal.dispatch(transactionType, intendedNanoTime);
+    }
+    
+    /**
+     * Get the number of arrivals waiting for an idle terminal, as seen by the last tick.
+     *
+     * @return backlog size
+     */
+    public int getBacklogSize() {
+        return backlogSize;
+    }
+    
+    public int getMaxBacklogSize() {
+        return maxBacklogSize;
+    }
+}
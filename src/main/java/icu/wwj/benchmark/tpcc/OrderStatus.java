@@ -11,6 +11,7 @@ class OrderStatus {
     int c_id;
     
     String c_last;
+    boolean byLastName;
     
     String c_first;
     
@@ -34,4 +35,9 @@ class OrderStatus {
         this.w_id = w_id;
         this.d_id = d_id;
     }
+
+    @Override
+    public String toString() {
+        return "OrderStatus{w_id=%d, d_id=%d, %s, o_id=%d}".formatted(w_id, d_id, byLastName ? "c_last=" + c_last : "c_id=" + c_id, o_id);
+    }
 }
@@ -12,7 +12,7 @@ import io.vertx.sqlclient.Tuple;
 import java.util.ArrayList;
 import java.util.List;
 
-public class OrderStatusExecutor implements TransactionExecutor<Void> {
+public class OrderStatusExecutor implements TransactionExecutor<OrderStatus, Void> {
     
     private final BenchmarkConfiguration configuration;
 
@@ -26,19 +26,21 @@ public class OrderStatusExecutor implements TransactionExecutor<Void> {
 
     private final PreparedQuery<RowSet<Row>> stmtOrderStatusSelectOrderLine;
 
-    public OrderStatusExecutor(BenchmarkConfiguration configuration, jTPCCRandom random, SqlConnection connection) {
+    private final PreparedQuery<RowSet<Row>> stmtOrderStatusProcedure;
+
+    public OrderStatusExecutor(BenchmarkConfiguration configuration, jTPCCRandom random, SqlConnection connection, StatementTimer statementTimer) {
         this.configuration = configuration;
         this.random = random;
-        stmtOrderStatusSelectCustomerListByLast = connection.preparedQuery(
+        stmtOrderStatusSelectCustomerListByLast = statementTimer.prepare("stmtOrderStatusSelectCustomerListByLast", connection.preparedQuery(
                 "SELECT c_id " +
                         "    FROM bmsql_customer " +
                         "    WHERE c_w_id = $1 AND c_d_id = $2 AND c_last = $3 " +
-                        "    ORDER BY c_first");
-        stmtOrderStatusSelectCustomer = connection.preparedQuery(
+                        "    ORDER BY c_first"));
+        stmtOrderStatusSelectCustomer = statementTimer.prepare("stmtOrderStatusSelectCustomer", connection.preparedQuery(
                 "SELECT c_first, c_middle, c_last, c_balance " +
                         "    FROM bmsql_customer " +
-                        "    WHERE c_w_id = $1 AND c_d_id = $2 AND c_id = $3");
-        stmtOrderStatusSelectLastOrder = connection.preparedQuery(
+                        "    WHERE c_w_id = $1 AND c_d_id = $2 AND c_id = $3"));
+        stmtOrderStatusSelectLastOrder = statementTimer.prepare("stmtOrderStatusSelectLastOrder", connection.preparedQuery(
                 "SELECT o_id, o_entry_d, o_carrier_id " +
                         "    FROM bmsql_oorder " +
                         "    WHERE o_w_id = $1 AND o_d_id = $2 AND o_c_id = $3 " +
@@ -46,18 +48,22 @@ public class OrderStatusExecutor implements TransactionExecutor<Void> {
                         "          SELECT max(o_id) " +
                         "              FROM bmsql_oorder " +
                         "              WHERE o_w_id = $4 AND o_d_id = $5 AND o_c_id = $6" +
-                        "          )");
-        stmtOrderStatusSelectOrderLine = connection.preparedQuery(
+                        "          )"));
+        stmtOrderStatusSelectOrderLine = statementTimer.prepare("stmtOrderStatusSelectOrderLine", connection.preparedQuery(
                 "SELECT ol_i_id, ol_supply_w_id, ol_quantity, " +
                         "       ol_amount, ol_delivery_d " +
                         "    FROM bmsql_order_line " +
                         "    WHERE ol_w_id = $1 AND ol_d_id = $2 AND ol_o_id = $3 " +
-                        "    ORDER BY ol_w_id, ol_d_id, ol_o_id, ol_number");
+                        "    ORDER BY ol_w_id, ol_d_id, ol_o_id, ol_number"));
+        stmtOrderStatusProcedure = configuration.isStoredProcedures() ? statementTimer.prepare("stmtOrderStatusProcedure", connection.preparedQuery("SELECT * FROM bmsql_proc_order_status($1, $2, $3, $4)")) : null;
     }
 
-    private OrderStatus generateOrderStatus(int warehouseId) {
+    @Override
+    public OrderStatus generate(int warehouseId, int districtId) {
+        // 2.6.1.2
         OrderStatus orderStatus = new OrderStatus(warehouseId, random.nextInt(1, 10));
-        if (random.nextInt(1, 100) <= 60) {
+        orderStatus.byLastName = random.nextInt(1, 100) <= 60;
+        if (orderStatus.byLastName) {
             orderStatus.c_id = 0;
             orderStatus.c_last = random.getCLast();
         } else {
@@ -68,10 +74,14 @@ public class OrderStatusExecutor implements TransactionExecutor<Void> {
     }
 
     @Override
-    public Future<Void> execute(Transaction transaction, final int warehouseId) {
-        OrderStatus generated = generateOrderStatus(warehouseId);
+    public Future<Void> execute(Transaction transaction, OrderStatus generated) {
+        if (null != stmtOrderStatusProcedure) {
+            return stmtOrderStatusProcedure.execute(Tuple.of(generated.w_id, generated.d_id, generated.c_id, generated.c_last))
+                    .map(rows -> fillOrderLines(generated, rows))
+                    .eventually(__ -> transaction.rollback());
+        }
         Future<OrderStatus> future = Future.succeededFuture(generated);
-        if (null != generated.c_last) {
+        if (generated.byLastName) {
             future = future.compose(this::selectCustomerListByLast);
         }
         return future.compose(this::selectCustomer)
@@ -129,24 +139,26 @@ public class OrderStatusExecutor implements TransactionExecutor<Void> {
 
     private Future<Void> selectOrderLine(OrderStatus orderStatus) {
         return stmtOrderStatusSelectOrderLine.execute(Tuple.of(orderStatus.w_id, orderStatus.d_id, orderStatus.o_id))
-                .map(rows -> {
-                    int ol_idx = 0;
-                    for (Row row : rows) {
-                        orderStatus.ol_i_id[ol_idx] = row.getInteger("ol_i_id");
-                        orderStatus.ol_supply_w_id[ol_idx] = row.getInteger("ol_supply_w_id");
-                        orderStatus.ol_quantity[ol_idx] = row.getInteger("ol_quantity");
-                        orderStatus.ol_amount[ol_idx] = row.getDouble("ol_amount");
-                        orderStatus.ol_delivery_d[ol_idx] = row.getLocalDateTime("ol_delivery_d");
-                        ol_idx++;
-                    }
-                    for (; ol_idx < 15; ol_idx++) {
-                        orderStatus.ol_i_id[ol_idx] = 0;
-                        orderStatus.ol_supply_w_id[ol_idx] = 0;
-                        orderStatus.ol_quantity[ol_idx] = 0;
-                        orderStatus.ol_amount[ol_idx] = 0.0;
-                        orderStatus.ol_delivery_d[ol_idx] = null;
-                    }
-                    return null;
-                });
+                .map(rows -> fillOrderLines(orderStatus, rows));
+    }
+
+    private static Void fillOrderLines(OrderStatus orderStatus, RowSet<Row> rows) {
+        int ol_idx = 0;
+        for (Row row : rows) {
+            orderStatus.ol_i_id[ol_idx] = row.getInteger("ol_i_id");
+            orderStatus.ol_supply_w_id[ol_idx] = row.getInteger("ol_supply_w_id");
+            orderStatus.ol_quantity[ol_idx] = row.getInteger("ol_quantity");
+            orderStatus.ol_amount[ol_idx] = row.getDouble("ol_amount");
+            orderStatus.ol_delivery_d[ol_idx] = row.getLocalDateTime("ol_delivery_d");
+            ol_idx++;
+        }
+        for (; ol_idx < 15; ol_idx++) {
+            orderStatus.ol_i_id[ol_idx] = 0;
+            orderStatus.ol_supply_w_id[ol_idx] = 0;
+            orderStatus.ol_quantity[ol_idx] = 0;
+            orderStatus.ol_amount[ol_idx] = 0.0;
+            orderStatus.ol_delivery_d[ol_idx] = null;
+        }
+        return null;
     }
 }
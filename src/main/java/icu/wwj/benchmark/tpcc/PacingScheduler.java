@@ -0,0 +1,77 @@
+package icu.wwj.benchmark.tpcc;
+
+import icu.wwj.benchmark.tpcc.config.BenchmarkConfiguration;
+import io.vertx.core.Vertx;
+
+/**
+ * Keying and think times of TPC-C 5.2.5.7, scheduled on one {@link TimerWheel} per event loop.
+ */
+public final class PacingScheduler {
+    
+    private static final long TICK_MILLIS = 10L;
+    
+    private static final int WHEEL_SIZE = 4096;
+    
+    private final Vertx vertx;
+    
+    private final double timeScale;
+    
+    private final ThreadLocal<TimerWheel> timerWheels = ThreadLocal.withInitial(this::newTimerWheel);
+    
+    public PacingScheduler(Vertx vertx, double timeScale) {
+        this.vertx = vertx;
+        this.timeScale = timeScale;
+    }
+    
+    /**
+     * Get the timer wheel of the calling event loop. The wheel must only be used from the thread that obtained it.
+     *
+     * @return timer wheel of current thread
+     */
+    public TimerWheel getTimerWheel() {
+        return timerWheels.get();
+    }
+    
+    private TimerWheel newTimerWheel() {
+        TimerWheel result = new TimerWheel(TICK_MILLIS, WHEEL_SIZE);
+        vertx.setPeriodic(TICK_MILLIS, __ -> result.advance());
+        return result;
+    }
+    
+    /**
+     * Calculate how long a terminal sleeps between two transactions: the think time of the completed transaction,
+     * drawn from a negative exponential distribution truncated at 10 times its mean, plus the keying time of the next transaction.
+     *
+     * @param completed completed transaction, null if the terminal has just started
+     * @param next next transaction
+     * @return delay in nanoseconds
+     */
+    public long nextDelayNanos(TPCCTransaction completed, TPCCTransaction next, jTPCCRandom random) {
+        double result = next.getKeyingTimeMillis();
+        if (null != completed) {
+            double meanThinkTime = completed.getMeanThinkTimeMillis();
+            result += Math.min(-Math.log(1.0 - random.nextDouble()) * meanThinkTime, 10 * meanThinkTime);
+        }
+        return (long) (result * timeScale * 1_000_000L);
+    }
+    
+    /**
+     * Calculate the maximum tpmC reachable with zero response time, given the terminals, mix and pacing of the configuration.
+     *
+     * @return theoretical maximum tpmC
+     */
+    public double theoreticalMaxTpmC(BenchmarkConfiguration configuration) {
+        double totalWeight = configuration.getNewOrderWeight() + configuration.getPaymentWeight() + configuration.getOrderStatusWeight()
+                + configuration.getDeliveryWeight() + configuration.getStockLevelWeight();
+        double meanCycleMillis = (configuration.getNewOrderWeight() * cycleMillis(TPCCTransaction.NEW_ORDER)
+                + configuration.getPaymentWeight() * cycleMillis(TPCCTransaction.PAYMENT)
+                + configuration.getOrderStatusWeight() * cycleMillis(TPCCTransaction.ORDER_STATUS)
+                + configuration.getDeliveryWeight() * cycleMillis(TPCCTransaction.DELIVERY)
+                + configuration.getStockLevelWeight() * cycleMillis(TPCCTransaction.STOCK_LEVEL)) / totalWeight * timeScale;
+        return configuration.getTerminals() * 60000.0 / meanCycleMillis * configuration.getNewOrderWeight() / totalWeight;
+    }
+    
+    private static double cycleMillis(TPCCTransaction transaction) {
+        return transaction.getKeyingTimeMillis() + transaction.getMeanThinkTimeMillis();
+    }
+}
@@ -10,6 +10,7 @@ class Payment {
     int c_d_id;
     int c_w_id;
     String c_last;
+    boolean byLastName;
     double h_amount;
 
     /* terminal output data */
@@ -45,4 +46,9 @@ class Payment {
         this.w_id = w_id;
         this.d_id = d_id;
     }
+
+    @Override
+    public String toString() {
+        return "Payment{w_id=%d, d_id=%d, c_w_id=%d, c_d_id=%d, %s, h_amount=%.2f}".formatted(w_id, d_id, c_w_id, c_d_id, byLastName ? "c_last=" + c_last : "c_id=" + c_id, h_amount);
+    }
 }
@@ -11,7 +11,7 @@ import io.vertx.sqlclient.Tuple;
 
 import java.time.LocalDateTime;
 
-public class PaymentExecutor implements TransactionExecutor<Void> {
+public class PaymentExecutor implements TransactionExecutor<Payment, Void> {
     
     private final BenchmarkConfiguration configuration;
     
@@ -37,67 +37,72 @@ public class PaymentExecutor implements TransactionExecutor<Void> {
 
     public final PreparedQuery<RowSet<Row>> stmtPaymentInsertHistory;
 
-    public PaymentExecutor(BenchmarkConfiguration configuration, jTPCCRandom random, SqlConnection connection) {
+    public final PreparedQuery<RowSet<Row>> stmtPaymentProcedure;
+
+    public PaymentExecutor(BenchmarkConfiguration configuration, jTPCCRandom random, SqlConnection connection, StatementTimer statementTimer) {
         this.configuration = configuration;
         this.random = random;
-        stmtPaymentSelectWarehouse = connection.preparedQuery(
+        stmtPaymentSelectWarehouse = statementTimer.prepare("stmtPaymentSelectWarehouse", connection.preparedQuery(
                 "SELECT w_name, w_street_1, w_street_2, w_city, " +
                         "       w_state, w_zip " +
                         "    FROM bmsql_warehouse " +
-                        "    WHERE w_id = $1 ");
-        stmtPaymentSelectDistrict = connection.preparedQuery(
+                        "    WHERE w_id = $1 "));
+        stmtPaymentSelectDistrict = statementTimer.prepare("stmtPaymentSelectDistrict", connection.preparedQuery(
                 "SELECT d_name, d_street_1, d_street_2, d_city, " +
                         "       d_state, d_zip " +
                         "    FROM bmsql_district " +
-                        "    WHERE d_w_id = $1 AND d_id = $2");
-        stmtPaymentSelectCustomerListByLast = connection.preparedQuery(
+                        "    WHERE d_w_id = $1 AND d_id = $2"));
+        stmtPaymentSelectCustomerListByLast = statementTimer.prepare("stmtPaymentSelectCustomerListByLast", connection.preparedQuery(
                 "SELECT c_id " +
                         "    FROM bmsql_customer " +
                         "    WHERE c_w_id = $1 AND c_d_id = $2 AND c_last = $3 " +
-                        "    ORDER BY c_first");
-        stmtPaymentSelectCustomer = connection.preparedQuery(
+                        "    ORDER BY c_first"));
+        stmtPaymentSelectCustomer = statementTimer.prepare("stmtPaymentSelectCustomer", connection.preparedQuery(
                 "SELECT c_first, c_middle, c_last, c_street_1, c_street_2, " +
                         "       c_city, c_state, c_zip, c_phone, c_since, c_credit, " +
                         "       c_credit_lim, c_discount, c_balance " +
                         "    FROM bmsql_customer " +
                         "    WHERE c_w_id = $1 AND c_d_id = $2 AND c_id = $3 " +
-                        "    FOR UPDATE");
-        stmtPaymentSelectCustomerData = connection.preparedQuery(
+                        "    FOR UPDATE"));
+        stmtPaymentSelectCustomerData = statementTimer.prepare("stmtPaymentSelectCustomerData", connection.preparedQuery(
                 "SELECT c_data " +
                         "    FROM bmsql_customer " +
-                        "    WHERE c_w_id = $1 AND c_d_id = $2 AND c_id = $3");
-        stmtPaymentUpdateWarehouse = connection.preparedQuery(
+                        "    WHERE c_w_id = $1 AND c_d_id = $2 AND c_id = $3"));
+        stmtPaymentUpdateWarehouse = statementTimer.prepare("stmtPaymentUpdateWarehouse", connection.preparedQuery(
                 "UPDATE bmsql_warehouse " +
                         "    SET w_ytd = w_ytd + $1 " +
-                        "    WHERE w_id = $2");
-        stmtPaymentUpdateDistrict = connection.preparedQuery(
+                        "    WHERE w_id = $2"));
+        stmtPaymentUpdateDistrict = statementTimer.prepare("stmtPaymentUpdateDistrict", connection.preparedQuery(
                 "UPDATE bmsql_district " +
                         "    SET d_ytd = d_ytd + $1 " +
-                        "    WHERE d_w_id = $2 AND d_id = $3");
-        stmtPaymentUpdateCustomer = connection.preparedQuery(
+                        "    WHERE d_w_id = $2 AND d_id = $3"));
+        stmtPaymentUpdateCustomer = statementTimer.prepare("stmtPaymentUpdateCustomer", connection.preparedQuery(
                 "UPDATE bmsql_customer " +
                         "    SET c_balance = c_balance - $1, " +
                         "        c_ytd_payment = c_ytd_payment + $2, " +
                         "        c_payment_cnt = c_payment_cnt + 1 " +
-                        "    WHERE c_w_id = $3 AND c_d_id = $4 AND c_id = $5");
-        stmtPaymentUpdateCustomerWithData = connection.preparedQuery(
+                        "    WHERE c_w_id = $3 AND c_d_id = $4 AND c_id = $5"));
+        stmtPaymentUpdateCustomerWithData = statementTimer.prepare("stmtPaymentUpdateCustomerWithData", connection.preparedQuery(
                 "UPDATE bmsql_customer " +
                         "    SET c_balance = c_balance - $1, " +
                         "        c_ytd_payment = c_ytd_payment + $2, " +
                         "        c_payment_cnt = c_payment_cnt + 1, " +
                         "        c_data = $3 " +
-                        "    WHERE c_w_id = $4 AND c_d_id = $5 AND c_id = $6");
-        stmtPaymentInsertHistory = connection.preparedQuery(
+                        "    WHERE c_w_id = $4 AND c_d_id = $5 AND c_id = $6"));
+        stmtPaymentInsertHistory = statementTimer.prepare("stmtPaymentInsertHistory", connection.preparedQuery(
                 "INSERT INTO bmsql_history (" +
                         "    h_c_id, h_c_d_id, h_c_w_id, h_d_id, h_w_id, " +
                         "    h_date, h_amount, h_data) " +
-                        "VALUES ($1, $2, $3, $4, $5, $6, $7, $8)");
+                        "VALUES ($1, $2, $3, $4, $5, $6, $7, $8)"));
+        stmtPaymentProcedure = configuration.isStoredProcedures() ? statementTimer.prepare("stmtPaymentProcedure", connection.preparedQuery("SELECT bmsql_proc_payment($1, $2, $3, $4, $5, $6, $7, $8) AS c_id")) : null;
     }
 
     @Override
-    public Future<Void> execute(Transaction transaction, int warehouseId) {
-        Payment generated = generatePayment(warehouseId);
+    public Future<Void> execute(Transaction transaction, Payment generated) {
         generated.h_date = LocalDateTime.now();
+        if (null != stmtPaymentProcedure) {
+            return executeProcedure(transaction, generated);
+        }
         Future<Payment> future = Future.succeededFuture(generated);
         // Update the DISTRICT.
         return future.compose(payment -> stmtPaymentUpdateDistrict.execute(Tuple.of(payment.h_amount, payment.w_id, payment.d_id)).map(payment)
@@ -133,7 +138,7 @@ public class PaymentExecutor implements TransactionExecutor<Void> {
                     payment.w_zip = row.getString("w_zip");
                     return payment;
                 })
-        ).compose(payment -> null == payment.c_last ? Future.succeededFuture(payment)
+        ).compose(payment -> !payment.byLastName ? Future.succeededFuture(payment)
                 // If C_LAST is given instead of C_ID (60%), determine the C_ID.
                 : stmtPaymentSelectCustomerListByLast.execute(Tuple.of(payment.c_w_id, payment.c_d_id, payment.c_last))
                 .map(rows -> {
@@ -210,7 +215,17 @@ public class PaymentExecutor implements TransactionExecutor<Void> {
         ).compose(__ -> transaction.commit(), cause -> transaction.rollback().compose(__ -> Future.failedFuture(cause)));
     }
 
-    private Payment generatePayment(int warehouseId) {
+    private Future<Void> executeProcedure(Transaction transaction, Payment payment) {
+        return stmtPaymentProcedure.execute(Tuple.tuple().addValue(payment.w_id).addValue(payment.d_id).addValue(payment.c_w_id).addValue(payment.c_d_id)
+                        .addValue(payment.c_id).addValue(payment.c_last).addValue(payment.h_amount).addValue(payment.h_date))
+                .compose(rows -> {
+                    payment.c_id = rows.iterator().next().getInteger("c_id");
+                    return transaction.commit();
+                }, cause -> transaction.rollback().compose(__ -> Future.failedFuture(cause)));
+    }
+
+    @Override
+    public Payment generate(int warehouseId, int districtId) {
         // 2.5.1.1 & 2.5.1.2
         Payment payment = new Payment(warehouseId, random.nextInt(1, 10));
         payment.c_w_id = payment.w_id;
@@ -221,7 +236,8 @@ public class PaymentExecutor implements TransactionExecutor<Void> {
                 payment.c_w_id = random.nextInt(1, configuration.getWarehouses());
             }
         }
-        if (random.nextInt(1, 100) <= 60) {
+        payment.byLastName = random.nextInt(1, 100) <= 60;
+        if (payment.byLastName) {
             payment.c_last = random.getCLast();
             payment.c_id = 0;
         } else {
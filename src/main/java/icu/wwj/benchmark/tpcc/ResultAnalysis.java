@@ -0,0 +1,276 @@
+package icu.wwj.benchmark.tpcc;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.IntCountsHistogram;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Statistics of the results of a result file, or of a chunk of it to be merged with the statistics of the other chunks.
+ *
+ * <p>Results of the warmup, which have a negative elapsed time, are only counted. Series are kept per second and per window
+ * of several seconds, for the seconds and windows the results fall into, so a chunk only holds the time it covers.</p>
+ */
+public final class ResultAnalysis implements ResultRingBuffer.ResultConsumer {
+
+    private static final TPCCTransaction[] TRANSACTION_TYPES = TPCCTransaction.values();
+
+    /**
+     * Heatmap rows, each row covers latencies up to twice as long as the previous one, starting with latencies below 1 millisecond.
+     */
+    static final int LATENCY_BUCKETS = 18;
+
+    private static final int TERMINAL_TRANSACTIONS = 0;
+
+    private static final int NEW_ORDERS = 1;
+
+    private static final int ROLLBACKS = 2;
+
+    private static final int ERRORS = 3;
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p99.9"};
+
+    private final long windowMillis;
+
+    private final Histogram[] totalLatencies = new Histogram[TRANSACTION_TYPES.length];
+
+    private final long[] counts = new long[TRANSACTION_TYPES.length];
+
+    private final long[] rollbacks = new long[TRANSACTION_TYPES.length];
+
+    private final long[] errors = new long[TRANSACTION_TYPES.length];
+
+    private final long[] skippedDeliveries = new long[TRANSACTION_TYPES.length];
+
+    /**
+     * Transactions of terminals, NewOrders, rollbacks and errors by second.
+     */
+    private final Map<Long, long[]> seconds = new HashMap<>();
+
+    /**
+     * Latencies in milliseconds by window, indexed by {@link TPCCTransaction#ordinal()}.
+     */
+    private final Map<Long, IntCountsHistogram[]> windowLatencies = new HashMap<>();
+
+    /**
+     * Transactions of terminals by window and latency bucket.
+     */
+    private final Map<Long, long[]> heatmap = new HashMap<>();
+
+    /**
+     * Results are written about in the order they finished, so most of them fall into the same second and window as the previous one.
+     */
+    private long currentSecond = Long.MIN_VALUE;
+
+    private long[] currentSecondValues;
+
+    private long currentWindow = Long.MIN_VALUE;
+
+    private IntCountsHistogram[] currentWindowLatencies;
+
+    private long[] currentHeatmapColumn;
+
+    private long warmupResults;
+
+    private long maxElapsedMillis;
+
+    /**
+     * @param windowSeconds seconds covered by a window of latency percentiles and a column of the heatmap
+     */
+    public ResultAnalysis(int windowSeconds) {
+        windowMillis = windowSeconds * 1000L;
+        for (int i = 0; i < TRANSACTION_TYPES.length; i++) {
+            totalLatencies[i] = new Histogram(3);
+        }
+    }
+
+    @Override
+    public void accept(long elapsedMillis, long latencyMillis, long dbLatencyMillis, TPCCTransaction transactionType, boolean rollback, int skippedDeliveries, boolean error) {
+        if (elapsedMillis < 0) {
+            warmupResults++;
+            return;
+        }
+        maxElapsedMillis = Math.max(maxElapsedMillis, elapsedMillis);
+        int type = transactionType.ordinal();
+        if (elapsedMillis / 1000 != currentSecond) {
+            currentSecond = elapsedMillis / 1000;
+            currentSecondValues = seconds.computeIfAbsent(currentSecond, __ -> new long[4]);
+        }
+        long[] second = currentSecondValues;
+        if (error) {
+            errors[type]++;
+            second[ERRORS]++;
+            return;
+        }
+        counts[type]++;
+        this.skippedDeliveries[type] += skippedDeliveries;
+        if (rollback) {
+            rollbacks[type]++;
+            second[ROLLBACKS]++;
+        }
+        latencyMillis = Math.max(0L, latencyMillis);
+        totalLatencies[type].recordValue(latencyMillis);
+        if (elapsedMillis / windowMillis != currentWindow) {
+            currentWindow = elapsedMillis / windowMillis;
+            currentWindowLatencies = windowLatencies.computeIfAbsent(currentWindow, __ -> new IntCountsHistogram[TRANSACTION_TYPES.length]);
+            currentHeatmapColumn = heatmap.computeIfAbsent(currentWindow, __ -> new long[LATENCY_BUCKETS]);
+        }
+        IntCountsHistogram[] latencies = currentWindowLatencies;
+        if (null == latencies[type]) {
+            latencies[type] = new IntCountsHistogram(2);
+        }
+        latencies[type].recordValue(latencyMillis);
+        if (TPCCTransaction.DELIVERY_BG == transactionType) {
+            return;
+        }
+        second[TERMINAL_TRANSACTIONS]++;
+        if (TPCCTransaction.NEW_ORDER == transactionType) {
+            second[NEW_ORDERS]++;
+        }
+        currentHeatmapColumn[latencyBucket(latencyMillis)]++;
+    }
+
+    static int latencyBucket(long latencyMillis) {
+        return Math.min(LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(latencyMillis));
+    }
+
+    /**
+     * Add the statistics of another chunk of the same file.
+     */
+    public void merge(ResultAnalysis other) {
+        for (int i = 0; i < TRANSACTION_TYPES.length; i++) {
+            totalLatencies[i].add(other.totalLatencies[i]);
+            counts[i] += other.counts[i];
+            rollbacks[i] += other.rollbacks[i];
+            errors[i] += other.errors[i];
+            skippedDeliveries[i] += other.skippedDeliveries[i];
+        }
+        other.seconds.forEach((second, values) -> seconds.merge(second, values, ResultAnalysis::add));
+        other.heatmap.forEach((window, values) -> heatmap.merge(window, values, ResultAnalysis::add));
+        other.windowLatencies.forEach((window, latencies) -> windowLatencies.merge(window, latencies, (merged, each) -> {
+            for (int i = 0; i < merged.length; i++) {
+                if (null == merged[i]) {
+                    merged[i] = each[i];
+                } else if (null != each[i]) {
+                    merged[i].add(each[i]);
+                }
+            }
+            return merged;
+        }));
+        warmupResults += other.warmupResults;
+        maxElapsedMillis = Math.max(maxElapsedMillis, other.maxElapsedMillis);
+    }
+
+    private static long[] add(long[] merged, long[] values) {
+        for (int i = 0; i < merged.length; i++) {
+            merged[i] += values[i];
+        }
+        return merged;
+    }
+
+    public long getResults() {
+        long result = 0;
+        for (int i = 0; i < TRANSACTION_TYPES.length; i++) {
+            result += counts[i] + errors[i];
+        }
+        return result;
+    }
+
+    public long getWarmupResults() {
+        return warmupResults;
+    }
+
+    /**
+     * Convert to the report read by the HTML report, with throughput by second, percentiles by window and the latency heatmap.
+     */
+    public JsonObject toJson() {
+        double minutes = Math.max(1L, maxElapsedMillis) / 60000.0;
+        JsonObject summary = new JsonObject();
+        long terminalTransactions = 0;
+        for (TPCCTransaction each : TRANSACTION_TYPES) {
+            int type = each.ordinal();
+            if (TPCCTransaction.DELIVERY_BG != each) {
+                terminalTransactions += counts[type];
+            }
+            if (0 == counts[type] && 0 == errors[type]) {
+                continue;
+            }
+            JsonObject result = new JsonObject().put("count", counts[type]).put("rollbacks", rollbacks[type]).put("errors", errors[type])
+                    .put("skippedDeliveries", skippedDeliveries[type]).put("mean", round(totalLatencies[type].getMean()));
+            putPercentiles(result, totalLatencies[type]);
+            summary.put(each.name(), result.put("limit", each.getResponseTimeLimitMillis()));
+        }
+        JsonObject result = new JsonObject()
+                .put("windowSeconds", windowMillis / 1000)
+                .put("results", getResults())
+                .put("warmupResults", warmupResults)
+                .put("measuredSeconds", round(maxElapsedMillis / 1000.0))
+                .put("tpmC", round(counts[TPCCTransaction.NEW_ORDER.ordinal()] / minutes))
+                .put("tpmTOTAL", round(terminalTransactions / minutes))
+                .put("summary", summary);
+        JsonArray secondColumn = new JsonArray();
+        JsonArray tpmTotal = new JsonArray();
+        JsonArray tpmC = new JsonArray();
+        JsonArray rollbacksPerSecond = new JsonArray();
+        JsonArray errorsPerSecond = new JsonArray();
+        for (long each : new TreeSet<>(seconds.keySet())) {
+            long[] values = seconds.get(each);
+            secondColumn.add(each);
+            tpmTotal.add(values[TERMINAL_TRANSACTIONS] * 60);
+            tpmC.add(values[NEW_ORDERS] * 60);
+            rollbacksPerSecond.add(values[ROLLBACKS]);
+            errorsPerSecond.add(values[ERRORS]);
+        }
+        result.put("throughput", new JsonObject().put("second", secondColumn).put("tpmTOTAL", tpmTotal).put("tpmC", tpmC)
+                .put("rollbacks", rollbacksPerSecond).put("errors", errorsPerSecond));
+        TreeSet<Long> windows = new TreeSet<>(windowLatencies.keySet());
+        windows.addAll(heatmap.keySet());
+        JsonArray windowColumn = new JsonArray();
+        windows.forEach(each -> windowColumn.add(each * windowMillis / 1000));
+        JsonObject percentiles = new JsonObject().put("second", windowColumn);
+        for (TPCCTransaction each : TRANSACTION_TYPES) {
+            if (0 == counts[each.ordinal()]) {
+                continue;
+            }
+            JsonObject series = new JsonObject();
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                JsonArray values = new JsonArray();
+                for (long window : windows) {
+                    IntCountsHistogram[] latencies = windowLatencies.get(window);
+                    values.add(null == latencies || null == latencies[each.ordinal()] ? null : latencies[each.ordinal()].getValueAtPercentile(PERCENTILES[i]));
+                }
+                series.put(PERCENTILE_NAMES[i], values);
+            }
+            percentiles.put(each.name(), series);
+        }
+        result.put("percentiles", percentiles);
+        JsonArray heatmapCounts = new JsonArray();
+        for (long window : windows) {
+            long[] values = heatmap.getOrDefault(window, new long[LATENCY_BUCKETS]);
+            JsonArray column = new JsonArray();
+            for (long value : values) {
+                column.add(value);
+            }
+            heatmapCounts.add(column);
+        }
+        return result.put("heatmap", new JsonObject().put("second", windowColumn).put("counts", heatmapCounts));
+    }
+
+    private static void putPercentiles(JsonObject result, AbstractHistogram histogram) {
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            result.put(PERCENTILE_NAMES[i], histogram.getValueAtPercentile(PERCENTILES[i]));
+        }
+        result.put("max", histogram.getMaxValue());
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,28 @@
+package icu.wwj.benchmark.tpcc;
+
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Encodes batches of transaction results drained from {@link ResultRingBuffer}s.
+ */
+public interface ResultEncoder extends ResultRingBuffer.ResultConsumer {
+    
+    /**
+     * Encode the bytes written once at the beginning of the result file.
+     *
+     * @return file header
+     */
+    Buffer encodeHeader();
+    
+    /**
+     * Start encoding a batch of results.
+     */
+    void startBatch();
+    
+    /**
+     * Finish encoding the current batch.
+     *
+     * @return encoded batch or null if no result was encoded
+     */
+    Buffer finishBatch();
+}
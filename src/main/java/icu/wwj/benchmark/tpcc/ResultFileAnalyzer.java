@@ -0,0 +1,317 @@
+package icu.wwj.benchmark.tpcc;
+
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Analyzes a CSV or binary result file into a JSON report and a self-contained HTML report.
+ *
+ * <p>The file is split into chunks of about {@link #CHUNK_SIZE} bytes, which are memory-mapped and analyzed in parallel.
+ * CSV chunks end at line boundaries, binary chunks at block boundaries found by skipping from block header to block header.
+ * At most two chunks per thread are in flight, and the statistics of a chunk only cover the seconds its results fall into,
+ * so memory does not grow with the size of the file.</p>
+ */
+public final class ResultFileAnalyzer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultFileAnalyzer.class);
+
+    private static final long CHUNK_SIZE = 64L << 20;
+
+    /**
+     * Longer than any CSV line, to finish the last line of a chunk.
+     */
+    private static final int LINE_OVERLAP = 4096;
+
+    /**
+     * Windows of latency percentiles and heatmap columns in the report at most.
+     */
+    private static final int MAX_WINDOWS = 600;
+
+    private static final byte[][] TRANSACTION_TYPE_NAMES = new byte[TPCCTransaction.values().length][];
+
+    static {
+        for (TPCCTransaction each : TPCCTransaction.values()) {
+            TRANSACTION_TYPE_NAMES[each.ordinal()] = each.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * Analyze a result file.
+     *
+     * @param args result file and optional output path without extension, the report is written next to the result file if no output path is given
+     */
+    public static void analyze(String[] args) throws IOException {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("Usage: analyze <result file> [report path without extension]");
+        }
+        Path input = Paths.get(args[0]);
+        String output = args.length > 1 ? args[1] : args[0].replaceFirst("\\.(csv|bin)$", "") + "_report";
+        long startNanoTime = System.nanoTime();
+        ResultAnalysis result;
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            byte[] header = new byte[BinaryResultEncoder.MAGIC.length + 1];
+            int headerLength = channel.read(ByteBuffer.wrap(header), 0L);
+            boolean binary = headerLength == header.length && BinaryResultReader.isBinary(header);
+            List<long[]> chunks = binary ? splitBlocks(channel, header.length) : splitLines(channel);
+            int windowSeconds = windowSeconds(binary ? lastBlockElapsed(chunks) : lastLineElapsed(channel));
+            result = analyze(chunks, windowSeconds, chunk -> binary ? analyzeBlocks(channel, chunk, 0 != header[header.length - 1], windowSeconds) : analyzeLines(channel, chunk, windowSeconds));
+        }
+        JsonObject report = result.toJson().put("file", input.getFileName().toString());
+        Files.writeString(Paths.get(output + ".json"), report.encodePrettily());
+        Files.writeString(Paths.get(output + ".html"), DataLoader.readScript("tpcc_report.html").replace("/*REPORT*/null", report.encode()));
+        LOGGER.info("Analyzed {} results and {} results of the warmup from {} ({} MB) in {} ms, report written to {}.json and {}.html", result.getResults(), result.getWarmupResults(),
+                input, Files.size(input) >> 20, (System.nanoTime() - startNanoTime) / 1_000_000, output, output);
+    }
+
+    private static ResultAnalysis analyze(List<long[]> chunks, int windowSeconds, ChunkAnalyzer analyzer) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CompletionService<ResultAnalysis> completionService = new ExecutorCompletionService<>(executor);
+            ResultAnalysis result = new ResultAnalysis(windowSeconds);
+            int submitted = 0;
+            for (int completed = 0; completed < chunks.size(); completed++) {
+                while (submitted < chunks.size() && submitted - completed < threads * 2) {
+                    long[] chunk = chunks.get(submitted++);
+                    completionService.submit((Callable<ResultAnalysis>) () -> analyzer.analyze(chunk));
+                }
+                result.merge(completionService.take().get());
+            }
+            return result;
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted analyzing the result file", ex);
+        } catch (final ExecutionException ex) {
+            throw new IOException("Failed to analyze the result file", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Choose the window so that a run of any duration is covered by at most {@link #MAX_WINDOWS} windows.
+     */
+    private static int windowSeconds(long lastElapsedMillis) {
+        long seconds = Math.max(0L, lastElapsedMillis) / 1000 + 1;
+        return (int) Math.max(1L, (seconds + MAX_WINDOWS - 1) / MAX_WINDOWS);
+    }
+
+    /**
+     * Split the CSV file into chunks of lines. A line belongs to the chunk it starts in.
+     *
+     * @return start and end positions of every chunk
+     */
+    private static List<long[]> splitLines(FileChannel channel) throws IOException {
+        List<long[]> result = new ArrayList<>();
+        long size = channel.size();
+        for (long start = 0; start < size; start += CHUNK_SIZE) {
+            result.add(new long[]{start, Math.min(size, start + CHUNK_SIZE)});
+        }
+        return result;
+    }
+
+    /**
+     * Get the elapsed time of the last line, results are written about in the order they finished.
+     */
+    private static long lastLineElapsed(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long tailStart = Math.max(0L, size - LINE_OVERLAP);
+        MappedByteBuffer tail = channel.map(FileChannel.MapMode.READ_ONLY, tailStart, size - tailStart);
+        int lastLine = tail.limit() - 1;
+        while (lastLine > 0 && '\n' == tail.get(lastLine)) {
+            lastLine--;
+        }
+        while (lastLine > 0 && '\n' != tail.get(lastLine - 1)) {
+            lastLine--;
+        }
+        // The only line of a file without results is the header.
+        return lastLine > 0 || tailStart > 0 ? parseLong(tail, nextField(tail, lastLine)) : 0L;
+    }
+
+    private static ResultAnalysis analyzeLines(FileChannel channel, long[] chunk, int windowSeconds) throws IOException {
+        long mappedEnd = Math.min(channel.size(), chunk[1] + LINE_OVERLAP);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], mappedEnd - chunk[0]);
+        int end = (int) (chunk[1] - chunk[0]);
+        ResultAnalysis result = new ResultAnalysis(windowSeconds);
+        // The first chunk starts with the header, any other chunk with the rest of a line of the previous chunk, unless that line ended right before it.
+        int position = 0 == chunk[0] ? nextLine(buffer, 0) : nextLineAfter(channel, chunk[0], buffer);
+        while (position < end && position < buffer.limit()) {
+            position = parseLine(buffer, position, result);
+        }
+        return result;
+    }
+
+    private static int nextLineAfter(FileChannel channel, long start, MappedByteBuffer buffer) throws IOException {
+        ByteBuffer previous = ByteBuffer.allocate(1);
+        channel.read(previous, start - 1);
+        return '\n' == previous.get(0) ? 0 : nextLine(buffer, 0);
+    }
+
+    private static int nextLine(ByteBuffer buffer, int position) {
+        while (position < buffer.limit() && '\n' != buffer.get(position)) {
+            position++;
+        }
+        return position + 1;
+    }
+
+    private static int nextField(ByteBuffer buffer, int position) {
+        while (position < buffer.limit() && ',' != buffer.get(position)) {
+            position++;
+        }
+        return position + 1;
+    }
+
+    /**
+     * Parse a line of {@code run,elapsed,latency,dblatency,ttype,rbk,dskipped,error} without creating strings.
+     *
+     * @return position of the next line
+     */
+    private static int parseLine(ByteBuffer buffer, int position, ResultAnalysis result) {
+        if ('\n' == buffer.get(position)) {
+            return position + 1;
+        }
+        position = nextField(buffer, position);
+        long elapsedMillis = parseLong(buffer, position);
+        position = nextField(buffer, position);
+        long latencyMillis = parseLong(buffer, position);
+        position = nextField(buffer, position);
+        long dbLatencyMillis = parseLong(buffer, position);
+        position = nextField(buffer, position);
+        TPCCTransaction transactionType = parseTransactionType(buffer, position);
+        position = nextField(buffer, position);
+        boolean rollback = '1' == buffer.get(position);
+        position = nextField(buffer, position);
+        int skippedDeliveries = (int) parseLong(buffer, position);
+        position = nextField(buffer, position);
+        boolean error = position < buffer.limit() && '1' == buffer.get(position);
+        if (null != transactionType) {
+            result.accept(elapsedMillis, latencyMillis, dbLatencyMillis, transactionType, rollback, skippedDeliveries, error);
+        }
+        return nextLine(buffer, position);
+    }
+
+    private static long parseLong(ByteBuffer buffer, int position) {
+        boolean negative = position < buffer.limit() && '-' == buffer.get(position);
+        if (negative) {
+            position++;
+        }
+        long result = 0;
+        for (; position < buffer.limit(); position++) {
+            byte each = buffer.get(position);
+            if (each < '0' || each > '9') {
+                break;
+            }
+            result = result * 10 + each - '0';
+        }
+        return negative ? -result : result;
+    }
+
+    private static TPCCTransaction parseTransactionType(ByteBuffer buffer, int position) {
+        for (TPCCTransaction each : TPCCTransaction.values()) {
+            byte[] name = TRANSACTION_TYPE_NAMES[each.ordinal()];
+            if (position + name.length < buffer.limit() && ',' == buffer.get(position + name.length) && matches(buffer, position, name)) {
+                return each;
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(ByteBuffer buffer, int position, byte[] name) {
+        for (int i = 0; i < name.length; i++) {
+            if (name[i] != buffer.get(position + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Split the binary file into chunks of whole blocks, reading only the header of every block.
+     *
+     * @return start and end positions of every chunk, followed by the base elapsed millis of its last block
+     */
+    private static List<long[]> splitBlocks(FileChannel channel, long position) throws IOException {
+        List<long[]> result = new ArrayList<>();
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(BinaryResultEncoder.BLOCK_HEADER_LENGTH);
+        long[] chunk = null;
+        while (position + BinaryResultEncoder.BLOCK_HEADER_LENGTH <= size) {
+            header.clear();
+            channel.read(header, position);
+            long baseElapsedMillis = header.getLong(4);
+            long next = position + BinaryResultEncoder.BLOCK_HEADER_LENGTH + header.getInt(16);
+            if (null == chunk || chunk[1] - chunk[0] >= CHUNK_SIZE) {
+                chunk = new long[]{position, next, baseElapsedMillis};
+                result.add(chunk);
+            }
+            chunk[1] = Math.min(size, next);
+            chunk[2] = baseElapsedMillis;
+            position = next;
+        }
+        return result;
+    }
+
+    private static long lastBlockElapsed(List<long[]> chunks) {
+        return chunks.isEmpty() ? 0L : chunks.get(chunks.size() - 1)[2];
+    }
+
+    private static ResultAnalysis analyzeBlocks(FileChannel channel, long[] chunk, boolean compressed, int windowSeconds) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]);
+        BinaryResultReader reader = new BinaryResultReader(new ByteBufferInputStream(buffer), compressed);
+        ResultAnalysis result = new ResultAnalysis(windowSeconds);
+        int read;
+        do {
+            read = reader.readBlock(result);
+        } while (read >= 0);
+        return result;
+    }
+
+    private interface ChunkAnalyzer {
+
+        ResultAnalysis analyze(long[] chunk) throws IOException;
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int result = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package icu.wwj.benchmark.tpcc;
+
+import io.vertx.core.buffer.Buffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FilterOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Streams a binary result file back to the CSV layout written by {@link CsvResultEncoder}.
+ */
+public final class ResultFileConverter {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultFileConverter.class);
+    
+    /**
+     * Convert a binary result file.
+     *
+     * @param args input path and optional output path, results are written to standard output if no output path is given
+     */
+    public static void convert(String[] args) throws IOException {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("Usage: convert <binary result file> [csv output file]");
+        }
+        long count = 0;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(args[0]), 1 << 20);
+             OutputStream out = new BufferedOutputStream(args.length > 1 ? new FileOutputStream(args[1]) : new UnclosableOutputStream(System.out), 1 << 20)) {
+            BinaryResultReader reader = new BinaryResultReader(in);
+            CsvResultEncoder encoder = new CsvResultEncoder();
+            write(encoder.encodeHeader(), out);
+            int read;
+            do {
+                encoder.startBatch();
+                read = reader.readBlock(encoder);
+                Buffer batch = encoder.finishBatch();
+                if (null != batch) {
+                    write(batch, out);
+                    count += read;
+                }
+            } while (read >= 0);
+        }
+        if (args.length > 1) {
+            LOGGER.info("Converted {} results from {} to {}", count, args[0], args[1]);
+        }
+    }
+    
+    private static void write(Buffer buffer, OutputStream out) throws IOException {
+        buffer.getByteBuf().readBytes(out, buffer.length());
+    }
+    
+    /**
+     * Flushes instead of closing standard output, which the logger still writes to.
+     */
+    private static final class UnclosableOutputStream extends FilterOutputStream {
+        
+        private UnclosableOutputStream(OutputStream out) {
+            super(out);
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+        
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -1,40 +1,169 @@
 package icu.wwj.benchmark.tpcc;
 
 import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
-import io.vertx.core.eventbus.Message;
-import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.file.AsyncFile;
 import io.vertx.core.file.OpenOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class ResultFileWriter {
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
-    public static final String ADDRESS = ResultFileWriter.class.getSimpleName();
+/**
+ * Drains the {@link ResultRingBuffer} of every event loop and writes the results to file in batches.
+ *
+ * <p>Memory is bounded by the ring buffers and the write queue of the file. Rings are not drained while the write queue is full,
+ * and producers wait for free space in their ring instead of dropping results.</p>
+ */
+public class ResultFileWriter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ResultFileWriter.class);
 
+    private static final long FLUSH_INTERVAL_MILLIS = 100L;
+
+    private static final long RETRY_INTERVAL_MILLIS = 10L;
+
+    private final Vertx vertx;
+
     private final AsyncFile file;
 
-    private final MessageConsumer<String> resultConsumer;
+    private final ResultEncoder encoder;
+
+    private final int ringBufferSize;
+
+    private final List<ResultRingBuffer> ringBuffers = new CopyOnWriteArrayList<>();
 
-    public ResultFileWriter(Vertx vertx, String path) {
+    private final ThreadLocal<ResultRingBuffer> threadLocalRingBuffer = ThreadLocal.withInitial(this::newRingBuffer);
+
+    private final AtomicLong pendingWriteBytes = new AtomicLong();
+
+    private final AtomicLong writtenResults = new AtomicLong();
+
+    private final AtomicLong producerStalls = new AtomicLong();
+
+    private final long flushTimer;
+
+    public ResultFileWriter(Vertx vertx, String path, ResultEncoder encoder, int ringBufferSize, int writeQueueMaxSize) {
+        this.vertx = vertx;
+        this.encoder = encoder;
+        this.ringBufferSize = ringBufferSize;
         file = vertx.fileSystem().openBlocking(path, new OpenOptions());
-        file.write(Buffer.buffer("run,elapsed,latency,dblatency,ttype,rbk,dskipped,error\n"));
-        resultConsumer = vertx.eventBus().localConsumer(ADDRESS, this::handleResult);
+        file.setWriteQueueMaxSize(writeQueueMaxSize);
+        file.write(encoder.encodeHeader());
+        flushTimer = vertx.setPeriodic(FLUSH_INTERVAL_MILLIS, __ -> flush(false));
+    }
+
+    /**
+     * Get the ring buffer of the calling event loop. Results must only be offered from the thread that obtained the ring buffer.
+     *
+     * @return ring buffer of current thread
+     */
+    public ResultRingBuffer getRingBuffer() {
+        return threadLocalRingBuffer.get();
+    }
+
+    private ResultRingBuffer newRingBuffer() {
+        ResultRingBuffer result = new ResultRingBuffer(ringBufferSize);
+        ringBuffers.add(result);
+        return result;
+    }
+
+    /**
+     * Write a result into the ring buffer of the calling event loop.
+     * If the ring is full, the result is retried on a timer of the calling context until the ring has been drained.
+     *
+     * @return future completed once the result has been accepted
+     */
+    public Future<Void> write(ResultRingBuffer ringBuffer, long elapsedMillis, long latencyMillis, long dbLatencyMillis,
+                              TPCCTransaction transactionType, boolean rollback, int skippedDeliveries, boolean error) {
+        if (ringBuffer.offer(elapsedMillis, latencyMillis, dbLatencyMillis, transactionType, rollback, skippedDeliveries, error)) {
+            return Future.succeededFuture();
+        }
+        producerStalls.incrementAndGet();
+        Promise<Void> promise = Promise.promise();
+        vertx.setTimer(RETRY_INTERVAL_MILLIS, new Handler<>() {
+
+            @Override
+            public void handle(Long timerId) {
+                if (ringBuffer.offer(elapsedMillis, latencyMillis, dbLatencyMillis, transactionType, rollback, skippedDeliveries, error)) {
+                    promise.complete();
+                } else {
+                    vertx.setTimer(RETRY_INTERVAL_MILLIS, this);
+                }
+            }
+        });
+        return promise.future();
+    }
+
+    private synchronized void flush(boolean force) {
+        if (!force && file.writeQueueFull()) {
+            file.drainHandler(__ -> flush(false));
+            return;
+        }
+        encoder.startBatch();
+        int drained = 0;
+        for (ResultRingBuffer each : ringBuffers) {
+            drained += each.drain(encoder);
+        }
+        Buffer batch = encoder.finishBatch();
+        if (null == batch) {
+            return;
+        }
+        int length = batch.length();
+        pendingWriteBytes.addAndGet(length);
+        writtenResults.addAndGet(drained);
+        file.write(batch).onComplete(__ -> pendingWriteBytes.addAndGet(-length)).onFailure(cause -> LOGGER.error("Failed to write results", cause));
+    }
+
+    /**
+     * Get the number of results recorded by producers but not drained from ring buffers yet.
+     *
+     * @return number of buffered results
+     */
+    public long getBufferedResults() {
+        long result = 0;
+        for (ResultRingBuffer each : ringBuffers) {
+            result += each.size();
+        }
+        return result;
+    }
+
+    /**
+     * Get the number of encoded bytes queued in the file but not written yet.
+     *
+     * @return number of pending bytes
+     */
+    public long getPendingWriteBytes() {
+        return pendingWriteBytes.get();
+    }
+
+    public long getWrittenResults() {
+        return writtenResults.get();
     }
 
-    private void handleResult(Message<String> result) {
-        file.write(Buffer.buffer(result.body() + '\n'));
+    /**
+     * Get how many times a producer had to wait for free space in its ring buffer.
+     *
+     * @return number of producer stalls
+     */
+    public long getProducerStalls() {
+        return producerStalls.get();
     }
 
+    /**
+     * Drain every buffered result and close the file once all writes have completed.
+     * Producers must have stopped before closing.
+     */
     public Future<Void> close() {
-        // TODO Risk: This may discard results which pending in queue.
-        return resultConsumer.unregister()
-                .compose(__ -> file.close())
-                .onSuccess(__ -> LOGGER.info("Result file writer closed."))
+        vertx.cancelTimer(flushTimer);
+        flush(true);
+        return file.close()
+                .onSuccess(__ -> LOGGER.info("Result file writer closed. {} results written, producers stalled {} times.", writtenResults.get(), producerStalls.get()))
                 .onFailure(cause -> LOGGER.error("Failed to close result file writer", cause));
     }
 }
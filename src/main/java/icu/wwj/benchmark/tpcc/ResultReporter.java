@@ -1,37 +1,185 @@
 package icu.wwj.benchmark.tpcc;
 
 import lombok.Getter;
-
-import java.util.concurrent.atomic.AtomicLong;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SingleWriterRecorder;
 
 @Getter
 public class ResultReporter {
 
-    private final AtomicLong[] totalCount;
+    private static final int TRANSACTION_TYPES = TPCCTransaction.values().length;
+
+    /**
+     * Counters in a slot per terminal, followed by delivery workers.
+     */
+    private final TransactionCounters transactionCounters;
+
+    /**
+     * Latency recorders in microseconds indexed by terminal, followed by delivery workers, and {@link TPCCTransaction#ordinal()}.
+     * Each terminal or delivery worker is the only writer of its own recorders.
+     */
+    private final SingleWriterRecorder[][] latencyRecorders;
+
+    private final Histogram[][] recycledHistograms;
+
+    private final Histogram[] totalHistograms;
+
+    /**
+     * Latencies drained from the recorders since the previous {@link #collectIntervalHistograms()}, e.g. by a metrics scrape.
+     */
+    private final Histogram[] pendingIntervalHistograms;
+
+    /**
+     * Statement latencies, or null if statements are not timed.
+     */
+    private final StatementMetrics statementMetrics;
+
+    /**
+     * Slowest transactions with their statement timelines, or null if they are not tracked.
+     */
+    private final SlowTransactionTracker slowTransactionTracker;
+
+    /**
+     * Start of the measurement which elapsed times in the result file are relative to, transactions finished before it are warmup.
+     */
+    private volatile long measurementStartNanoTime;
+
+    private TransactionCounters.Snapshot measurementCounters = TransactionCounters.Snapshot.empty();
+
+    private TransactionCounters.Snapshot intervalCounters = TransactionCounters.Snapshot.empty();
 
-    private final AtomicLong[] newOrderCounts;
+    private long intervalStartNanoTime = System.nanoTime();
 
-    public ResultReporter(int terminals) {
-        totalCount = new AtomicLong[terminals];
-        newOrderCounts = new AtomicLong[terminals];
-        for (int i = 0; i < terminals; i++) {
-            totalCount[i] = new AtomicLong();
-            newOrderCounts[i] = new AtomicLong();
+    public ResultReporter(int terminals, int deliveryWorkers, StatementMetrics statementMetrics, SlowTransactionTracker slowTransactionTracker) {
+        transactionCounters = new TransactionCounters(terminals + deliveryWorkers);
+        latencyRecorders = new SingleWriterRecorder[terminals + deliveryWorkers][TRANSACTION_TYPES];
+        recycledHistograms = new Histogram[terminals + deliveryWorkers][TRANSACTION_TYPES];
+        for (int i = 0; i < latencyRecorders.length; i++) {
+            for (int j = 0; j < TRANSACTION_TYPES; j++) {
+                latencyRecorders[i][j] = new SingleWriterRecorder(3, true);
+            }
         }
+        totalHistograms = newHistograms();
+        pendingIntervalHistograms = newHistograms();
+        this.statementMetrics = statementMetrics;
+        this.slowTransactionTracker = slowTransactionTracker;
     }
-    
-    public long sumTotalCount() {
-        long result = 0;
-        for (AtomicLong each : totalCount) {
-            result += each.get();
+
+    /**
+     * Create a statement timer for a new connection.
+     */
+    public StatementTimer newStatementTimer() {
+        return new StatementTimer(statementMetrics, slowTransactionTracker);
+    }
+
+    /**
+     * Set the start of the measurement, which may still be provisional while the warmup lasts.
+     */
+    public void setMeasurementStartNanoTime(long measurementStartNanoTime) {
+        this.measurementStartNanoTime = measurementStartNanoTime;
+    }
+
+    /**
+     * Start the measurement at the time, discarding counters and latencies recorded during the warmup.
+     */
+    public synchronized void startMeasurement(long measurementStartNanoTime) {
+        this.measurementStartNanoTime = measurementStartNanoTime;
+        drainLatencyRecorders();
+        measurementCounters = transactionCounters.snapshot();
+        intervalCounters = measurementCounters;
+        intervalStartNanoTime = measurementStartNanoTime;
+        for (int j = 0; j < TRANSACTION_TYPES; j++) {
+            pendingIntervalHistograms[j].reset();
+            totalHistograms[j].reset();
         }
+        if (null != statementMetrics) {
+            statementMetrics.resetTotals();
+        }
+    }
+
+    /**
+     * Sum the counters of all terminals and delivery workers since the start of the measurement.
+     */
+    public synchronized TransactionCounters.Snapshot sumCounters() {
+        long currentNanoTime = System.nanoTime();
+        return transactionCounters.snapshot().minus(measurementCounters, currentNanoTime - measurementStartNanoTime);
+    }
+
+    /**
+     * Sum the counters of all terminals and delivery workers since the previous call, or the start of the measurement.
+     */
+    public synchronized TransactionCounters.Snapshot collectIntervalCounters() {
+        long currentNanoTime = System.nanoTime();
+        TransactionCounters.Snapshot current = transactionCounters.snapshot();
+        TransactionCounters.Snapshot result = current.minus(intervalCounters, currentNanoTime - intervalStartNanoTime);
+        intervalCounters = current;
+        intervalStartNanoTime = currentNanoTime;
         return result;
     }
-    
+
+    public long sumTotalCount() {
+        return sumCounters().getTotal();
+    }
+
     public long sumNewOrderCount() {
-        long result = 0;
-        for (AtomicLong each : newOrderCounts) {
-            result += each.get();
+        return sumCounters().getNewOrders();
+    }
+
+    public long sumRollbackCount() {
+        return sumCounters().sumTerminals(TransactionCounters.ROLLBACKS);
+    }
+
+    /**
+     * @param counter {@link TransactionCounters#RETRIES}, {@link TransactionCounters#FAILURES} or {@link TransactionCounters#WASTED_NANOS}
+     */
+    public long sumRetryCounter(TPCCTransaction transactionType, int counter) {
+        return sumCounters().get(transactionType, counter);
+    }
+
+    /**
+     * Merge latencies recorded by all terminals since the previous call.
+     *
+     * @return histograms of the current interval indexed by {@link TPCCTransaction#ordinal()}
+     */
+    public synchronized Histogram[] collectIntervalHistograms() {
+        drainLatencyRecorders();
+        Histogram[] result = newHistograms();
+        for (int j = 0; j < TRANSACTION_TYPES; j++) {
+            result[j].add(pendingIntervalHistograms[j]);
+            pendingIntervalHistograms[j].reset();
+        }
+        return result;
+    }
+
+    /**
+     * Copy the latencies recorded since the start of the session, without affecting the current interval.
+     *
+     * @return histograms indexed by {@link TPCCTransaction#ordinal()}
+     */
+    public synchronized Histogram[] snapshotTotalHistograms() {
+        drainLatencyRecorders();
+        Histogram[] result = new Histogram[TRANSACTION_TYPES];
+        for (int j = 0; j < TRANSACTION_TYPES; j++) {
+            result[j] = totalHistograms[j].copy();
+        }
+        return result;
+    }
+
+    private void drainLatencyRecorders() {
+        for (int i = 0; i < latencyRecorders.length; i++) {
+            for (int j = 0; j < TRANSACTION_TYPES; j++) {
+                Histogram interval = latencyRecorders[i][j].getIntervalHistogram(recycledHistograms[i][j]);
+                recycledHistograms[i][j] = interval;
+                pendingIntervalHistograms[j].add(interval);
+                totalHistograms[j].add(interval);
+            }
+        }
+    }
+
+    private static Histogram[] newHistograms() {
+        Histogram[] result = new Histogram[TRANSACTION_TYPES];
+        for (int i = 0; i < TRANSACTION_TYPES; i++) {
+            result[i] = new Histogram(3);
         }
         return result;
     }
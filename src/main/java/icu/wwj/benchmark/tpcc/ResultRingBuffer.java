@@ -0,0 +1,87 @@
+package icu.wwj.benchmark.tpcc;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated single-producer single-consumer ring of transaction results.
+ * The producer is the event loop owning this ring, the consumer is {@link ResultFileWriter}.
+ */
+public final class ResultRingBuffer {
+
+    private static final int RECORD_LONGS = 4;
+
+    private static final TPCCTransaction[] TRANSACTION_TYPES = TPCCTransaction.values();
+
+    private final long[] records;
+
+    private final int mask;
+
+    private final AtomicLong producerIndex = new AtomicLong();
+
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    private long cachedConsumerIndex;
+
+    public ResultRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity of result ring buffer must be a power of 2, but was " + capacity);
+        }
+        records = new long[capacity * RECORD_LONGS];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Append a result. Must only be called by the owning thread.
+     *
+     * @return false if the ring is full and the result was not accepted
+     */
+    public boolean offer(long elapsedMillis, long latencyMillis, long dbLatencyMillis, TPCCTransaction transactionType, boolean rollback, int skippedDeliveries, boolean error) {
+        long index = producerIndex.get();
+        if (index - cachedConsumerIndex > mask) {
+            cachedConsumerIndex = consumerIndex.get();
+            if (index - cachedConsumerIndex > mask) {
+                return false;
+            }
+        }
+        int offset = (int) (index & mask) * RECORD_LONGS;
+        records[offset] = elapsedMillis;
+        records[offset + 1] = latencyMillis;
+        records[offset + 2] = dbLatencyMillis;
+        records[offset + 3] = transactionType.ordinal() | (rollback ? 1L << 8 : 0L) | (error ? 1L << 9 : 0L) | (long) skippedDeliveries << 16;
+        producerIndex.lazySet(index + 1);
+        return true;
+    }
+
+    /**
+     * Pass all available results to the consumer. Must only be called by the draining thread.
+     *
+     * @return number of results drained
+     */
+    public int drain(ResultConsumer consumer) {
+        long start = consumerIndex.get();
+        long end = producerIndex.get();
+        for (long index = start; index < end; index++) {
+            int offset = (int) (index & mask) * RECORD_LONGS;
+            long flags = records[offset + 3];
+            consumer.accept(records[offset], records[offset + 1], records[offset + 2], TRANSACTION_TYPES[(int) (flags & 0xFF)],
+                    0 != (flags & 1L << 8), (int) (flags >>> 16), 0 != (flags & 1L << 9));
+        }
+        consumerIndex.lazySet(end);
+        return (int) (end - start);
+    }
+
+    /**
+     * Get the number of results not drained yet.
+     *
+     * @return number of buffered results
+     */
+    public int size() {
+        return (int) (producerIndex.get() - consumerIndex.get());
+    }
+
+    @FunctionalInterface
+    public interface ResultConsumer {
+
+        void accept(long elapsedMillis, long latencyMillis, long dbLatencyMillis, TPCCTransaction transactionType, boolean rollback, int skippedDeliveries, boolean error);
+    }
+}
@@ -0,0 +1,101 @@
+package icu.wwj.benchmark.tpcc;
+
+import icu.wwj.benchmark.tpcc.config.BenchmarkConfiguration;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.pgclient.PgException;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.Transaction;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs a transaction again after it failed with a retryable SQLSTATE, e.g. a serialization failure or a deadlock.
+ *
+ * <p>Retries wait for a random backoff up to {@code retryBackoffMillis} doubled on every retry and capped at {@code retryMaxBackoffMillis},
+ * so terminals which conflicted with each other do not collide again. The time spent in failed attempts and backoffs is accounted as wasted.</p>
+ */
+final class RetryPolicy {
+
+    private final Vertx vertx;
+
+    private final Set<String> retrySqlStates;
+
+    private final int maxRetries;
+
+    private final long backoffMillis;
+
+    private final long maxBackoffMillis;
+
+    private final ConnectionPoolMetrics poolMetrics;
+
+    RetryPolicy(Vertx vertx, BenchmarkConfiguration configuration) {
+        this.vertx = vertx;
+        retrySqlStates = configuration.getRetrySqlStates();
+        maxRetries = configuration.getMaxRetries();
+        backoffMillis = configuration.getRetryBackoffMillis();
+        maxBackoffMillis = configuration.getRetryMaxBackoffMillis();
+        poolMetrics = ConnectionPoolMetrics.of(vertx);
+    }
+
+    /**
+     * Execute the transaction in a new database transaction on every attempt. A failed attempt is rolled back
+     * if the executor has not done it already, so the connection can begin the next transaction.
+     *
+     * @param statementTimer times BEGIN, COMMIT and ROLLBACK of the connection
+     * @param executor executes the transaction with the same input on every call
+     * @param counters counters to count retries, final failures and time wasted in failed attempts of the transaction type to
+     */
+    <T> Future<T> execute(SqlConnection connection, StatementTimer statementTimer, Function<Transaction, Future<T>> executor, TransactionCounters.Writer counters, TPCCTransaction transactionType) {
+        Promise<T> promise = Promise.promise();
+        Supplier<Future<T>> attempt = () -> {
+            if (null == poolMetrics) {
+                return begin(connection, statementTimer, executor);
+            }
+            poolMetrics.recordTransaction(connection);
+            return Future.<T>future(result -> begin(connection, statementTimer, executor).onComplete(result)).onComplete(__ -> poolMetrics.finishTransaction());
+        };
+        execute(attempt, counters, transactionType, 0, promise);
+        return promise.future();
+    }
+
+    private static <T> Future<T> begin(SqlConnection connection, StatementTimer statementTimer, Function<Transaction, Future<T>> executor) {
+        return statementTimer.begin(connection).compose(transaction -> executor.apply(transaction)
+                .recover(cause -> transaction.rollback().transform(__ -> Future.failedFuture(cause))));
+    }
+
+    private <T> void execute(Supplier<Future<T>> attempt, TransactionCounters.Writer counters, TPCCTransaction transactionType, int retries, Promise<T> promise) {
+        long attemptStartNanoTime = System.nanoTime();
+        attempt.get().onComplete(result -> {
+            if (result.succeeded()) {
+                promise.complete(result.result());
+                return;
+            }
+            if (retries >= maxRetries || !isRetryable(result.cause())) {
+                counters.increment(transactionType, TransactionCounters.FAILURES);
+                counters.add(transactionType, TransactionCounters.WASTED_NANOS, System.nanoTime() - attemptStartNanoTime);
+                promise.fail(result.cause());
+                return;
+            }
+            counters.increment(transactionType, TransactionCounters.RETRIES);
+            long maxDelayMillis = Math.min(maxBackoffMillis, backoffMillis << Math.min(retries, 30));
+            vertx.setTimer(ThreadLocalRandom.current().nextLong(1L, Math.max(1L, maxDelayMillis) + 1), __ -> {
+                counters.add(transactionType, TransactionCounters.WASTED_NANOS, System.nanoTime() - attemptStartNanoTime);
+                execute(attempt, counters, transactionType, retries + 1, promise);
+            });
+        });
+    }
+
+    private boolean isRetryable(Throwable cause) {
+        for (Throwable each = cause; null != each; each = each.getCause()) {
+            if (each instanceof PgException && retrySqlStates.contains(((PgException) each).getCode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,201 @@
+package icu.wwj.benchmark.tpcc;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Compares run summaries written by {@link RunSummary} with a baseline and fails on a regression.
+ *
+ * <p>tpmC and the 90th percentile of every transaction type are compared by their report intervals after the warmup,
+ * with a Welch confidence interval of the difference of the means. A change is a regression if it is worse than the
+ * threshold and the confidence interval excludes no change, so the variation between intervals alone never fails the gate.</p>
+ */
+public final class RunComparison {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RunComparison.class);
+
+    /**
+     * Compare candidate summaries with a baseline summary.
+     *
+     * @param args baseline summary followed by candidate summaries
+     * @return whether no candidate regressed beyond the thresholds
+     */
+    public static boolean compare(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: compare <baseline summary> <candidate summary>...");
+        }
+        double maxTpmCRegression = Double.parseDouble(System.getProperty("maxTpmCRegression", "5"));
+        double maxP90Regression = Double.parseDouble(System.getProperty("maxP90Regression", "10"));
+        double confidence = Double.parseDouble(System.getProperty("confidence", "0.95"));
+        if (confidence <= 0 || confidence >= 1) {
+            throw new IllegalArgumentException("Confidence must be between 0 and 1, got " + confidence);
+        }
+        JsonObject baseline = read(args[0]);
+        boolean result = true;
+        for (int i = 1; i < args.length; i++) {
+            JsonObject candidate = read(args[i]);
+            LOGGER.info("Comparing {} with baseline {}, thresholds tpmC -{}% p90 +{}%, confidence {}", args[i], args[0], maxTpmCRegression, maxP90Regression, confidence);
+            logDifferences("configuration", baseline.getJsonObject("configuration"), candidate.getJsonObject("configuration"));
+            logDifferences("host", baseline.getJsonObject("host"), candidate.getJsonObject("host"));
+            boolean passed = compareMetric("tpmC", samples(baseline, "tpmC", null), baseline.getDouble("tpmC"),
+                    samples(candidate, "tpmC", null), candidate.getDouble("tpmC"), true, maxTpmCRegression, confidence);
+            JsonObject baselineTransactions = baseline.getJsonObject("transactions");
+            JsonObject candidateTransactions = candidate.getJsonObject("transactions");
+            for (TPCCTransaction each : TPCCTransaction.values()) {
+                JsonObject baselineType = baselineTransactions.getJsonObject(each.name());
+                JsonObject candidateType = candidateTransactions.getJsonObject(each.name());
+                if (null == baselineType || null == candidateType) {
+                    continue;
+                }
+                passed &= compareMetric("p90 " + each, samples(baseline, "p90", each), baselineType.getDouble("p90"),
+                        samples(candidate, "p90", each), candidateType.getDouble("p90"), false, maxP90Regression, confidence);
+            }
+            LOGGER.info("{} {}", args[i], passed ? "PASSED" : "FAILED");
+            result &= passed;
+        }
+        return result;
+    }
+
+    private static JsonObject read(String path) throws IOException {
+        JsonObject result = new JsonObject(new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8));
+        if (RunSummary.VERSION != result.getInteger("version", 0)) {
+            throw new IllegalArgumentException("Unsupported run summary version " + result.getValue("version") + " of " + path);
+        }
+        return result;
+    }
+
+    /**
+     * Warn about settings that differ, which make the runs less comparable.
+     */
+    private static void logDifferences(String scope, JsonObject baseline, JsonObject candidate) {
+        for (String each : baseline.fieldNames()) {
+            if (!Objects.equals(baseline.getValue(each), candidate.getValue(each))) {
+                LOGGER.warn("Different {} {}: baseline={}\tcandidate={}", scope, each, baseline.getValue(each), candidate.getValue(each));
+            }
+        }
+    }
+
+    /**
+     * Get a metric of every report interval.
+     *
+     * @param transactionType type of a per type metric, or null for a metric of the whole interval
+     */
+    private static double[] samples(JsonObject summary, String metric, TPCCTransaction transactionType) {
+        JsonArray intervals = summary.getJsonArray("intervals");
+        double[] result = new double[intervals.size()];
+        int count = 0;
+        for (int i = 0; i < intervals.size(); i++) {
+            JsonObject interval = intervals.getJsonObject(i);
+            Double value = null == transactionType ? interval.getDouble(metric) : interval.getJsonObject(metric).getDouble(transactionType.name());
+            if (null != value) {
+                result[count++] = value;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Compare a metric by its intervals, or by the values of the whole runs if there are not enough intervals to estimate the variation.
+     *
+     * @param higherIsBetter whether a higher value is an improvement
+     * @param maxRegression largest tolerated change for the worse in percent of the baseline
+     * @return whether the metric did not regress
+     */
+    private static boolean compareMetric(String name, double[] baselineSamples, double baselineValue, double[] candidateSamples, double candidateValue,
+                                         boolean higherIsBetter, double maxRegression, double confidence) {
+        if (baselineSamples.length < 2 || candidateSamples.length < 2) {
+            double change = percent(candidateValue - baselineValue, baselineValue);
+            boolean regression = (higherIsBetter ? -change : change) > maxRegression;
+            LOGGER.info("{}\tbaseline={}\tcandidate={}\tchange={}%\tCI=N/A (intervals {}/{})\t{}", name, baselineValue, candidateValue, round(change),
+                    baselineSamples.length, candidateSamples.length, regression ? "REGRESSION" : "OK");
+            return !regression;
+        }
+        double baselineMean = mean(baselineSamples);
+        double candidateMean = mean(candidateSamples);
+        double baselineError = variance(baselineSamples, baselineMean) / baselineSamples.length;
+        double candidateError = variance(candidateSamples, candidateMean) / candidateSamples.length;
+        double standardError = Math.sqrt(baselineError + candidateError);
+        double difference = candidateMean - baselineMean;
+        double margin = 0;
+        if (standardError > 0) {
+            double degreesOfFreedom = Math.pow(baselineError + candidateError, 2)
+                    / (baselineError * baselineError / (baselineSamples.length - 1) + candidateError * candidateError / (candidateSamples.length - 1));
+            margin = studentTQuantile(1 - (1 - confidence) / 2, degreesOfFreedom) * standardError;
+        }
+        double change = percent(difference, baselineMean);
+        boolean significant = difference - margin > 0 || difference + margin < 0;
+        boolean regression = significant && (higherIsBetter ? -change : change) > maxRegression;
+        LOGGER.info("{}\tbaseline={}\tcandidate={}\tchange={}%\tCI=[{}%, {}%]\t{}", name, round(baselineMean), round(candidateMean), round(change),
+                round(percent(difference - margin, baselineMean)), round(percent(difference + margin, baselineMean)), regression ? "REGRESSION" : significant ? "OK" : "OK (not significant)");
+        return !regression;
+    }
+
+    private static double mean(double[] samples) {
+        double result = 0;
+        for (double each : samples) {
+            result += each;
+        }
+        return result / samples.length;
+    }
+
+    private static double variance(double[] samples, double mean) {
+        double result = 0;
+        for (double each : samples) {
+            result += (each - mean) * (each - mean);
+        }
+        return result / (samples.length - 1);
+    }
+
+    private static double percent(double difference, double baseline) {
+        return 0 == baseline ? 0 == difference ? 0 : Math.copySign(Double.POSITIVE_INFINITY, difference) : difference / baseline * 100;
+    }
+
+    /**
+     * Cornish-Fisher expansion of the quantile of the Student's t distribution in terms of the normal quantile,
+     * accurate to about 1% from 3 degrees of freedom.
+     */
+    static double studentTQuantile(double p, double degreesOfFreedom) {
+        double z = normalQuantile(p);
+        double z2 = z * z;
+        double g1 = z * (z2 + 1) / 4;
+        double g2 = z * ((5 * z2 + 16) * z2 + 3) / 96;
+        double g3 = z * (((3 * z2 + 19) * z2 + 17) * z2 - 15) / 384;
+        double g4 = z * ((((79 * z2 + 776) * z2 + 1482) * z2 - 1920) * z2 - 945) / 92160;
+        double n = degreesOfFreedom;
+        return z + g1 / n + g2 / (n * n) + g3 / (n * n * n) + g4 / (n * n * n * n);
+    }
+
+    /**
+     * Acklam's rational approximation of the quantile of the standard normal distribution, with a relative error below 1.15e-9.
+     */
+    static double normalQuantile(double p) {
+        double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02, 1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02, 6.680131188771972e+01, -1.328068155288572e+01};
+        double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00, -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00, 3.754408661907416e+00};
+        double low = 0.02425;
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5]) / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - low) {
+            return -normalQuantile(1 - p);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,151 @@
+package icu.wwj.benchmark.tpcc;
+
+import icu.wwj.benchmark.tpcc.config.BenchmarkConfiguration;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.sqlclient.Pool;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * {@link DatabaseSession}s shared by all terminals, each checked out for the length of one transaction.
+ * The number of terminals is therefore not limited by the number of connections.
+ *
+ * <p>Terminals waiting for a session are served in arrival order and resumed on their own context.
+ * The time spent waiting is recorded as a latency component of its own.</p>
+ */
+public final class SessionPool {
+    
+    private final List<DatabaseSession> sessions = new ArrayList<>();
+    
+    private final Queue<DatabaseSession> idleSessions = new ArrayDeque<>();
+    
+    private final Queue<Waiter> waiters = new ArrayDeque<>();
+    
+    /**
+     * Wait time in microseconds recorded by terminals.
+     */
+    private final Recorder waitTimeRecorder = new Recorder(3);
+    
+    private final Histogram totalWaitTimes = new Histogram(3);
+    
+    private SessionPool() {
+    }
+    
+    /**
+     * Open {@code sessionPoolSize} sessions with connections of the pool.
+     */
+    public static Future<SessionPool> open(BenchmarkConfiguration configuration, jTPCCRandom random, Pool pool, ResultReporter resultReporter) {
+        SessionPool result = new SessionPool();
+        List<Future> futures = new ArrayList<>(configuration.getSessionPoolSize());
+        for (int i = 0; i < configuration.getSessionPoolSize(); i++) {
+            futures.add(pool.getConnection().map(connection -> {
+                DatabaseSession session = new DatabaseSession(configuration, random.newRandom(), connection, resultReporter.newStatementTimer());
+                synchronized (result) {
+                    result.sessions.add(session);
+                    result.idleSessions.add(session);
+                }
+                return session;
+            }));
+        }
+        return CompositeFuture.all(futures).map(result).recover(cause -> result.close().transform(__ -> Future.failedFuture(cause)));
+    }
+    
+    /**
+     * Check out a session, which must be released once the transaction finished.
+     *
+     * @param context context of the terminal, on which the returned future is completed
+     */
+    Future<DatabaseSession> acquire(Context context) {
+        Waiter waiter;
+        synchronized (this) {
+            DatabaseSession session = idleSessions.poll();
+            if (null != session) {
+                waitTimeRecorder.recordValue(0);
+                return Future.succeededFuture(session);
+            }
+            waiter = new Waiter(context);
+            waiters.add(waiter);
+        }
+        return waiter.promise.future();
+    }
+    
+    void release(DatabaseSession session) {
+        Waiter waiter;
+        synchronized (this) {
+            waiter = waiters.poll();
+            if (null == waiter) {
+                idleSessions.add(session);
+                return;
+            }
+        }
+        waitTimeRecorder.recordValue((System.nanoTime() - waiter.waitStartNanoTime) / 1000);
+        waiter.context.runOnContext(__ -> waiter.promise.complete(session));
+    }
+    
+    public synchronized int getIdleSessions() {
+        return idleSessions.size();
+    }
+    
+    public synchronized int getWaiters() {
+        return waiters.size();
+    }
+    
+    /**
+     * Get wait times in microseconds recorded since the previous call.
+     *
+     * @return histogram of the current interval
+     */
+    public synchronized Histogram collectIntervalWaitTimes() {
+        Histogram result = waitTimeRecorder.getIntervalHistogram();
+        totalWaitTimes.add(result);
+        return result;
+    }
+    
+    /**
+     * Get all wait times in microseconds collected so far.
+     *
+     * @return histogram of the whole run
+     */
+    public synchronized Histogram getTotalWaitTimes() {
+        return totalWaitTimes.copy();
+    }
+    
+    /**
+     * Discard wait times recorded so far, e.g. during the warmup.
+     */
+    public synchronized void resetTotalWaitTimes() {
+        waitTimeRecorder.reset();
+        totalWaitTimes.reset();
+    }
+    
+    public Future<Void> close() {
+        List<Future> futures = new ArrayList<>();
+        synchronized (this) {
+            for (DatabaseSession each : sessions) {
+                futures.add(each.getConnection().close());
+            }
+        }
+        return CompositeFuture.join(futures).mapEmpty();
+    }
+    
+    private static final class Waiter {
+        
+        private final Context context;
+        
+        private final Promise<DatabaseSession> promise = Promise.promise();
+        
+        private final long waitStartNanoTime = System.nanoTime();
+        
+        private Waiter(Context context) {
+            this.context = context;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package icu.wwj.benchmark.tpcc;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the slowest transactions of every type per reporting interval, with their inputs and statement timelines.
+ *
+ * <p>A transaction is only offered once it is slower than the fastest transaction kept for its type in the current interval,
+ * so the fast path is a single comparison once the interval has filled up.</p>
+ */
+public final class SlowTransactionTracker {
+
+    private static final int TRANSACTION_TYPES = TPCCTransaction.values().length;
+
+    private static final Comparator<SlowTransaction> BY_LATENCY = Comparator.comparingLong(SlowTransaction::getLatencyNanos);
+
+    private final int capacity;
+
+    /**
+     * Latency a transaction has to exceed to be kept in the current interval, indexed by {@link TPCCTransaction#ordinal()}.
+     */
+    private final AtomicLongArray thresholdNanos = new AtomicLongArray(TRANSACTION_TYPES);
+
+    private final List<PriorityQueue<SlowTransaction>> intervalSlowest = new ArrayList<>(TRANSACTION_TYPES);
+
+    private final List<PriorityQueue<SlowTransaction>> totalSlowest = new ArrayList<>(TRANSACTION_TYPES);
+
+    /**
+     * @param capacity transactions kept per type and interval
+     */
+    public SlowTransactionTracker(int capacity) {
+        this.capacity = capacity;
+        for (int i = 0; i < TRANSACTION_TYPES; i++) {
+            intervalSlowest.add(new PriorityQueue<>(capacity + 1, BY_LATENCY));
+            totalSlowest.add(new PriorityQueue<>(capacity + 1, BY_LATENCY));
+        }
+    }
+
+    boolean isSlow(TPCCTransaction transactionType, long latencyNanos) {
+        return latencyNanos > thresholdNanos.get(transactionType.ordinal());
+    }
+
+    synchronized void offer(SlowTransaction transaction) {
+        PriorityQueue<SlowTransaction> slowest = intervalSlowest.get(transaction.getTransactionType().ordinal());
+        if (!keep(slowest, transaction)) {
+            return;
+        }
+        if (slowest.size() == capacity) {
+            thresholdNanos.set(transaction.getTransactionType().ordinal(), slowest.peek().getLatencyNanos());
+        }
+    }
+
+    private boolean keep(PriorityQueue<SlowTransaction> slowest, SlowTransaction transaction) {
+        if (slowest.size() < capacity) {
+            slowest.add(transaction);
+            return true;
+        }
+        if (transaction.getLatencyNanos() <= slowest.peek().getLatencyNanos()) {
+            return false;
+        }
+        slowest.poll();
+        slowest.add(transaction);
+        return true;
+    }
+
+    /**
+     * Take the slowest transactions of the current interval and start the next one.
+     *
+     * @return slowest transactions of all types, the slowest first within each type
+     */
+    public synchronized List<SlowTransaction> collectInterval() {
+        List<SlowTransaction> result = new ArrayList<>();
+        for (int i = 0; i < TRANSACTION_TYPES; i++) {
+            PriorityQueue<SlowTransaction> slowest = intervalSlowest.get(i);
+            List<SlowTransaction> sorted = new ArrayList<>(slowest);
+            sorted.sort(BY_LATENCY.reversed());
+            result.addAll(sorted);
+            for (SlowTransaction each : sorted) {
+                keep(totalSlowest.get(i), each);
+            }
+            slowest.clear();
+            thresholdNanos.set(i, 0L);
+        }
+        return result;
+    }
+
+    /**
+     * Discard the slowest transactions of the intervals collected so far, e.g. during the warmup.
+     */
+    public synchronized void resetTotalSlowest() {
+        totalSlowest.forEach(PriorityQueue::clear);
+    }
+
+    /**
+     * Get the slowest transactions of the intervals collected so far.
+     *
+     * @return slowest transactions of all types, the slowest first within each type
+     */
+    public synchronized List<SlowTransaction> getTotalSlowest() {
+        List<SlowTransaction> result = new ArrayList<>();
+        for (PriorityQueue<SlowTransaction> each : totalSlowest) {
+            List<SlowTransaction> sorted = new ArrayList<>(each);
+            sorted.sort(BY_LATENCY.reversed());
+            result.addAll(sorted);
+        }
+        return result;
+    }
+
+    /**
+     * A slow transaction with the statements it executed, in the order they were sent.
+     */
+    public static final class SlowTransaction {
+
+        private final TPCCTransaction transactionType;
+
+        private final long finishNanoTime;
+
+        private final long latencyNanos;
+
+        private final long waitNanos;
+
+        private final Object input;
+
+        private final String[] statementNames;
+
+        private final long[] statementStartNanos;
+
+        private final long[] statementNanos;
+
+        /**
+         * @param waitNanos time between the start of the response time and the start of the execution
+         * @param statementStartNanos start of every statement relative to the start of the execution
+         * @param statementNanos latency of every statement, or -1 if it never completed
+         */
+        SlowTransaction(TPCCTransaction transactionType, long finishNanoTime, long latencyNanos, long waitNanos, Object input,
+                        String[] statementNames, long[] statementStartNanos, long[] statementNanos) {
+            this.transactionType = transactionType;
+            this.finishNanoTime = finishNanoTime;
+            this.latencyNanos = latencyNanos;
+            this.waitNanos = waitNanos;
+            this.input = input;
+            this.statementNames = statementNames;
+            this.statementStartNanos = statementStartNanos;
+            this.statementNanos = statementNanos;
+        }
+
+        public TPCCTransaction getTransactionType() {
+            return transactionType;
+        }
+
+        public long getLatencyNanos() {
+            return latencyNanos;
+        }
+
+        /**
+         * Get the index of the statement with the highest latency.
+         *
+         * @return index, or -1 if no statement was executed
+         */
+        public int getSlowestStatement() {
+            int result = -1;
+            for (int i = 0; i < statementNanos.length; i++) {
+                if (-1 == result || statementNanos[i] > statementNanos[result]) {
+                    result = i;
+                }
+            }
+            return result;
+        }
+
+        public String getStatementName(int index) {
+            return statementNames[index];
+        }
+
+        public long getStatementNanos(int index) {
+            return statementNanos[index];
+        }
+
+        /**
+         * Append a summary line, followed by a line per statement with its start offset and latency in milliseconds.
+         *
+         * @param measurementStartNanoTime start of the measurement to print the finish time relative to, like elapsed times in the result file
+         */
+        public void format(StringBuilder result, long measurementStartNanoTime) {
+            result.append(transactionType).append("\tfinished=").append(toMillis(finishNanoTime - measurementStartNanoTime))
+                    .append("ms\tlatency=").append(toMillis(latencyNanos)).append("ms\twait=").append(toMillis(waitNanos))
+                    .append("ms\tstatements=").append(statementNames.length).append('\t').append(input).append('\n');
+            for (int i = 0; i < statementNames.length; i++) {
+                result.append("\t+").append(toMillis(statementStartNanos[i])).append("ms\t")
+                        .append(-1 == statementNanos[i] ? "incomplete" : toMillis(statementNanos[i]) + "ms").append('\t').append(statementNames[i]).append('\n');
+            }
+        }
+
+        private static double toMillis(long nanos) {
+            return nanos / 1000 / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package icu.wwj.benchmark.tpcc;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies of the statements executed by all {@link StatementTimer}s, and the split of transaction execution times
+ * into time spent waiting for the database and time spent in the client between statements.
+ */
+public final class StatementMetrics {
+
+    private static final int TRANSACTION_TYPES = TPCCTransaction.values().length;
+
+    private final Map<String, Statement> statements = new ConcurrentHashMap<>();
+
+    /**
+     * Time with at least one statement in flight in microseconds, indexed by {@link TPCCTransaction#ordinal()}.
+     */
+    private final Recorder[] databaseTimeRecorders = new Recorder[TRANSACTION_TYPES];
+
+    /**
+     * Rest of the execution time in microseconds, indexed by {@link TPCCTransaction#ordinal()}.
+     */
+    private final Recorder[] clientTimeRecorders = new Recorder[TRANSACTION_TYPES];
+
+    private final Histogram[] totalDatabaseTimes = new Histogram[TRANSACTION_TYPES];
+
+    private final Histogram[] totalClientTimes = new Histogram[TRANSACTION_TYPES];
+
+    public StatementMetrics() {
+        for (int i = 0; i < TRANSACTION_TYPES; i++) {
+            databaseTimeRecorders[i] = new Recorder(3);
+            clientTimeRecorders[i] = new Recorder(3);
+            totalDatabaseTimes[i] = new Histogram(3);
+            totalClientTimes[i] = new Histogram(3);
+        }
+    }
+
+    /**
+     * Get the statement of the name, shared by the statement timers of all connections.
+     */
+    Statement getStatement(String name) {
+        return statements.computeIfAbsent(name, Statement::new);
+    }
+
+    void recordTransaction(TPCCTransaction transactionType, long databaseNanos, long clientNanos) {
+        databaseTimeRecorders[transactionType.ordinal()].recordValue(databaseNanos / 1000);
+        clientTimeRecorders[transactionType.ordinal()].recordValue(Math.max(0L, clientNanos) / 1000);
+    }
+
+    /**
+     * Get database and client times in microseconds of all transactions finished so far.
+     *
+     * @return database times followed by client times, indexed by {@link TPCCTransaction#ordinal()}
+     */
+    public synchronized Histogram[][] getTotalTransactionTimes() {
+        Histogram[][] result = new Histogram[2][TRANSACTION_TYPES];
+        for (int i = 0; i < TRANSACTION_TYPES; i++) {
+            totalDatabaseTimes[i].add(databaseTimeRecorders[i].getIntervalHistogram());
+            totalClientTimes[i].add(clientTimeRecorders[i].getIntervalHistogram());
+            result[0][i] = totalDatabaseTimes[i].copy();
+            result[1][i] = totalClientTimes[i].copy();
+        }
+        return result;
+    }
+
+    /**
+     * Get all statements executed so far, the most time consuming first.
+     */
+    public synchronized List<Statement> getTotalStatements() {
+        List<Statement> result = new ArrayList<>();
+        for (Statement each : statements.values()) {
+            each.totalLatencies.add(each.latencyRecorder.getIntervalHistogram());
+            if (each.totalLatencies.getTotalCount() > 0) {
+                result.add(each);
+            }
+        }
+        result.sort(Comparator.comparingDouble(Statement::getTotalMicros).reversed());
+        return result;
+    }
+
+    /**
+     * Discard statement latencies and transaction times recorded so far, e.g. during the warmup.
+     */
+    public synchronized void resetTotals() {
+        for (int i = 0; i < TRANSACTION_TYPES; i++) {
+            databaseTimeRecorders[i].reset();
+            clientTimeRecorders[i].reset();
+            totalDatabaseTimes[i].reset();
+            totalClientTimes[i].reset();
+        }
+        for (Statement each : statements.values()) {
+            each.latencyRecorder.reset();
+            each.totalLatencies.reset();
+            each.failures.reset();
+        }
+    }
+
+    /**
+     * A named statement, e.g. a prepared query of an executor.
+     */
+    public static final class Statement {
+
+        private final String name;
+
+        /**
+         * Latency in microseconds.
+         */
+        private final Recorder latencyRecorder = new Recorder(3);
+
+        private final Histogram totalLatencies = new Histogram(3);
+
+        /**
+         * Bits of the {@link TPCCTransaction#ordinal()}s of the transactions which executed the statement.
+         */
+        private final AtomicInteger transactionTypes = new AtomicInteger();
+
+        private final LongAdder failures = new LongAdder();
+
+        private Statement(String name) {
+            this.name = name;
+        }
+
+        void record(TPCCTransaction transactionType, long latencyNanos, boolean succeeded) {
+            latencyRecorder.recordValue(latencyNanos / 1000);
+            if (!succeeded) {
+                failures.increment();
+            }
+            int bit = 1 << transactionType.ordinal();
+            if (0 == (transactionTypes.get() & bit)) {
+                transactionTypes.getAndUpdate(each -> each | bit);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get latencies in microseconds collected by {@link #getTotalStatements()}.
+         */
+        public Histogram getTotalLatencies() {
+            return totalLatencies;
+        }
+
+        public double getTotalMicros() {
+            return totalLatencies.getMean() * totalLatencies.getTotalCount();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        /**
+         * Whether the statement was executed by a transaction of the type.
+         */
+        public boolean isExecutedBy(TPCCTransaction transactionType) {
+            return 0 != (transactionTypes.get() & 1 << transactionType.ordinal());
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package icu.wwj.benchmark.tpcc;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.sqlclient.PreparedQuery;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.SqlResult;
+import io.vertx.sqlclient.Transaction;
+import io.vertx.sqlclient.Tuple;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * Times the statements of one connection, which runs one transaction at a time.
+ *
+ * <p>Prepared queries of the executors, BEGIN, COMMIT and ROLLBACK are recorded to the {@link StatementMetrics}.
+ * The statements of the transaction in flight are also kept as a timeline in reused arrays, which is copied
+ * only when the {@link SlowTransactionTracker} keeps the transaction.
+ * The time of a transaction with at least one statement in flight is its database time, pipelined statements overlapping each other are counted once.
+ * The rest of its execution time is spent in the client, e.g. decoding rows and scheduling continuations.</p>
+ */
+public final class StatementTimer {
+
+    private static final int MAX_TIMELINE_SIZE = 256;
+
+    private final StatementMetrics metrics;
+
+    private final SlowTransactionTracker slowTransactionTracker;
+
+    private final StatementMetrics.Statement[] beginStatements;
+
+    private final StatementMetrics.Statement[] commitStatements;
+
+    private final StatementMetrics.Statement[] rollbackStatements;
+
+    private TPCCTransaction transactionType;
+
+    private long transactionStartNanoTime;
+
+    private int inFlight;
+
+    private long busyStartNanoTime;
+
+    private long busyNanos;
+
+    private String[] timelineNames = new String[32];
+
+    private long[] timelineStartNanos = new long[32];
+
+    private long[] timelineNanos = new long[32];
+
+    private int timelineSize;
+
+    /**
+     * @param metrics metrics to record to, or null
+     * @param slowTransactionTracker tracker of the slowest transactions, or null. Statements are untimed if both are null
+     */
+    public StatementTimer(StatementMetrics metrics, SlowTransactionTracker slowTransactionTracker) {
+        this.metrics = metrics;
+        this.slowTransactionTracker = slowTransactionTracker;
+        TPCCTransaction[] transactionTypes = TPCCTransaction.values();
+        beginStatements = new StatementMetrics.Statement[transactionTypes.length];
+        commitStatements = new StatementMetrics.Statement[transactionTypes.length];
+        rollbackStatements = new StatementMetrics.Statement[transactionTypes.length];
+        if (null == metrics) {
+            return;
+        }
+        for (TPCCTransaction each : transactionTypes) {
+            beginStatements[each.ordinal()] = metrics.getStatement(each + " BEGIN");
+            commitStatements[each.ordinal()] = metrics.getStatement(each + " COMMIT");
+            rollbackStatements[each.ordinal()] = metrics.getStatement(each + " ROLLBACK");
+        }
+    }
+
+    /**
+     * Time the prepared query as the statement of the name.
+     *
+     * @param name name of the statement, e.g. the field holding the query
+     */
+    public PreparedQuery<RowSet<Row>> prepare(String name, PreparedQuery<RowSet<Row>> query) {
+        return isEnabled() ? new TimedPreparedQuery(name, null == metrics ? null : metrics.getStatement(name), query) : query;
+    }
+
+    public boolean isEnabled() {
+        return null != metrics || null != slowTransactionTracker;
+    }
+
+    /**
+     * Start timing a transaction, including all of its attempts.
+     */
+    void start(TPCCTransaction transactionType) {
+        this.transactionType = transactionType;
+        transactionStartNanoTime = System.nanoTime();
+        busyNanos = 0;
+        timelineSize = 0;
+    }
+
+    /**
+     * Finish timing the transaction, record its database and client times and offer it to the slow transaction tracker.
+     *
+     * @param responseStartNanoTime start of the response time of the transaction
+     * @param input input of the transaction
+     * @return database time in nanoseconds, or -1 if statements are untimed
+     */
+    long finish(long responseStartNanoTime, Object input) {
+        if (!isEnabled()) {
+            return -1L;
+        }
+        long finishNanoTime = System.nanoTime();
+        if (null != metrics) {
+            metrics.recordTransaction(transactionType, busyNanos, finishNanoTime - transactionStartNanoTime - busyNanos);
+        }
+        long latencyNanos = finishNanoTime - responseStartNanoTime;
+        if (null != slowTransactionTracker && slowTransactionTracker.isSlow(transactionType, latencyNanos)) {
+            slowTransactionTracker.offer(new SlowTransactionTracker.SlowTransaction(transactionType, finishNanoTime, latencyNanos, transactionStartNanoTime - responseStartNanoTime, input,
+                    Arrays.copyOf(timelineNames, timelineSize), Arrays.copyOf(timelineStartNanos, timelineSize), Arrays.copyOf(timelineNanos, timelineSize)));
+        }
+        return busyNanos;
+    }
+
+    /**
+     * Begin a transaction, timing BEGIN and the COMMIT or ROLLBACK which ends it.
+     */
+    Future<Transaction> begin(SqlConnection connection) {
+        if (!isEnabled()) {
+            return connection.begin();
+        }
+        return time("BEGIN", beginStatements[transactionType.ordinal()], connection::begin).map(TimedTransaction::new);
+    }
+
+    private <T> Future<T> time(String name, StatementMetrics.Statement statement, Supplier<Future<T>> execution) {
+        long startNanoTime = System.nanoTime();
+        if (0 == inFlight++) {
+            busyStartNanoTime = startNanoTime;
+        }
+        int timelineIndex = null == slowTransactionTracker ? -1 : addToTimeline(name, startNanoTime);
+        return execution.get().andThen(result -> {
+            long finishNanoTime = System.nanoTime();
+            if (0 == --inFlight) {
+                busyNanos += finishNanoTime - busyStartNanoTime;
+            }
+            if (null != statement) {
+                statement.record(transactionType, finishNanoTime - startNanoTime, result.succeeded());
+            }
+            if (timelineIndex >= 0) {
+                timelineNanos[timelineIndex] = finishNanoTime - startNanoTime;
+            }
+        });
+    }
+
+    private int addToTimeline(String name, long startNanoTime) {
+        if (timelineSize == timelineNames.length) {
+            if (timelineSize == MAX_TIMELINE_SIZE) {
+                return -1;
+            }
+            timelineNames = Arrays.copyOf(timelineNames, timelineSize * 2);
+            timelineStartNanos = Arrays.copyOf(timelineStartNanos, timelineSize * 2);
+            timelineNanos = Arrays.copyOf(timelineNanos, timelineSize * 2);
+        }
+        timelineNames[timelineSize] = name;
+        timelineStartNanos[timelineSize] = startNanoTime - transactionStartNanoTime;
+        timelineNanos[timelineSize] = -1L;
+        return timelineSize++;
+    }
+
+    private final class TimedPreparedQuery implements PreparedQuery<RowSet<Row>> {
+
+        private final String name;
+
+        private final StatementMetrics.Statement statement;
+
+        private final PreparedQuery<RowSet<Row>> delegate;
+
+        private TimedPreparedQuery(String name, StatementMetrics.Statement statement, PreparedQuery<RowSet<Row>> delegate) {
+            this.name = name;
+            this.statement = statement;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Future<RowSet<Row>> execute(Tuple tuple) {
+            return time(name, statement, () -> delegate.execute(tuple));
+        }
+
+        @Override
+        public void execute(Tuple tuple, Handler<AsyncResult<RowSet<Row>>> handler) {
+            execute(tuple).onComplete(handler);
+        }
+
+        @Override
+        public Future<RowSet<Row>> execute() {
+            return time(name, statement, () -> delegate.execute());
+        }
+
+        @Override
+        public void execute(Handler<AsyncResult<RowSet<Row>>> handler) {
+            execute().onComplete(handler);
+        }
+
+        @Override
+        public Future<RowSet<Row>> executeBatch(List<Tuple> batch) {
+            return time(name, statement, () -> delegate.executeBatch(batch));
+        }
+
+        @Override
+        public void executeBatch(List<Tuple> batch, Handler<AsyncResult<RowSet<Row>>> handler) {
+            executeBatch(batch).onComplete(handler);
+        }
+
+        @Override
+        public <R> PreparedQuery<SqlResult<R>> collecting(Collector<Row, ?, R> collector) {
+            return delegate.collecting(collector);
+        }
+
+        @Override
+        public <U> PreparedQuery<RowSet<U>> mapping(Function<Row, U> mapper) {
+            return delegate.mapping(mapper);
+        }
+    }
+
+    private final class TimedTransaction implements Transaction {
+
+        private final Transaction delegate;
+
+        private TimedTransaction(Transaction delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Future<Void> commit() {
+            return time("COMMIT", commitStatements[transactionType.ordinal()], () -> delegate.commit());
+        }
+
+        @Override
+        public void commit(Handler<AsyncResult<Void>> handler) {
+            commit().onComplete(handler);
+        }
+
+        @Override
+        public Future<Void> rollback() {
+            return time("ROLLBACK", rollbackStatements[transactionType.ordinal()], () -> delegate.rollback());
+        }
+
+        @Override
+        public void rollback(Handler<AsyncResult<Void>> handler) {
+            rollback().onComplete(handler);
+        }
+
+        @Override
+        public void completion(Handler<AsyncResult<Void>> handler) {
+            delegate.completion(handler);
+        }
+
+        @Override
+        public Future<Void> completion() {
+            return delegate.completion();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package icu.wwj.benchmark.tpcc;
+
+/**
+ * Detects the end of the warmup from the throughput of consecutive samples.
+ *
+ * <p>Throughput is steady once the coefficient of variation (standard deviation divided by the mean) of the latest samples
+ * is at most the configured maximum, e.g. after caches are warm and connections are established.</p>
+ */
+public final class SteadyStateDetector {
+
+    private final double[] samples;
+
+    private final double maxCoefficientOfVariation;
+
+    private int size;
+
+    private int next;
+
+    /**
+     * @param samples number of consecutive samples which have to be steady
+     * @param maxCoefficientOfVariation maximum standard deviation of the samples divided by their mean
+     */
+    public SteadyStateDetector(int samples, double maxCoefficientOfVariation) {
+        this.samples = new double[samples];
+        this.maxCoefficientOfVariation = maxCoefficientOfVariation;
+    }
+
+    /**
+     * Add the throughput of the latest sample.
+     *
+     * @return whether the throughput of the latest samples is steady
+     */
+    public boolean offer(double throughput) {
+        samples[next] = throughput;
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+        if (size < samples.length) {
+            return false;
+        }
+        double mean = getMean();
+        return mean > 0 && getStandardDeviation(mean) / mean <= maxCoefficientOfVariation;
+    }
+
+    public double getMean() {
+        double result = 0;
+        for (int i = 0; i < size; i++) {
+            result += samples[i];
+        }
+        return 0 == size ? 0 : result / size;
+    }
+
+    /**
+     * Get the coefficient of variation of the samples so far.
+     */
+    public double getCoefficientOfVariation() {
+        double mean = getMean();
+        return mean > 0 ? getStandardDeviation(mean) / mean : Double.NaN;
+    }
+
+    private double getStandardDeviation(double mean) {
+        double result = 0;
+        for (int i = 0; i < size; i++) {
+            result += (samples[i] - mean) * (samples[i] - mean);
+        }
+        return Math.sqrt(result / size);
+    }
+}
@@ -15,4 +15,9 @@ class StockLevel {
         this.d_id = d_id;
         this.threshold = threshold;
     }
+
+    @Override
+    public String toString() {
+        return "StockLevel{w_id=%d, d_id=%d, threshold=%d, low_stock=%d}".formatted(w_id, d_id, threshold, low_stock);
+    }
 }
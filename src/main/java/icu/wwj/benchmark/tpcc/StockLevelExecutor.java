@@ -9,7 +9,7 @@ import io.vertx.sqlclient.SqlConnection;
 import io.vertx.sqlclient.Transaction;
 import io.vertx.sqlclient.Tuple;
 
-public class StockLevelExecutor implements TransactionExecutor<Void> {
+public class StockLevelExecutor implements TransactionExecutor<StockLevel, Void> {
     
     private final BenchmarkConfiguration configuration;
 
@@ -17,10 +17,12 @@ public class StockLevelExecutor implements TransactionExecutor<Void> {
 
     private final PreparedQuery<RowSet<Row>> stmtStockLevelSelectLow;
 
-    public StockLevelExecutor(BenchmarkConfiguration configuration, jTPCCRandom random, SqlConnection connection) {
+    private final PreparedQuery<RowSet<Row>> stmtStockLevelProcedure;
+
+    public StockLevelExecutor(BenchmarkConfiguration configuration, jTPCCRandom random, SqlConnection connection, StatementTimer statementTimer) {
         this.configuration = configuration;
         this.random = random;
-        stmtStockLevelSelectLow = connection.preparedQuery(
+        stmtStockLevelSelectLow = statementTimer.prepare("stmtStockLevelSelectLow", connection.preparedQuery(
                 "SELECT count(*) AS low_stock FROM (" +
                         "    SELECT s_w_id, s_i_id, s_quantity " +
                         "        FROM bmsql_stock " +
@@ -33,13 +35,16 @@ public class StockLevelExecutor implements TransactionExecutor<Void> {
                         "                 AND ol_o_id < d_next_o_id " +
                         "                WHERE d_w_id = $3 AND d_id = $4 " +
                         "        ) " +
-                        "    ) AS L");
+                        "    ) AS L"));
+        stmtStockLevelProcedure = configuration.isStoredProcedures() ? statementTimer.prepare("stmtStockLevelProcedure", connection.preparedQuery("SELECT bmsql_proc_stock_level($1, $2, $3) AS low_stock")) : null;
     }
 
     @Override
-    public Future<Void> execute(Transaction transaction, final int warehouseId) {
-        StockLevel stockLevel = generateStockLevel();
-        return stmtStockLevelSelectLow.execute(Tuple.of(stockLevel.w_id, stockLevel.threshold, stockLevel.w_id, stockLevel.d_id)).compose(rows -> {
+    public Future<Void> execute(Transaction transaction, StockLevel stockLevel) {
+        Future<RowSet<Row>> future = null == stmtStockLevelProcedure
+                ? stmtStockLevelSelectLow.execute(Tuple.of(stockLevel.w_id, stockLevel.threshold, stockLevel.w_id, stockLevel.d_id))
+                : stmtStockLevelProcedure.execute(Tuple.of(stockLevel.w_id, stockLevel.d_id, stockLevel.threshold));
+        return future.compose(rows -> {
             if (0 == rows.size()) {
                 throw new IllegalStateException("Failed to get low-stock for W_ID=%d D_ID=%d".formatted(stockLevel.w_id, stockLevel.d_id));
             }
@@ -48,7 +53,9 @@ public class StockLevelExecutor implements TransactionExecutor<Void> {
         });
     }
 
-    private StockLevel generateStockLevel() {
-        return new StockLevel(random.nextInt(1, configuration.getWarehouses()), random.nextInt(1, 10), random.nextInt(10, 20));
+    @Override
+    public StockLevel generate(int warehouseId, int districtId) {
+        // 2.8.1.1: the warehouse is the home warehouse of the terminal, 2.8.1.2: the district is constant for a terminal when it is assigned one.
+        return new StockLevel(warehouseId, 0 == districtId ? random.nextInt(1, 10) : districtId, random.nextInt(10, 20));
     }
 }
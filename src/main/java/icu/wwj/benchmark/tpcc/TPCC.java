@@ -6,10 +6,14 @@ import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.VertxOptions;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
 import io.vertx.core.json.JsonObject;
 import io.vertx.sqlclient.Pool;
 import io.vertx.sqlclient.PoolOptions;
 import io.vertx.sqlclient.SqlConnectOptions;
+import org.HdrHistogram.Histogram;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,6 +22,9 @@ import java.io.IOException;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.LongSummaryStatistics;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -33,91 +40,580 @@ public final class TPCC {
     
     private final Pool pool;
     
+    private final jTPCCRandom random;
+    
     private final ResultReporter resultReporter;
     
     private final ResultFileWriter resultFileWriter;
     
+    private final PacingScheduler pacingScheduler;
+    
+    private final DeliveryQueue deliveryQueue;
+    
+    private final OpenLoopDispatcher openLoopDispatcher;
+    
+    private final DriverAgent agent;
+    
+    private final WarehouseAssignment warehouseAssignment;
+    
+    private final ConnectionPoolMetrics poolMetrics;
+    
+    private final SlowTransactionTracker slowTransactionTracker;
+    
+    private final AsyncFile slowTransactionFile;
+    
+    private final RunSummary runSummary;
+    
+    private final String summaryFilePath;
+    
+    private SessionPool sessionPool;
+    
+    private MetricsServer metricsServer;
+    
+    private String deliveryWorkerDeploymentId;
+    
     private LocalDateTime sessionStartLocalDateTime;
     
     private long sessionStartNanoTime;
     
+    private LocalDateTime measurementStartLocalDateTime;
+    
+    /**
+     * Whether transactions are excluded from the measurement.
+     */
+    private volatile boolean warmingUp;
+    
     private LocalDateTime sessionStopLocalDateTime;
     
     private long sessionStopNanoTime;
     
-    public TPCC(BenchmarkConfiguration configuration, Vertx vertx, Pool pool) {
+    public TPCC(BenchmarkConfiguration configuration, Vertx vertx, Pool pool, jTPCCRandom random) {
+        this(configuration, vertx, pool, random, null);
+    }
+    
+    /**
+     * @param agent agent of a coordinated run, or null to run standalone
+     */
+    public TPCC(BenchmarkConfiguration configuration, Vertx vertx, Pool pool, jTPCCRandom random, DriverAgent agent) {
         this.configuration = configuration;
         this.vertx = vertx;
         vertx.exceptionHandler(cause -> LOGGER.error("Unhandled exception", cause));
         this.pool = pool;
-        resultReporter = new ResultReporter(configuration.getTerminals());
-        resultFileWriter = new ResultFileWriter(vertx, "/tmp/tpcc_result_" + DateTimeFormatter.ofPattern("yyyyMMddHHmmss").format(LocalDateTime.now()) + ".csv");
+        this.random = random;
+        this.agent = agent;
+        poolMetrics = ConnectionPoolMetrics.of(vertx);
+        String timestamp = DateTimeFormatter.ofPattern("yyyyMMddHHmmss").format(LocalDateTime.now());
+        slowTransactionTracker = configuration.getSlowTransactions() > 0 ? new SlowTransactionTracker(configuration.getSlowTransactions()) : null;
+        slowTransactionFile = null == slowTransactionTracker ? null : vertx.fileSystem().openBlocking("/tmp/tpcc_slowest_" + timestamp + ".log", new OpenOptions());
+        runSummary = configuration.isRunSummary() ? new RunSummary(configuration) : null;
+        summaryFilePath = "/tmp/tpcc_summary_" + timestamp + ".json";
+        if (null != runSummary && 0 == configuration.getReportIntervalSeconds()) {
+            LOGGER.warn("Report interval is 0, the run summary has no intervals to compare runs with.");
+        }
+        resultReporter = new ResultReporter(configuration.getTerminals(), configuration.getDeliveryWorkers(), configuration.isStatementMetrics() ? new StatementMetrics() : null, slowTransactionTracker);
+        boolean binary = BenchmarkConfiguration.ResultFormat.BINARY == configuration.getResultFormat();
+        String resultFilePath = "/tmp/tpcc_result_" + timestamp + (binary ? ".bin" : ".csv");
+        ResultEncoder resultEncoder = binary ? new BinaryResultEncoder(configuration.isResultCompression()) : new CsvResultEncoder();
+        deliveryQueue = configuration.getDeliveryWorkers() > 0 ? new DeliveryQueue() : null;
+        openLoopDispatcher = configuration.getTargetTpm() > 0 ? new OpenLoopDispatcher(vertx, configuration, random.newRandom()) : null;
+        if (null != openLoopDispatcher && configuration.isKeyingAndThinkTimes()) {
+            LOGGER.warn("Keying and think times are ignored in open loop mode.");
+        }
+        warehouseAssignment = configuration.isTerminalWarehouseFixed() && BenchmarkConfiguration.TerminalAssignment.ROUND_ROBIN == configuration.getTerminalAssignment()
+                ? new WarehouseAssignment(configuration) : null;
+        pacingScheduler = null == openLoopDispatcher && configuration.isKeyingAndThinkTimes() ? new PacingScheduler(vertx, configuration.getPacingTimeScale()) : null;
+        resultFileWriter = new ResultFileWriter(vertx, resultFilePath, resultEncoder, configuration.getResultRingBufferSize(), configuration.getResultWriteQueueMaxSize());
     }
     
     public Future<Void> run() {
         LOGGER.info("Starting TPC-C.");
         AtomicInteger idGenerator = new AtomicInteger();
-        return vertx.deployVerticle(() -> new Terminal(configuration, idGenerator.incrementAndGet(), pool, resultReporter), new DeploymentOptions().setInstances(configuration.getTerminals()))
+        return installStoredProcedures()
+                .compose(__ -> openSessionPool())
+                .compose(__ -> startMetricsServer())
+                .compose(__ -> deployDeliveryWorkers())
+                .compose(__ -> vertx.deployVerticle(() -> new Terminal(configuration, idGenerator.incrementAndGet(), random.newRandom(), pool, sessionPool, resultReporter, resultFileWriter, pacingScheduler, deliveryQueue, openLoopDispatcher, warehouseAssignment),
+                        new DeploymentOptions().setInstances(configuration.getTerminals())))
+                .compose(deploymentId -> null == agent ? Future.succeededFuture(deploymentId) : agent.awaitStart().map(deploymentId))
                 .compose(this::onTerminalsReady)
                 .onFailure(cause -> LOGGER.error("Failed to start terminals, caused by:", cause))
                 .eventually(__ -> resultFileWriter.close());
     }
 
+    private Future<Void> installStoredProcedures() {
+        if (!configuration.isStoredProcedures()) {
+            return Future.succeededFuture();
+        }
+        LOGGER.info("Installing stored procedures.");
+        return pool.query(DataLoader.readScript("tpcc_procedures.sql")).execute().mapEmpty();
+    }
+
+    private Future<Void> openSessionPool() {
+        if (0 == configuration.getSessionPoolSize()) {
+            return Future.succeededFuture();
+        }
+        LOGGER.info("Opening {} sessions shared by {} terminals.", configuration.getSessionPoolSize(), configuration.getTerminals());
+        return SessionPool.open(configuration, random, pool, resultReporter).onSuccess(opened -> sessionPool = opened).mapEmpty();
+    }
+    
+    private Future<Void> closeSessionPool() {
+        return null == sessionPool ? Future.succeededFuture() : sessionPool.close();
+    }
+    
+    private Future<Void> startMetricsServer() {
+        if (0 == configuration.getMetricsPort()) {
+            return Future.succeededFuture();
+        }
+        metricsServer = new MetricsServer(vertx, configuration, pool, resultReporter, resultFileWriter, sessionPool, deliveryQueue, openLoopDispatcher);
+        return metricsServer.start();
+    }
+    
+    private Future<Void> closeMetricsServer() {
+        return null == metricsServer ? Future.succeededFuture() : metricsServer.close();
+    }
+    
+    private Future<Void> deployDeliveryWorkers() {
+        if (null == deliveryQueue) {
+            return Future.succeededFuture();
+        }
+        LOGGER.info("Starting {} delivery workers.", configuration.getDeliveryWorkers());
+        AtomicInteger idGenerator = new AtomicInteger();
+        return vertx.deployVerticle(() -> new DeliveryWorker(configuration, idGenerator.incrementAndGet(), random.newRandom(), pool, deliveryQueue, resultReporter, resultFileWriter),
+                new DeploymentOptions().setInstances(configuration.getDeliveryWorkers())).onSuccess(deploymentId -> deliveryWorkerDeploymentId = deploymentId).mapEmpty();
+    }
+    
+    private Future<Void> undeployDeliveryWorkers() {
+        if (null == deliveryWorkerDeploymentId) {
+            return Future.succeededFuture();
+        }
+        LOGGER.info("Stopping delivery workers, {} queued deliveries are discarded.", deliveryQueue.size());
+        return vertx.undeploy(deliveryWorkerDeploymentId);
+    }
+
     public Future<Void> onTerminalsReady(String deploymentId) {
+        if (null != warehouseAssignment) {
+            warehouseAssignment.assign();
+        }
         LOGGER.info("Starting terminals.");
         sessionStartLocalDateTime = LocalDateTime.now();
         sessionStartNanoTime = System.nanoTime();
         vertx.eventBus().publish("start", sessionStartNanoTime);
+        if (null != openLoopDispatcher) {
+            LOGGER.info("Open loop mode, target tpmTOTAL = {}, arrival distribution = {}", configuration.getTargetTpm(), configuration.getArrivalDistribution());
+            openLoopDispatcher.start(sessionStartNanoTime);
+        }
+        boolean detectSteadyState = configuration.getSteadyStateIntervals() > 0;
+        int maxWarmupSeconds = detectSteadyState ? Math.max(configuration.getWarmupSeconds(), configuration.getMaxWarmupSeconds()) : configuration.getWarmupSeconds();
+        // Until the warmup ends, elapsed times are relative to its latest possible end, so results of the warmup are negative.
+        resultReporter.setMeasurementStartNanoTime(sessionStartNanoTime + TimeUnit.SECONDS.toNanos(maxWarmupSeconds));
+        measurementStartLocalDateTime = sessionStartLocalDateTime;
+        warmingUp = maxWarmupSeconds > 0;
         Promise<Void> promise = Promise.promise();
         AtomicReference<Long> realtimeReporter = new AtomicReference<>();
         if (configuration.getReportIntervalSeconds() > 0) {
             realtimeReporter.set(vertx.setPeriodic(configuration.getReportIntervalSeconds() * 1000L, __ -> reportCurrentTPM()));
         }
+        if (!warmingUp) {
+            scheduleStop(deploymentId, realtimeReporter, promise);
+        } else if (detectSteadyState) {
+            LOGGER.info("Warming up for at least {}s until throughput is steady, at most {}s.", configuration.getWarmupSeconds(), maxWarmupSeconds);
+            vertx.setTimer(Math.max(1L, TimeUnit.SECONDS.toMillis(configuration.getWarmupSeconds())),
+                    __ -> awaitSteadyState(maxWarmupSeconds, () -> startMeasurement(deploymentId, realtimeReporter, promise)));
+        } else {
+            LOGGER.info("Warming up for {}s.", maxWarmupSeconds);
+            vertx.setTimer(TimeUnit.SECONDS.toMillis(maxWarmupSeconds), __ -> startMeasurement(deploymentId, realtimeReporter, promise));
+        }
+        return promise.future().compose(__ -> finalReport()).eventually(__ -> closeMetricsServer()).eventually(__ -> closeSlowTransactionFile());
+    }
+    
+    /**
+     * Sample throughput until the samples are steady or the warmup reaches its maximum, then start the measurement.
+     */
+    private void awaitSteadyState(int maxWarmupSeconds, Runnable startMeasurement) {
+        SteadyStateDetector detector = new SteadyStateDetector(configuration.getSteadyStateIntervals(), configuration.getSteadyStateMaxCv());
+        long[] previous = {System.nanoTime(), resultReporter.sumTotalCount()};
+        vertx.setPeriodic(TimeUnit.SECONDS.toMillis(Math.max(1, configuration.getReportIntervalSeconds())), timerId -> {
+            long currentNanoTime = System.nanoTime();
+            long totalCount = resultReporter.sumTotalCount();
+            boolean steady = detector.offer((totalCount - previous[1]) * 60_000_000_000.0 / (currentNanoTime - previous[0]));
+            previous[0] = currentNanoTime;
+            previous[1] = totalCount;
+            long warmupSeconds = TimeUnit.NANOSECONDS.toSeconds(currentNanoTime - sessionStartNanoTime);
+            if (!steady && warmupSeconds < maxWarmupSeconds) {
+                return;
+            }
+            vertx.cancelTimer(timerId);
+            if (steady) {
+                LOGGER.info("Throughput is steady after {}s, tpmTOTAL = {}, coefficient of variation = {}", warmupSeconds,
+                        Math.round(detector.getMean() * 100) / 100.0, Math.round(detector.getCoefficientOfVariation() * 10000) / 10000.0);
+            } else {
+                LOGGER.warn("Throughput is not steady after {}s, coefficient of variation = {}, measuring anyway.", warmupSeconds,
+                        Math.round(detector.getCoefficientOfVariation() * 10000) / 10000.0);
+            }
+            startMeasurement.run();
+        });
+    }
+    
+    /**
+     * End the warmup, discarding everything recorded so far except the result file, and stop terminals after the measurement.
+     */
+    private void startMeasurement(String deploymentId, AtomicReference<Long> realtimeReporter, Promise<Void> promise) {
+        long measurementStartNanoTime = System.nanoTime();
+        measurementStartLocalDateTime = LocalDateTime.now();
+        LOGGER.info("Warmup finished after {}s with {} transactions, measuring for {}s.", TimeUnit.NANOSECONDS.toSeconds(measurementStartNanoTime - sessionStartNanoTime),
+                resultReporter.sumTotalCount(), configuration.getRunSeconds());
+        resultReporter.startMeasurement(measurementStartNanoTime);
+        warmingUp = false;
+        if (null != deliveryQueue) {
+            deliveryQueue.collectIntervalQueueingTimes();
+            deliveryQueue.resetTotalQueueingTimes();
+        }
+        if (null != sessionPool) {
+            sessionPool.collectIntervalWaitTimes();
+            sessionPool.resetTotalWaitTimes();
+        }
+        if (null != poolMetrics) {
+            poolMetrics.resetTotals();
+        }
+        if (null != slowTransactionTracker) {
+            writeSlowTransactions(0L, slowTransactionTracker.collectInterval());
+            slowTransactionTracker.resetTotalSlowest();
+        }
+        scheduleStop(deploymentId, realtimeReporter, promise);
+    }
+    
+    private void scheduleStop(String deploymentId, AtomicReference<Long> realtimeReporter, Promise<Void> promise) {
         vertx.setTimer(TimeUnit.SECONDS.toMillis(configuration.getRunSeconds()), event -> {
             LOGGER.info("Stopping terminals.");
             if (null != realtimeReporter.get()) {
                 vertx.cancelTimer(realtimeReporter.get());
             }
-            vertx.undeploy(deploymentId).onSuccess(__ -> {
+            if (null != openLoopDispatcher) {
+                openLoopDispatcher.stop();
+            }
+            vertx.undeploy(deploymentId).compose(__ -> undeployDeliveryWorkers()).compose(__ -> closeSessionPool()).onSuccess(__ -> {
                 sessionStopNanoTime = System.nanoTime();
                 sessionStopLocalDateTime = LocalDateTime.now();
                 promise.complete();
             }).onFailure(cause -> LOGGER.error("Error occurred:", cause));
         });
-        return promise.future().onSuccess(__ -> finalReport());
     }
     
     private void reportCurrentTPM() {
+        boolean warmup = warmingUp;
         long currentNanoTime = System.nanoTime();
-        long elapsedNanoTime = (currentNanoTime - sessionStartNanoTime) / 1000000;
-        double tpmC = (double) (100 * 60 * 1000 * resultReporter.sumNewOrderCount() / elapsedNanoTime) / 100.0;
-        double tpmTotal = (double) (100 * 60 * 1000 * resultReporter.sumTotalCount() / elapsedNanoTime) / 100.0;
-        LOGGER.info("Current tpmTOTAL: {}\tCurrent tpmC: {}", tpmTotal, tpmC);
+        long elapsedNanoTime = (currentNanoTime - (warmup ? sessionStartNanoTime : resultReporter.getMeasurementStartNanoTime())) / 1000000;
+        TransactionCounters.Snapshot intervalCounters = resultReporter.collectIntervalCounters();
+        TransactionCounters.Snapshot totalCounters = resultReporter.sumCounters();
+        long newOrderCount = totalCounters.getNewOrders();
+        long totalCount = totalCounters.getTotal();
+        String scope = warmup ? "Warmup" : "Current";
+        LOGGER.info("{} tpmTOTAL: {}\t{} tpmC: {}\trollbacks={}\terrors={}\tretries={}\tAverage tpmTOTAL: {}\tAverage tpmC: {}", scope,
+                intervalCounters.perMinute(intervalCounters.getTotal()), scope, intervalCounters.perMinute(intervalCounters.getNewOrders()),
+                intervalCounters.sumTerminals(TransactionCounters.ROLLBACKS), intervalCounters.sum(TransactionCounters.FAILURES), intervalCounters.sum(TransactionCounters.RETRIES),
+                TransactionCounters.perMinute(totalCount, elapsedNanoTime * 1000000), TransactionCounters.perMinute(newOrderCount, elapsedNanoTime * 1000000));
+        if (null != openLoopDispatcher) {
+            LOGGER.info("Open loop backlog: {}\tmax backlog: {}", openLoopDispatcher.getBacklogSize(), openLoopDispatcher.getMaxBacklogSize());
+        }
+        Histogram[] intervalHistograms = resultReporter.collectIntervalHistograms();
+        logLatency("Interval", intervalHistograms);
+        logRetries(scope);
+        if (null != agent && !warmup) {
+            agent.reportInterval(intervalCounters, intervalHistograms);
+        }
+        if (null != runSummary && !warmup) {
+            runSummary.addInterval(elapsedNanoTime, intervalCounters, intervalHistograms);
+        }
+        if (null != deliveryQueue) {
+            logDeliveryQueueingTime("Interval", deliveryQueue.collectIntervalQueueingTimes());
+        }
+        if (null != sessionPool) {
+            logSessionWaitTime("Interval", sessionPool.collectIntervalWaitTimes());
+        }
+        if (null != poolMetrics) {
+            logIntervalPoolMetrics();
+        }
+        if (null != slowTransactionTracker) {
+            writeSlowTransactions((currentNanoTime - resultReporter.getMeasurementStartNanoTime()) / 1000000, slowTransactionTracker.collectInterval());
+        }
+        LOGGER.info("Result backlog: buffered={}\tpendingWriteBytes={}\twritten={}\tproducerStalls={}",
+                resultFileWriter.getBufferedResults(), resultFileWriter.getPendingWriteBytes(), resultFileWriter.getWrittenResults(), resultFileWriter.getProducerStalls());
     }
     
-    private void finalReport() {
-        long elapsedNanoTime = (sessionStopNanoTime - sessionStartNanoTime) / 1000000;
+    private Future<Void> finalReport() {
+        long elapsedNanoTime = (sessionStopNanoTime - resultReporter.getMeasurementStartNanoTime()) / 1000000;
         long newOrderCount = resultReporter.sumNewOrderCount();
         long totalCount = resultReporter.sumTotalCount();
         double tpmC = (double) (100 * 60 * 1000 * newOrderCount / elapsedNanoTime) / 100.0;
         double tpmTotal = (double) (100 * 60 * 1000 * totalCount / elapsedNanoTime) / 100.0;
         LOGGER.info("Measured tpmC (NewOrders) = {}", tpmC);
         LOGGER.info("Measured tpmTOTAL = {}", tpmTotal);
+        if (null != openLoopDispatcher) {
+            LOGGER.info("Target tpmTOTAL = {} (measured is {}% of target)", configuration.getTargetTpm(), Math.round(tpmTotal / configuration.getTargetTpm() * 10000) / 100.0);
+        }
+        if (null != pacingScheduler) {
+            double theoreticalMaxTpmC = pacingScheduler.theoreticalMaxTpmC(configuration);
+            LOGGER.info("Theoretical maximum tpmC = {} (measured is {}% of maximum)", Math.round(theoreticalMaxTpmC * 100) / 100.0, Math.round(tpmC / theoreticalMaxTpmC * 10000) / 100.0);
+        }
         LOGGER.info("Session Start     = {}", sessionStartLocalDateTime);
+        if (!measurementStartLocalDateTime.equals(sessionStartLocalDateTime)) {
+            LOGGER.info("Measurement Start = {}", measurementStartLocalDateTime);
+        }
         LOGGER.info("Session End       = {}", sessionStopLocalDateTime);
         LOGGER.info("Transaction Count = {}", totalCount);
         LOGGER.info("New Order Count   = {}", newOrderCount);
+        resultReporter.collectIntervalHistograms();
+        Histogram[] totalHistograms = resultReporter.getTotalHistograms();
+        logLatency("Total", totalHistograms);
+        logRetries("Total");
+        if (null != deliveryQueue) {
+            deliveryQueue.collectIntervalQueueingTimes();
+            logDeliveryQueueingTime("Total", deliveryQueue.getTotalQueueingTimes());
+        }
+        if (null != sessionPool) {
+            sessionPool.collectIntervalWaitTimes();
+            logSessionWaitTime("Total", sessionPool.getTotalWaitTimes());
+        }
+        if (null != poolMetrics) {
+            logTotalPoolMetrics();
+        }
+        if (null != resultReporter.getStatementMetrics()) {
+            logStatementMetrics(resultReporter.getStatementMetrics());
+        }
+        if (null != slowTransactionTracker) {
+            writeSlowTransactions(elapsedNanoTime, slowTransactionTracker.collectInterval());
+            logSlowTransactions();
+        }
+        reportResponseTimeConstraints(totalHistograms);
+        return writeRunSummary(elapsedNanoTime, totalHistograms)
+                .compose(__ -> null == agent ? Future.succeededFuture() : agent.reportFinish(elapsedNanoTime, newOrderCount, totalCount, totalHistograms));
+    }
+    
+    private Future<Void> writeRunSummary(long elapsedMillis, Histogram[] totalHistograms) {
+        if (null == runSummary) {
+            return Future.succeededFuture();
+        }
+        String summary = runSummary.toJson(measurementStartLocalDateTime, sessionStopLocalDateTime, elapsedMillis, resultReporter.sumCounters(), totalHistograms).encodePrettily();
+        return vertx.fileSystem().writeFile(summaryFilePath, Buffer.buffer(summary)).onSuccess(__ -> LOGGER.info("Run summary written to {}", summaryFilePath));
+    }
+    
+    static void logLatency(String scope, Histogram[] histograms) {
+        for (TPCCTransaction each : TPCCTransaction.values()) {
+            Histogram histogram = histograms[each.ordinal()];
+            if (0 == histogram.getTotalCount()) {
+                continue;
+            }
+            LOGGER.info("{} latency {}\tcount={}\tp50={}ms\tp90={}ms\tp99={}ms\tp99.9={}ms\tmax={}ms", scope, each, histogram.getTotalCount(),
+                    toMillis(histogram.getValueAtPercentile(50)), toMillis(histogram.getValueAtPercentile(90)),
+                    toMillis(histogram.getValueAtPercentile(99)), toMillis(histogram.getValueAtPercentile(99.9)), toMillis(histogram.getMaxValue()));
+        }
+    }
+    
+    /**
+     * Log retries, final failures and the time wasted in failed attempts and backoffs since the start of the session.
+     */
+    private void logRetries(String scope) {
+        for (TPCCTransaction each : TPCCTransaction.values()) {
+            long retries = resultReporter.sumRetryCounter(each, TransactionCounters.RETRIES);
+            long failures = resultReporter.sumRetryCounter(each, TransactionCounters.FAILURES);
+            if (0 == retries && 0 == failures) {
+                continue;
+            }
+            LOGGER.info("{} retries {}\tretries={}\tfailures={}\twasted={}ms", scope, each, retries, failures,
+                    toMillis(resultReporter.sumRetryCounter(each, TransactionCounters.WASTED_NANOS) / 1000));
+        }
+    }
+    
+    private void logDeliveryQueueingTime(String scope, Histogram histogram) {
+        LOGGER.info("{} delivery queueing time\tdepth={}\tcount={}\tp50={}ms\tp90={}ms\tmax={}ms", scope, deliveryQueue.size(), histogram.getTotalCount(),
+                toMillis(histogram.getValueAtPercentile(50)), toMillis(histogram.getValueAtPercentile(90)), toMillis(histogram.getMaxValue()));
+    }
+    
+    /**
+     * Time terminals waited for a shared session, which is part of their response times.
+     */
+    private void logSessionWaitTime(String scope, Histogram histogram) {
+        LOGGER.info("{} session wait time\tidle={}\twaiters={}\tcount={}\tp50={}ms\tp90={}ms\tp99={}ms\tmax={}ms", scope, sessionPool.getIdleSessions(), sessionPool.getWaiters(),
+                histogram.getTotalCount(), toMillis(histogram.getValueAtPercentile(50)), toMillis(histogram.getValueAtPercentile(90)),
+                toMillis(histogram.getValueAtPercentile(99)), toMillis(histogram.getMaxValue()));
+    }
+    
+    /**
+     * Time waited for a connection of the pool, the wait queue and the share of time open connections spent executing statements.
+     */
+    private void logIntervalPoolMetrics() {
+        Histogram acquisitionTimes = poolMetrics.collectIntervalAcquisitionTimes();
+        double[] occupancy = poolMetrics.collectIntervalOccupancy();
+        LOGGER.info("Interval pool\tconnections={}/{}\twaiting={}\tmaxWaiting={}\tacquired={}\tp50={}ms\tp99={}ms\tmax={}ms\tstatements={}\toccupancy={}%",
+                poolMetrics.getOpenConnections(), pool.size(), poolMetrics.getWaiting(), poolMetrics.collectIntervalMaxWaiting(), acquisitionTimes.getTotalCount(),
+                toMillis(acquisitionTimes.getValueAtPercentile(50)), toMillis(acquisitionTimes.getValueAtPercentile(99)), toMillis(acquisitionTimes.getMaxValue()),
+                (long) occupancy[0], Math.round(occupancy[1] * 10000) / 100.0);
+    }
+    
+    private void logTotalPoolMetrics() {
+        poolMetrics.collectIntervalAcquisitionTimes();
+        Histogram acquisitionTimes = poolMetrics.getTotalAcquisitionTimes();
+        LOGGER.info("Total pool acquisition time\tcount={}\tp50={}ms\tp90={}ms\tp99={}ms\tmax={}ms", acquisitionTimes.getTotalCount(),
+                toMillis(acquisitionTimes.getValueAtPercentile(50)), toMillis(acquisitionTimes.getValueAtPercentile(90)),
+                toMillis(acquisitionTimes.getValueAtPercentile(99)), toMillis(acquisitionTimes.getMaxValue()));
+        Histogram lifetimes = poolMetrics.getTotalLifetimes();
+        LOGGER.info("Total pool connections\topened={}\tclosed={}\tstatements={}\tclosed lifetime min={}s\tp50={}s\tmax={}s", poolMetrics.getOpenedConnections(), poolMetrics.getClosedConnections(),
+                poolMetrics.getStatements(), lifetimes.getMinValue() / 1000.0, lifetimes.getValueAtPercentile(50) / 1000.0, lifetimes.getMaxValue() / 1000.0);
+        LongSummaryStatistics transactionsPerConnection = poolMetrics.getTransactionsPerConnection();
+        if (transactionsPerConnection.getCount() > 0) {
+            LOGGER.info("Total transactions per connection\tconnections={}\tmin={}\tavg={}\tmax={}", transactionsPerConnection.getCount(), transactionsPerConnection.getMin(),
+                    Math.round(transactionsPerConnection.getAverage() * 100) / 100.0, transactionsPerConnection.getMax());
+        }
+    }
+    
+    /**
+     * Split execution times into database and client time, then log statements by the time spent in them.
+     */
+    private static void logStatementMetrics(StatementMetrics statementMetrics) {
+        Histogram[][] transactionTimes = statementMetrics.getTotalTransactionTimes();
+        for (TPCCTransaction each : TPCCTransaction.values()) {
+            Histogram databaseTimes = transactionTimes[0][each.ordinal()];
+            Histogram clientTimes = transactionTimes[1][each.ordinal()];
+            if (0 == databaseTimes.getTotalCount()) {
+                continue;
+            }
+            LOGGER.info("Total execution time {}\tcount={}\tdatabase p50={}ms\tp99={}ms\tmean={}ms\tclient p50={}ms\tp99={}ms\tmean={}ms", each, databaseTimes.getTotalCount(),
+                    toMillis(databaseTimes.getValueAtPercentile(50)), toMillis(databaseTimes.getValueAtPercentile(99)), Math.round(databaseTimes.getMean()) / 1000.0,
+                    toMillis(clientTimes.getValueAtPercentile(50)), toMillis(clientTimes.getValueAtPercentile(99)), Math.round(clientTimes.getMean()) / 1000.0);
+        }
+        List<StatementMetrics.Statement> statements = statementMetrics.getTotalStatements();
+        double totalMicros = statements.stream().mapToDouble(StatementMetrics.Statement::getTotalMicros).sum();
+        for (StatementMetrics.Statement each : statements) {
+            Histogram latencies = each.getTotalLatencies();
+            long transactions = Arrays.stream(TPCCTransaction.values()).filter(each::isExecutedBy).mapToLong(type -> transactionTimes[0][type.ordinal()].getTotalCount()).sum();
+            LOGGER.info("Total statement {}\tcalls={}\tperTransaction={}\tfailures={}\tp50={}ms\tp99={}ms\tmax={}ms\ttotal={}s\tshare={}%", each.getName(), latencies.getTotalCount(),
+                    0 == transactions ? "N/A" : Math.round(latencies.getTotalCount() * 100.0 / transactions) / 100.0, each.getFailures(),
+                    toMillis(latencies.getValueAtPercentile(50)), toMillis(latencies.getValueAtPercentile(99)), toMillis(latencies.getMaxValue()),
+                    Math.round(each.getTotalMicros() / 1000) / 1000.0, Math.round(each.getTotalMicros() / totalMicros * 10000) / 100.0);
+        }
+    }
+    
+    /**
+     * Append the slowest transactions of the interval to the slow transaction file.
+     */
+    private void writeSlowTransactions(long elapsedMillis, List<SlowTransactionTracker.SlowTransaction> slowest) {
+        if (slowest.isEmpty()) {
+            return;
+        }
+        StringBuilder result = new StringBuilder(4096).append("# Interval ending at ").append(elapsedMillis).append("ms\n");
+        for (SlowTransactionTracker.SlowTransaction each : slowest) {
+            each.format(result, resultReporter.getMeasurementStartNanoTime());
+        }
+        slowTransactionFile.write(Buffer.buffer(result.append('\n').toString()));
+    }
+    
+    private void logSlowTransactions() {
+        for (SlowTransactionTracker.SlowTransaction each : slowTransactionTracker.getTotalSlowest()) {
+            int slowestStatement = each.getSlowestStatement();
+            LOGGER.info("Slowest {}\tlatency={}ms\tslowest statement={} {}ms", each.getTransactionType(), toMillis(each.getLatencyNanos() / 1000),
+                    -1 == slowestStatement ? "N/A" : each.getStatementName(slowestStatement), -1 == slowestStatement ? "N/A" : toMillis(each.getStatementNanos(slowestStatement) / 1000));
+        }
+    }
+    
+    private Future<Void> closeSlowTransactionFile() {
+        return null == slowTransactionFile ? Future.succeededFuture() : slowTransactionFile.close();
+    }
+    
+    /**
+     * TPC-C 5.2.5.4: at least 90% of each transaction type must complete within its response time constraint.
+     */
+    static void reportResponseTimeConstraints(Histogram[] histograms) {
+        for (TPCCTransaction each : TPCCTransaction.values()) {
+            Histogram histogram = histograms[each.ordinal()];
+            if (0 == histogram.getTotalCount()) {
+                LOGGER.info("90th percentile {} = N/A (limit {}ms)", each, each.getResponseTimeLimitMillis());
+                continue;
+            }
+            double p90Millis = toMillis(histogram.getValueAtPercentile(90));
+            LOGGER.info("90th percentile {} = {}ms (limit {}ms) {}", each, p90Millis, each.getResponseTimeLimitMillis(), p90Millis <= each.getResponseTimeLimitMillis() ? "PASSED" : "FAILED");
+        }
+    }
+    
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
     }
     
     public static void main(String[] args) throws IOException {
+        String command = 0 == args.length ? "run" : args[0];
+        switch (command) {
+            case "run" -> runBenchmark(false);
+            case "agent" -> runBenchmark(true);
+            case "coordinator" -> DriverCoordinator.coordinate(loadConfiguration());
+            case "load" -> loadData();
+            case "generate" -> FlatFileGenerator.generate(loadConfiguration(), Arrays.copyOfRange(args, 1, args.length));
+            case "convert" -> ResultFileConverter.convert(Arrays.copyOfRange(args, 1, args.length));
+            case "analyze" -> ResultFileAnalyzer.analyze(Arrays.copyOfRange(args, 1, args.length));
+            case "compare" -> {
+                if (!RunComparison.compare(Arrays.copyOfRange(args, 1, args.length))) {
+                    System.exit(1);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown command " + command + ", expected one of: run, agent, coordinator, load, generate, convert, analyze, compare");
+        }
+    }
+    
+    private static BenchmarkConfiguration loadConfiguration() throws IOException {
         Properties props = new Properties();
         props.load(new FileInputStream(Paths.get(System.getProperty("props", "props.template")).toFile()));
-        BenchmarkConfiguration configuration = new BenchmarkConfiguration(props);
-        Vertx vertx = Vertx.vertx(new VertxOptions(new JsonObject(configuration.getVertxOptions())));
+        return new BenchmarkConfiguration(props);
+    }
+    
+    static Pool createPool(BenchmarkConfiguration configuration, Vertx vertx, PoolOptions poolOptions) {
         // cachePreparedStatements could not be specified in URI. https://github.com/eclipse-vertx/vertx-sql-client/issues/664
         SqlConnectOptions connectOptions = SqlConnectOptions.fromUri(configuration.getConn()).setCachePreparedStatements(true);
-        Pool pool = Pool.pool(vertx, connectOptions, new PoolOptions(new JsonObject(configuration.getPoolOptions())));
-        Future<Void> start = new TPCC(configuration, vertx, pool).run();
+        connectOptions.setMetricsName(ConnectionPoolMetrics.METRICS_NAME);
+        return Pool.pool(vertx, connectOptions, poolOptions);
+    }
+    
+    private static void runBenchmark(boolean agentMode) throws IOException {
+        BenchmarkConfiguration configuration = loadConfiguration();
+        VertxOptions vertxOptions = new VertxOptions(new JsonObject(configuration.getVertxOptions()));
+        if (configuration.isPoolMetrics()) {
+            ConnectionPoolMetrics.install(vertxOptions);
+        }
+        Vertx vertx = Vertx.vertx(vertxOptions);
+        Pool pool = createPool(configuration, vertx, new PoolOptions(new JsonObject(configuration.getPoolOptions())));
+        Future<Void> start;
+        if (agentMode) {
+            DriverAgent agent = new DriverAgent(vertx, configuration);
+            start = agent.connect().compose(random -> new TPCC(configuration, vertx, pool, random, agent).run());
+        } else {
+            start = createRandom(pool).compose(random -> new TPCC(configuration, vertx, pool, random).run());
+        }
         start.onSuccess(__ -> LOGGER.info("TPC-C Finished")).eventually(__ -> pool.close()).eventually(__ -> vertx.close());
     }
+    
+    /**
+     * Create the master random of the run. If the database was loaded by the "load" command,
+     * the C for C_LAST is chosen relative to the C-Load value as required by 2.1.6.1.
+     */
+    static Future<jTPCCRandom> createRandom(Pool pool) {
+        return pool.query("SELECT cfg_value FROM bmsql_config WHERE cfg_name = 'nURandCLast'").execute()
+                .map(rows -> 0 == rows.size() ? null : Long.parseLong(rows.iterator().next().getString("cfg_value")))
+                .otherwise((Long) null)
+                .map(cLoad -> {
+                    if (null == cLoad) {
+                        LOGGER.warn("C-Load value not found in bmsql_config, C for C_LAST is chosen without checking it.");
+                        return new jTPCCRandom();
+                    }
+                    return new jTPCCRandom(cLoad);
+                });
+    }
+    
+    private static void loadData() throws IOException {
+        BenchmarkConfiguration configuration = loadConfiguration();
+        VertxOptions vertxOptions = new VertxOptions(new JsonObject(configuration.getVertxOptions()));
+        // Rows are generated on worker threads, one per load worker at most.
+        vertxOptions.setWorkerPoolSize(Math.max(vertxOptions.getWorkerPoolSize(), configuration.getLoadWorkers()));
+        Vertx vertx = Vertx.vertx(vertxOptions);
+        // Every load worker holds a connection until no unit of work is left, statements building indexes wait for a free connection.
+        PoolOptions poolOptions = new PoolOptions(new JsonObject(configuration.getPoolOptions())).setMaxSize(configuration.getLoadWorkers()).setMaxWaitQueueSize(-1);
+        Pool pool = createPool(configuration, vertx, poolOptions);
+        new DataLoader(configuration, vertx, pool).load().eventually(__ -> pool.close()).eventually(__ -> vertx.close());
+    }
 }
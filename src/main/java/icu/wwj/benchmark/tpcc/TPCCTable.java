@@ -0,0 +1,62 @@
+package icu.wwj.benchmark.tpcc;
+
+import lombok.Getter;
+
+/**
+ * Tables populated by the {@link DataLoader}. Rows are inserted as one array per column and expanded by unnest,
+ * so a batch of any size is a single statement with a fixed number of parameters.
+ */
+@Getter
+public enum TPCCTable {
+
+    ITEM("bmsql_item", "i_id int4", "i_name text", "i_price float8", "i_data text", "i_im_id int4"),
+
+    WAREHOUSE("bmsql_warehouse", "w_id int4", "w_ytd float8", "w_tax float8", "w_name text",
+            "w_street_1 text", "w_street_2 text", "w_city text", "w_state text", "w_zip text"),
+
+    STOCK("bmsql_stock", "s_w_id int4", "s_i_id int4", "s_quantity int4", "s_ytd int4", "s_order_cnt int4", "s_remote_cnt int4", "s_data text",
+            "s_dist_01 text", "s_dist_02 text", "s_dist_03 text", "s_dist_04 text", "s_dist_05 text",
+            "s_dist_06 text", "s_dist_07 text", "s_dist_08 text", "s_dist_09 text", "s_dist_10 text"),
+
+    DISTRICT("bmsql_district", "d_w_id int4", "d_id int4", "d_ytd float8", "d_tax float8", "d_next_o_id int4", "d_name text",
+            "d_street_1 text", "d_street_2 text", "d_city text", "d_state text", "d_zip text"),
+
+    CUSTOMER("bmsql_customer", "c_w_id int4", "c_d_id int4", "c_id int4", "c_discount float8", "c_credit text", "c_last text", "c_first text",
+            "c_credit_lim float8", "c_balance float8", "c_ytd_payment float8", "c_payment_cnt int4", "c_delivery_cnt int4",
+            "c_street_1 text", "c_street_2 text", "c_city text", "c_state text", "c_zip text", "c_phone text",
+            "c_since timestamp", "c_middle text", "c_data text"),
+
+    HISTORY("bmsql_history", "h_c_id int4", "h_c_d_id int4", "h_c_w_id int4", "h_d_id int4", "h_w_id int4",
+            "h_date timestamp", "h_amount float8", "h_data text"),
+
+    OORDER("bmsql_oorder", "o_w_id int4", "o_d_id int4", "o_id int4", "o_c_id int4", "o_carrier_id int4",
+            "o_ol_cnt int4", "o_all_local int4", "o_entry_d timestamp"),
+
+    NEW_ORDER("bmsql_new_order", "no_w_id int4", "no_d_id int4", "no_o_id int4"),
+
+    ORDER_LINE("bmsql_order_line", "ol_w_id int4", "ol_d_id int4", "ol_o_id int4", "ol_number int4", "ol_i_id int4",
+            "ol_delivery_d timestamp", "ol_amount float8", "ol_supply_w_id int4", "ol_quantity int4", "ol_dist_info text");
+
+    private final String tableName;
+
+    private final String columnNames;
+
+    private final String insertSQL;
+
+    TPCCTable(String tableName, String... columns) {
+        this.tableName = tableName;
+        StringBuilder names = new StringBuilder();
+        StringBuilder arrays = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            String[] nameAndType = columns[i].split(" ");
+            if (i > 0) {
+                names.append(", ");
+                arrays.append(", ");
+            }
+            names.append(nameAndType[0]);
+            arrays.append('$').append(i + 1).append("::").append(nameAndType[1]).append("[]");
+        }
+        columnNames = names.toString();
+        insertSQL = "INSERT INTO " + tableName + " (" + columnNames + ") SELECT * FROM unnest(" + arrays + ")";
+    }
+}
@@ -1,14 +1,34 @@
 package icu.wwj.benchmark.tpcc;
 
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * TPC-C transaction types with the 90th percentile response time constraints defined in 5.2.5.4,
+ * and the minimum keying times and mean think times defined in 5.2.5.7.
+ */
+@RequiredArgsConstructor
+@Getter
 public enum TPCCTransaction {
     
-    NEW_ORDER,
+    NEW_ORDER(5000L, 18000L, 12000L),
+    
+    PAYMENT(5000L, 3000L, 12000L),
+    
+    STOCK_LEVEL(20000L, 2000L, 5000L),
+    
+    ORDER_STATUS(5000L, 2000L, 10000L),
+    
+    DELIVERY(5000L, 2000L, 5000L),
     
-    PAYMENT,
+    /**
+     * Deferred execution of a queued delivery, which must complete within 80 seconds after being queued.
+     */
+    DELIVERY_BG(80000L, 0L, 0L);
     
-    STOCK_LEVEL,
+    private final long responseTimeLimitMillis;
     
-    ORDER_STATUS,
+    private final long keyingTimeMillis;
     
-    DELIVERY;
+    private final long meanThinkTimeMillis;
 }
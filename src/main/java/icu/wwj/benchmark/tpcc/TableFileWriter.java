@@ -0,0 +1,97 @@
+package icu.wwj.benchmark.tpcc;
+
+import io.vertx.sqlclient.Tuple;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes column arrays generated by {@link DataGenerator} as CSV rows accepted by {@code COPY ... WITH (FORMAT csv)}.
+ * Generated strings are alphanumeric, so fields are never quoted. A null value is written as an empty field.
+ */
+final class TableFileWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 4 << 20;
+
+    /**
+     * Longest field produced by the generator, C_DATA has up to 500 characters.
+     */
+    private static final int MAX_FIELD_LENGTH = 512;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    TableFileWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    void write(Tuple batch) throws IOException {
+        int columnCount = batch.size();
+        Object[][] columns = new Object[columnCount][];
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = (Object[]) batch.getValue(i);
+        }
+        int rowCount = columns[0].length;
+        for (int row = 0; row < rowCount; row++) {
+            if (buffer.remaining() < columnCount * MAX_FIELD_LENGTH) {
+                flush();
+            }
+            for (int column = 0; column < columnCount; column++) {
+                if (column > 0) {
+                    buffer.put((byte) ',');
+                }
+                writeField(columns[column][row]);
+            }
+            buffer.put((byte) '\n');
+        }
+    }
+
+    private void writeField(Object value) {
+        if (null == value) {
+            return;
+        }
+        if (value instanceof Integer) {
+            writeInt((Integer) value);
+            return;
+        }
+        String text = value.toString();
+        for (int i = 0; i < text.length(); i++) {
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+
+    private void writeInt(int value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
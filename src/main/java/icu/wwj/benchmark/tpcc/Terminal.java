@@ -3,15 +3,15 @@ package icu.wwj.benchmark.tpcc;
 import icu.wwj.benchmark.tpcc.config.BenchmarkConfiguration;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.Promise;
-import io.vertx.core.eventbus.Message;
 import io.vertx.core.eventbus.MessageConsumer;
-import io.vertx.core.eventbus.MessageProducer;
 import io.vertx.sqlclient.Pool;
-import io.vertx.sqlclient.SqlConnection;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.SingleWriterRecorder;
 
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 @Slf4j
 public class Terminal extends AbstractVerticle {
@@ -24,125 +24,285 @@ public class Terminal extends AbstractVerticle {
 
     private final Pool pool;
 
-    private SqlConnection connection;
-    
-    private final String[] transactionsMap;
+    private final SessionPool sessionPool;
+
+    /**
+     * Session of the terminal, or null if sessions are checked out of the {@link SessionPool} per transaction.
+     */
+    private DatabaseSession session;
     
-    private final String address;
+    private final TPCCTransaction[] transactionsMap;
+
+    private final ResultFileWriter resultFileWriter;
+
+    private ResultRingBuffer resultRingBuffer;
+
+    private final TransactionCounters.Writer counters;
+
+    private final SingleWriterRecorder[] latencyRecorders;
+
+    private final ResultReporter resultReporter;
+
+    private RetryPolicy retryPolicy;
+
+    private final PacingScheduler pacingScheduler;
+
+    private final DeliveryQueue deliveryQueue;
 
-    private volatile long sessionStartNanoTime;
+    private final OpenLoopDispatcher openLoopDispatcher;
 
-    private MessageConsumer<String> transactionConsumer;
+    private final WarehouseAssignment warehouseAssignment;
 
-    private MessageProducer<String> resultProducer;
+    @Getter
+    private final Handler<Void> releaseHandler;
 
-    private NewOrderExecutor newOrderExecutor;
+    private volatile long intendedStartNanoTime;
 
-    private PaymentExecutor paymentExecutor;
+    private boolean inFlight;
 
-    private OrderStatusExecutor orderStatusExecutor;
+    /**
+     * Database time of the transaction in flight, or -1 if statements are untimed.
+     */
+    private long databaseNanos;
 
-    private StockLevelExecutor stockLevelExecutor;
+    private TimerWheel timerWheel;
 
-    private DeliveryExecutor deliveryExecutor;
+    private int timerHandle;
 
-    private final AtomicLong newOrderCount;
+    private TPCCTransaction nextTransaction;
 
-    private final AtomicLong totalCount;
+    private final Handler<Void> runNextTransaction;
     
     private int warehouseId;
 
+    private int districtId;
+
     private boolean stop;
 
     private Promise<Void> stopPromise;
 
-    public Terminal(BenchmarkConfiguration configuration, int id, Pool pool, ResultReporter resultReporter) {
+    /**
+     * @param sessionPool sessions shared by all terminals, or null to hold a connection of the pool for the whole run
+     * @param warehouseAssignment assignment of fixed home warehouses and districts, or null to pick a random home warehouse
+     */
+    public Terminal(BenchmarkConfiguration configuration, int id, jTPCCRandom random, Pool pool, SessionPool sessionPool, ResultReporter resultReporter, ResultFileWriter resultFileWriter,
+                    PacingScheduler pacingScheduler, DeliveryQueue deliveryQueue, OpenLoopDispatcher openLoopDispatcher, WarehouseAssignment warehouseAssignment) {
         this.configuration = configuration;
         this.id = id;
-        random = new jTPCCRandom();
+        this.random = random;
         this.pool = pool;
-        address = "Terminal-" + id;
-        newOrderCount = resultReporter.getNewOrderCounts()[id - 1];
-        totalCount = resultReporter.getTotalCount()[id - 1];
+        this.sessionPool = sessionPool;
+        counters = resultReporter.getTransactionCounters().writer(id - 1);
+        latencyRecorders = resultReporter.getLatencyRecorders()[id - 1];
+        this.resultReporter = resultReporter;
+        this.resultFileWriter = resultFileWriter;
+        this.pacingScheduler = pacingScheduler;
+        this.deliveryQueue = deliveryQueue;
+        this.openLoopDispatcher = openLoopDispatcher;
+        this.warehouseAssignment = warehouseAssignment;
+        releaseHandler = __ -> openLoopDispatcher.onTerminalIdle(this);
+        runNextTransaction = __ -> runTransaction(nextTransaction);
         transactionsMap = TransactionMapGenerator.generate(configuration);
     }
 
     @Override
     public void start(Promise<Void> startPromise) {
-        pool.getConnection().onSuccess(this::init).onSuccess(__ -> startPromise.complete()).onFailure(cause -> log.error(cause.getMessage(), cause));
+        resultRingBuffer = resultFileWriter.getRingBuffer();
+        retryPolicy = new RetryPolicy(getVertx(), configuration);
+        if (null != warehouseAssignment) {
+            warehouseAssignment.register(id);
+        }
+        if (null != pacingScheduler) {
+            timerWheel = pacingScheduler.getTimerWheel();
+            timerHandle = timerWheel.register(__ -> context.runOnContext(runNextTransaction));
+        }
+        if (null != sessionPool) {
+            init();
+            startPromise.complete();
+            return;
+        }
+        pool.getConnection().onSuccess(connection -> {
+            session = new DatabaseSession(configuration, random, connection, resultReporter.newStatementTimer());
+            init();
+        }).onSuccess(__ -> startPromise.complete()).onFailure(cause -> log.error(cause.getMessage(), cause));
     }
     
-    private void init(SqlConnection sqlConnection) {
-        connection = sqlConnection;
-        newOrderExecutor = new NewOrderExecutor(configuration, random, connection);
-        paymentExecutor = new PaymentExecutor(configuration, random, connection);
-        orderStatusExecutor = new OrderStatusExecutor(configuration, random, connection);
-        stockLevelExecutor = new StockLevelExecutor(configuration, random, connection);
-        deliveryExecutor = new DeliveryExecutor(configuration, random, connection);
-        transactionConsumer = getVertx().eventBus().localConsumer(address);
-        resultProducer = getVertx().eventBus().sender(ResultFileWriter.ADDRESS);
+    private void init() {
         MessageConsumer<Long> startConsumer = getVertx().eventBus().localConsumer("start");
         startConsumer.handler(msg -> {
-            startExecutingTransactions(msg.body());
+            startExecutingTransactions();
             startConsumer.unregister();
         });
     }
 
-    public void startExecutingTransactions(long sessionStartNanoTime) {
-        transactionConsumer.handler(this::handleTPCCTransaction);
-        this.sessionStartNanoTime = sessionStartNanoTime;
-        if (configuration.isTerminalWarehouseFixed()) {
-            warehouseId = random.nextInt(1, configuration.getWarehouses());
+    public void startExecutingTransactions() {
+        if (null != warehouseAssignment) {
+            warehouseId = warehouseAssignment.getWarehouseId(id);
+            districtId = warehouseAssignment.getDistrictId(id);
+            log.info("Terminal-{} started. w_id = {}, d_id = {}", id, warehouseId, districtId);
+        } else if (configuration.isTerminalWarehouseFixed()) {
+            warehouseId = random.nextInt(configuration.getFirstWarehouse(), configuration.getLastWarehouse());
             log.info("Terminal-{} started. w_id = {}", id, warehouseId);
         } else {
             log.info("Terminal-{} started. w_id is not fixed", id);
         }
-        sendNextTransaction();
+        if (null == openLoopDispatcher) {
+            sendNextTransaction(null);
+        } else {
+            openLoopDispatcher.release(this);
+        }
     }
 
-    private void handleTPCCTransaction(Message<String> message) {
+    /**
+     * Run a transaction generated by the {@link OpenLoopDispatcher}. Called on the context of the dispatcher.
+     *
+     * @param intendedStartNanoTime time the transaction was scheduled to arrive, latency is measured from it
+     */
+    void dispatch(TPCCTransaction transactionType, long intendedStartNanoTime) {
+        this.intendedStartNanoTime = intendedStartNanoTime;
+        context.runOnContext(__ -> runTransaction(transactionType));
+    }
+
+    private void runTransaction(TPCCTransaction transactionType) {
         if (stop) {
-            connection.close().eventually(__ -> {
-                stopPromise.complete();
-                return Future.succeededFuture();
-            });
+            closeConnection();
             return;
         }
         if (!configuration.isTerminalWarehouseFixed()) {
-            warehouseId = random.nextInt(1, configuration.getWarehouses());
+            warehouseId = random.nextInt(configuration.getFirstWarehouse(), configuration.getLastWarehouse());
         }
-        long transactionStartNanoTime = System.nanoTime();
-        (switch (message.body()) {
-            case "NEW_ORDER" -> connection.begin().compose(transaction -> newOrderExecutor.execute(transaction, warehouseId)).onSuccess(__ -> newOrderCount.incrementAndGet());
-            case "PAYMENT" -> connection.begin().compose(transaction -> paymentExecutor.execute(transaction, warehouseId)).map(false);
-            case "ORDER_STATUS" -> connection.begin().compose(transaction -> orderStatusExecutor.execute(transaction, warehouseId)).map(false);
-            case "STOCK_LEVEL" -> connection.begin().compose(transaction -> stockLevelExecutor.execute(transaction, warehouseId)).map(false);
-            // TODO Transaction delivery which is required to execute in background is executed immediately at present
-            case "DELIVERY" -> connection.begin().compose(transaction -> deliveryExecutor.execute(transaction, warehouseId)).map(false);
+        inFlight = true;
+        databaseNanos = -1L;
+        long actualStartNanoTime = System.nanoTime();
+        long transactionStartNanoTime = null == openLoopDispatcher ? actualStartNanoTime : intendedStartNanoTime;
+        (switch (transactionType) {
+            case NEW_ORDER -> execute(DatabaseSession::getNewOrderExecutor, transactionType, transactionStartNanoTime).compose(rollback -> onTransactionSuccess(transactionStartNanoTime, actualStartNanoTime, transactionType, rollback, 0));
+            case PAYMENT -> execute(DatabaseSession::getPaymentExecutor, transactionType, transactionStartNanoTime)
+                    .compose(__ -> onTransactionSuccess(transactionStartNanoTime, actualStartNanoTime, transactionType, false, 0));
+            case ORDER_STATUS -> execute(DatabaseSession::getOrderStatusExecutor, transactionType, transactionStartNanoTime)
+                    .compose(__ -> onTransactionSuccess(transactionStartNanoTime, actualStartNanoTime, transactionType, false, 0));
+            case STOCK_LEVEL -> execute(DatabaseSession::getStockLevelExecutor, transactionType, transactionStartNanoTime)
+                    .compose(__ -> onTransactionSuccess(transactionStartNanoTime, actualStartNanoTime, transactionType, false, 0));
+            case DELIVERY -> null == deliveryQueue
+                    ? execute(DatabaseSession::getDeliveryExecutor, transactionType, transactionStartNanoTime)
+                    .compose(skippedDeliveries -> onTransactionSuccess(transactionStartNanoTime, actualStartNanoTime, transactionType, false, skippedDeliveries))
+                    : queueDelivery(transactionStartNanoTime, actualStartNanoTime);
             default -> Future.failedFuture("Unknown transaction type");
-        }).onSuccess(rollback -> onTransactionSuccess(transactionStartNanoTime, message.body(), (boolean) rollback))
-                .recover(cause -> {
-                    log.error("Error occurred running " + message.body(), cause);
+        }).recover(cause -> {
+                    log.error("Error occurred running " + transactionType, cause);
                     return Future.succeededFuture();
                 })
-                .onSuccess(__ -> sendNextTransaction());
+                .onSuccess(__ -> onTransactionFinished(transactionType));
+    }
+
+    /**
+     * Execute the transaction with the session of the terminal, or with a session checked out of the pool until the transaction finished.
+     */
+    private <I, T> Future<T> execute(Function<DatabaseSession, TransactionExecutor<I, T>> executor, TPCCTransaction transactionType, long transactionStartNanoTime) {
+        if (null == sessionPool) {
+            return execute(session, executor.apply(session), transactionType, transactionStartNanoTime);
+        }
+        Promise<T> promise = Promise.promise();
+        sessionPool.acquire(context)
+                .compose(acquired -> Future.<T>future(result -> execute(acquired, executor.apply(acquired), transactionType, transactionStartNanoTime).onComplete(result))
+                        .onComplete(__ -> sessionPool.release(acquired)))
+                // Transactions of a shared session complete on the context of its connection.
+                .onComplete(result -> context.runOnContext(__ -> promise.handle(result)));
+        return promise.future();
+    }
+
+    /**
+     * Generate the input once and execute it, retrying retryable failures with the same input.
+     */
+    private <I, T> Future<T> execute(DatabaseSession session, TransactionExecutor<I, T> executor, TPCCTransaction transactionType, long transactionStartNanoTime) {
+        StatementTimer statementTimer = session.getStatementTimer();
+        I input;
+        Future<T> result;
+        try {
+            input = executor.generate(warehouseId, districtId);
+            statementTimer.start(transactionType);
+            result = retryPolicy.execute(session.getConnection(), statementTimer, transaction -> executor.execute(transaction, input), counters, transactionType);
+        } catch (final RuntimeException ex) {
+            // Failures of the database are counted by the retry policy, failures thrown before the first attempt are counted here.
+            counters.increment(transactionType, TransactionCounters.FAILURES);
+            return Future.failedFuture(ex);
+        }
+        return result.onSuccess(__ -> databaseNanos = statementTimer.finish(transactionStartNanoTime, input));
+    }
+
+    private void onTransactionFinished(TPCCTransaction completedTransaction) {
+        inFlight = false;
+        if (null == openLoopDispatcher) {
+            sendNextTransaction(completedTransaction);
+        } else if (stop) {
+            closeConnection();
+        } else {
+            openLoopDispatcher.release(this);
+        }
+    }
+
+    /**
+     * Queue the delivery for deferred execution. The response time of the terminal only covers queueing.
+     */
+    private Future<Void> queueDelivery(long transactionStartNanoTime, long actualStartNanoTime) {
+        Delivery delivery = DeliveryExecutor.generate(random, warehouseId);
+        delivery.queuedNanoTime = System.nanoTime();
+        deliveryQueue.offer(delivery);
+        return onTransactionSuccess(transactionStartNanoTime, actualStartNanoTime, TPCCTransaction.DELIVERY, false, 0);
     }
 
-    private void onTransactionSuccess(long transactionStartNanoTime, String transactionType, boolean rollback) {
-        totalCount.incrementAndGet();
+    /**
+     * @param transactionStartNanoTime start of the response time, which is the intended start time in open loop mode
+     * @param actualStartNanoTime time the transaction actually started executing
+     */
+    private Future<Void> onTransactionSuccess(long transactionStartNanoTime, long actualStartNanoTime, TPCCTransaction transactionType, boolean rollback, int skippedDeliveries) {
+        counters.increment(transactionType, TransactionCounters.COMPLETED);
+        if (rollback) {
+            counters.increment(transactionType, TransactionCounters.ROLLBACKS);
+        }
         long transactionFinishNanoTime = System.nanoTime();
-        long elapsedMillis = (transactionFinishNanoTime - sessionStartNanoTime) / 1_000_000;
-        long transactionTookMillis = (transactionFinishNanoTime - transactionStartNanoTime) / 1_000_000;
-        resultProducer.write("0," + elapsedMillis + "," + transactionTookMillis + "," + transactionTookMillis + "," + transactionType + "," + (rollback ? "1" : "0") + ",0,0");
+        long elapsedMillis = (transactionFinishNanoTime - resultReporter.getMeasurementStartNanoTime()) / 1_000_000;
+        long transactionTookNanos = transactionFinishNanoTime - transactionStartNanoTime;
+        latencyRecorders[transactionType.ordinal()].recordValue(transactionTookNanos / 1000);
+        long transactionTookMillis = transactionTookNanos / 1_000_000;
+        long executionTookMillis = databaseNanos < 0 ? (transactionFinishNanoTime - actualStartNanoTime) / 1_000_000 : databaseNanos / 1_000_000;
+        return resultFileWriter.write(resultRingBuffer, elapsedMillis, transactionTookMillis, executionTookMillis, transactionType, rollback, skippedDeliveries, false);
+    }
+
+    /**
+     * Pick the next transaction and run it on the context of the terminal, right away or after keying and think times.
+     * The transaction is not run inline, so the callbacks of the completed transaction unwind first.
+     */
+    private void sendNextTransaction(TPCCTransaction completedTransaction) {
+        nextTransaction = transactionsMap[random.nextInt(0, transactionsMap.length - 1)];
+        if (null == pacingScheduler) {
+            context.runOnContext(runNextTransaction);
+            return;
+        }
+        timerWheel.schedule(timerHandle, pacingScheduler.nextDelayNanos(completedTransaction, nextTransaction, random));
     }
 
-    private void sendNextTransaction() {
-        getVertx().eventBus().send(address, transactionsMap[(random.nextInt(0, transactionsMap.length - 1))]);
+    private void closeConnection() {
+        if (null == session) {
+            stopPromise.tryComplete();
+            return;
+        }
+        session.getConnection().close().eventually(__ -> {
+            stopPromise.tryComplete();
+            return Future.succeededFuture();
+        });
     }
 
     @Override
     public void stop(Promise<Void> stopPromise) {
         this.stopPromise = stopPromise;
         stop = true;
+        if (null != timerWheel && timerWheel.cancel(timerHandle)) {
+            // The terminal is keying or thinking, no transaction is in flight.
+            closeConnection();
+        } else if (null != openLoopDispatcher && !inFlight) {
+            // The terminal is waiting for the dispatcher.
+            closeConnection();
+        }
     }
 }
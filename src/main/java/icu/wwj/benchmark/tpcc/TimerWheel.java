@@ -0,0 +1,129 @@
+package icu.wwj.benchmark.tpcc;
+
+import io.vertx.core.Handler;
+
+import java.util.Arrays;
+
+/**
+ * Hashed timer wheel confined to a single event loop.
+ *
+ * <p>Timers are identified by int handles and kept in primitive arrays, so sleeping timers do not allocate
+ * any object on the heap. The wheel is advanced by one periodic Vert.x timer.</p>
+ */
+public final class TimerWheel {
+    
+    private static final int NONE = -1;
+    
+    private final long startNanoTime = System.nanoTime();
+    
+    private final long tickNanos;
+    
+    private final int[] slotHeads;
+    
+    private final int mask;
+    
+    private Handler<?>[] tasks;
+    
+    private long[] deadlineTicks;
+    
+    private int[] next;
+    
+    private int[] previous;
+    
+    private int size;
+    
+    private long currentTick;
+    
+    public TimerWheel(long tickMillis, int wheelSize) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Size of timer wheel must be a power of 2, but was " + wheelSize);
+        }
+        tickNanos = tickMillis * 1_000_000L;
+        slotHeads = new int[wheelSize];
+        Arrays.fill(slotHeads, NONE);
+        mask = wheelSize - 1;
+        tasks = new Handler<?>[64];
+        deadlineTicks = new long[64];
+        next = new int[64];
+        previous = new int[64];
+    }
+    
+    /**
+     * Register a task which may be scheduled repeatedly.
+     *
+     * @return handle of the timer
+     */
+    public int register(Handler<Void> task) {
+        if (size == tasks.length) {
+            int capacity = size * 2;
+            tasks = Arrays.copyOf(tasks, capacity);
+            deadlineTicks = Arrays.copyOf(deadlineTicks, capacity);
+            next = Arrays.copyOf(next, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+        }
+        tasks[size] = task;
+        deadlineTicks[size] = NONE;
+        return size++;
+    }
+    
+    /**
+     * Run the task of the handle once after the delay. The timer must not be pending.
+     */
+    public void schedule(int handle, long delayNanos) {
+        long deadlineTick = Math.max(currentTick + 1, (System.nanoTime() + delayNanos - startNanoTime + tickNanos - 1) / tickNanos);
+        deadlineTicks[handle] = deadlineTick;
+        int slot = (int) (deadlineTick & mask);
+        int head = slotHeads[slot];
+        next[handle] = head;
+        previous[handle] = NONE;
+        if (NONE != head) {
+            previous[head] = handle;
+        }
+        slotHeads[slot] = handle;
+    }
+    
+    /**
+     * Cancel the pending timer of the handle.
+     *
+     * @return true if the timer was pending
+     */
+    public boolean cancel(int handle) {
+        if (NONE == deadlineTicks[handle]) {
+            return false;
+        }
+        unlink(handle);
+        return true;
+    }
+    
+    private void unlink(int handle) {
+        int slot = (int) (deadlineTicks[handle] & mask);
+        if (NONE == previous[handle]) {
+            slotHeads[slot] = next[handle];
+        } else {
+            next[previous[handle]] = next[handle];
+        }
+        if (NONE != next[handle]) {
+            previous[next[handle]] = previous[handle];
+        }
+        deadlineTicks[handle] = NONE;
+    }
+    
+    /**
+     * Run every task whose deadline has passed.
+     */
+    public void advance() {
+        long targetTick = (System.nanoTime() - startNanoTime) / tickNanos;
+        while (currentTick < targetTick) {
+            currentTick++;
+            int handle = slotHeads[(int) (currentTick & mask)];
+            while (NONE != handle) {
+                int following = next[handle];
+                if (deadlineTicks[handle] <= currentTick) {
+                    unlink(handle);
+                    tasks[handle].handle(null);
+                }
+                handle = following;
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package icu.wwj.benchmark.tpcc;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters of every transaction type and outcome, in a slot per terminal or delivery worker.
+ *
+ * <p>Slots are padded to keep the counters written from different event loops on different cache lines.
+ * A slot is written by one transaction at a time, so a counter is updated with an ordered write instead of an atomic
+ * read-modify-write. Counters are never reset, readers subtract a {@link Snapshot} taken earlier.</p>
+ */
+public final class TransactionCounters {
+
+    /**
+     * Transactions completed, including NewOrders rolled back for an unused item number.
+     */
+    public static final int COMPLETED = 0;
+
+    public static final int ROLLBACKS = 1;
+
+    /**
+     * Transactions failed after all retries.
+     */
+    public static final int FAILURES = 2;
+
+    public static final int RETRIES = 3;
+
+    /**
+     * Nanoseconds spent in failed attempts and backoffs.
+     */
+    public static final int WASTED_NANOS = 4;
+
+    private static final int COUNTERS = 5;
+
+    private static final int TRANSACTION_TYPES = TPCCTransaction.values().length;
+
+    private static final int SLOT_SIZE = TRANSACTION_TYPES * COUNTERS;
+
+    /**
+     * 128 bytes, which also covers the adjacent cache line prefetched together with a 64 byte line.
+     */
+    private static final int PADDING = 16;
+
+    private static final int SLOT_STRIDE = (SLOT_SIZE + PADDING - 1) / PADDING * PADDING + PADDING;
+
+    private final int slots;
+
+    private final AtomicLongArray counters;
+
+    public TransactionCounters(int slots) {
+        this.slots = slots;
+        counters = new AtomicLongArray(PADDING + slots * SLOT_STRIDE);
+    }
+
+    /**
+     * Get the writer of a slot.
+     *
+     * @param slot index of the terminal, followed by delivery workers
+     */
+    public Writer writer(int slot) {
+        return new Writer(PADDING + slot * SLOT_STRIDE);
+    }
+
+    /**
+     * Sum the counters of all slots since they were created, subtract an earlier snapshot to get a rate.
+     */
+    Snapshot snapshot() {
+        long[] result = new long[SLOT_SIZE];
+        for (int i = 0; i < slots; i++) {
+            int offset = PADDING + i * SLOT_STRIDE;
+            for (int j = 0; j < SLOT_SIZE; j++) {
+                result[j] += counters.get(offset + j);
+            }
+        }
+        return new Snapshot(result, 0L);
+    }
+
+    /**
+     * Get the rate of the count per minute, rounded to two decimals.
+     */
+    public static double perMinute(long count, long nanos) {
+        return nanos <= 0 ? 0 : Math.round(count * 60_000_000_000.0 / nanos * 100) / 100.0;
+    }
+
+    /**
+     * Writes the counters of a single slot.
+     */
+    public final class Writer {
+
+        private final int offset;
+
+        private Writer(int offset) {
+            this.offset = offset;
+        }
+
+        public void increment(TPCCTransaction transactionType, int counter) {
+            add(transactionType, counter, 1L);
+        }
+
+        public void add(TPCCTransaction transactionType, int counter, long delta) {
+            int index = offset + transactionType.ordinal() * COUNTERS + counter;
+            counters.lazySet(index, counters.get(index) + delta);
+        }
+    }
+
+    /**
+     * Counters summed over all slots, or the difference of two sums.
+     */
+    public static final class Snapshot {
+
+        private final long[] values;
+
+        private final long nanos;
+
+        private Snapshot(long[] values, long nanos) {
+            this.values = values;
+            this.nanos = nanos;
+        }
+
+        static Snapshot empty() {
+            return new Snapshot(new long[SLOT_SIZE], 0L);
+        }
+
+        /**
+         * Get the counters counted since the earlier snapshot.
+         *
+         * @param nanos time between both snapshots
+         */
+        Snapshot minus(Snapshot earlier, long nanos) {
+            long[] result = new long[SLOT_SIZE];
+            for (int i = 0; i < SLOT_SIZE; i++) {
+                result[i] = values[i] - earlier.values[i];
+            }
+            return new Snapshot(result, nanos);
+        }
+
+        /**
+         * @param counter {@link #COMPLETED}, {@link #ROLLBACKS}, {@link #FAILURES}, {@link #RETRIES} or {@link #WASTED_NANOS}
+         */
+        public long get(TPCCTransaction transactionType, int counter) {
+            return values[transactionType.ordinal() * COUNTERS + counter];
+        }
+
+        /**
+         * Sum the counter over the transaction types executed by terminals, which excludes {@link TPCCTransaction#DELIVERY_BG}.
+         */
+        public long sumTerminals(int counter) {
+            long result = 0;
+            for (TPCCTransaction each : TPCCTransaction.values()) {
+                if (TPCCTransaction.DELIVERY_BG != each) {
+                    result += get(each, counter);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Sum the counter over all transaction types.
+         */
+        public long sum(int counter) {
+            return sumTerminals(counter) + get(TPCCTransaction.DELIVERY_BG, counter);
+        }
+
+        public long getNewOrders() {
+            return get(TPCCTransaction.NEW_ORDER, COMPLETED);
+        }
+
+        public long getTotal() {
+            return sumTerminals(COMPLETED);
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Get the rate of the count per minute over the time of the snapshot.
+         */
+        public double perMinute(long count) {
+            return TransactionCounters.perMinute(count, nanos);
+        }
+    }
+}
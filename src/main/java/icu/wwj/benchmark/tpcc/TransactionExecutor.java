@@ -3,7 +3,22 @@ package icu.wwj.benchmark.tpcc;
 import io.vertx.core.Future;
 import io.vertx.sqlclient.Transaction;
 
-public interface TransactionExecutor<T> {
+/**
+ * @param <I> terminal input of the transaction
+ * @param <T> result of the transaction
+ */
+public interface TransactionExecutor<I, T> {
     
-    Future<T> execute(Transaction transaction, int warehouseId);
+    /**
+     * Generate the terminal input of a transaction for the home warehouse of the terminal.
+     *
+     * @param districtId home district of the terminal, or 0 if it has none. Only StockLevel uses it, as TPC-C 2.8.1.2 fixes the district
+     *                   of a terminal for StockLevel, while every other transaction draws its district per transaction
+     */
+    I generate(int warehouseId, int districtId);
+    
+    /**
+     * Execute the transaction. The same input may be executed again if the previous attempt failed and was rolled back.
+     */
+    Future<T> execute(Transaction transaction, I input);
 }
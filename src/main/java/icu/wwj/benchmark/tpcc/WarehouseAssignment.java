@@ -0,0 +1,111 @@
+package icu.wwj.benchmark.tpcc;
+
+import icu.wwj.benchmark.tpcc.config.BenchmarkConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IntSummaryStatistics;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Deals home warehouses and districts out to fixed terminals round-robin, keeping the terminals of a warehouse on one event loop.
+ *
+ * <p>Terminals register the event loop they were deployed on. Once all of them are deployed, they are ordered by event loop
+ * and take consecutive slots of the warehouse range, every warehouse getting an equal share of the terminals with districts 1 to 10 in turn.
+ * Only a warehouse at the boundary of two event loops may be split between them.</p>
+ *
+ * <p>The district is the fixed district of the terminal for StockLevel (TPC-C 2.8.1.2). NewOrder, Payment and OrderStatus
+ * draw their district per transaction as the specification requires.</p>
+ */
+public final class WarehouseAssignment {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarehouseAssignment.class);
+
+    private static final int DISTRICTS = 10;
+
+    private final int firstWarehouse;
+
+    private final int lastWarehouse;
+
+    private final Map<Integer, String> eventLoops = new HashMap<>();
+
+    private final int[] warehouseIds;
+
+    private final int[] districtIds;
+
+    public WarehouseAssignment(BenchmarkConfiguration configuration) {
+        firstWarehouse = configuration.getFirstWarehouse();
+        lastWarehouse = configuration.getLastWarehouse();
+        warehouseIds = new int[configuration.getTerminals()];
+        districtIds = new int[configuration.getTerminals()];
+    }
+
+    /**
+     * Register a terminal. Called on the event loop of the terminal when it is deployed.
+     */
+    public synchronized void register(int terminalId) {
+        eventLoops.put(terminalId, Thread.currentThread().getName());
+    }
+
+    /**
+     * Assign all registered terminals and log the resulting distribution. Called once all terminals are deployed.
+     */
+    public synchronized void assign() {
+        List<Integer> terminalIds = new ArrayList<>(eventLoops.keySet());
+        terminalIds.sort(Comparator.comparing((Integer each) -> eventLoops.get(each)).thenComparingInt(each -> each));
+        int warehouses = lastWarehouse - firstWarehouse + 1;
+        int terminals = terminalIds.size();
+        int index = 0;
+        for (int w = 0; w < warehouses && index < terminals; w++) {
+            int share = terminals / warehouses + (w < terminals % warehouses ? 1 : 0);
+            for (int i = 0; i < share; i++) {
+                int terminalId = terminalIds.get(index++);
+                warehouseIds[terminalId - 1] = firstWarehouse + w;
+                districtIds[terminalId - 1] = i % DISTRICTS + 1;
+            }
+        }
+        logDistribution(terminalIds, warehouses);
+    }
+
+    private void logDistribution(List<Integer> terminalIds, int warehouses) {
+        Map<String, int[]> eventLoopWarehouses = new LinkedHashMap<>();
+        Map<Integer, String> warehouseEventLoops = new HashMap<>();
+        Set<Integer> splitWarehouses = new HashSet<>();
+        int[] terminalsPerWarehouse = new int[warehouses];
+        int[] terminalsPerDistrict = new int[warehouses * DISTRICTS];
+        for (int each : terminalIds) {
+            String eventLoop = eventLoops.get(each);
+            int warehouseId = warehouseIds[each - 1];
+            int[] range = eventLoopWarehouses.computeIfAbsent(eventLoop, __ -> new int[]{0, warehouseId, warehouseId});
+            range[0]++;
+            range[2] = warehouseId;
+            String previous = warehouseEventLoops.putIfAbsent(warehouseId, eventLoop);
+            if (null != previous && !previous.equals(eventLoop)) {
+                splitWarehouses.add(warehouseId);
+            }
+            terminalsPerWarehouse[warehouseId - firstWarehouse]++;
+            terminalsPerDistrict[(warehouseId - firstWarehouse) * DISTRICTS + districtIds[each - 1] - 1]++;
+        }
+        eventLoopWarehouses.forEach((eventLoop, range) -> LOGGER.info("{}: {} terminals, warehouses {}-{}", eventLoop, range[0], range[1], range[2]));
+        IntSummaryStatistics perWarehouse = Arrays.stream(terminalsPerWarehouse).summaryStatistics();
+        LOGGER.info("Assigned {} terminals to warehouses {}-{}: {}-{} terminals per warehouse, at most {} per district, {} warehouses without terminals, {} split across event loops.",
+                terminalIds.size(), firstWarehouse, lastWarehouse, perWarehouse.getMin(), perWarehouse.getMax(), Arrays.stream(terminalsPerDistrict).max().orElse(0),
+                Arrays.stream(terminalsPerWarehouse).filter(each -> 0 == each).count(), splitWarehouses.size());
+    }
+
+    public synchronized int getWarehouseId(int terminalId) {
+        return warehouseIds[terminalId - 1];
+    }
+
+    public synchronized int getDistrictId(int terminalId) {
+        return districtIds[terminalId - 1];
+    }
+}
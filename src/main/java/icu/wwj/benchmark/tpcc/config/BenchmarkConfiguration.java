@@ -3,6 +3,7 @@ package icu.wwj.benchmark.tpcc.config;
 import lombok.Getter;
 
 import java.util.Properties;
+import java.util.Set;
 
 @Getter
 public class BenchmarkConfiguration {
@@ -15,14 +16,42 @@ public class BenchmarkConfiguration {
     
     private final int warehouses;
     
+    private final int firstWarehouse;
+    
+    private final int lastWarehouse;
+    
     private final boolean terminalWarehouseFixed;
     
+    private final TerminalAssignment terminalAssignment;
+    
     private final int terminals;
     
     private final int runSeconds;
     
+    private final int warmupSeconds;
+    
+    private final int steadyStateIntervals;
+    
+    private final double steadyStateMaxCv;
+    
+    private final int maxWarmupSeconds;
+    
+    private final int sessionPoolSize;
+    
     private final int reportIntervalSeconds;
     
+    private final boolean runSummary;
+    
+    private final int metricsPort;
+    
+    private final String metricsHost;
+    
+    private final boolean poolMetrics;
+    
+    private final boolean statementMetrics;
+    
+    private final int slowTransactions;
+    
     private final int newOrderWeight;
     
     private final int paymentWeight;
@@ -33,19 +62,121 @@ public class BenchmarkConfiguration {
     
     private final int stockLevelWeight;
     
+    private final NewOrderProfile newOrderProfile;
+
+    private final boolean storedProcedures;
+
+    private final int deliveryWorkers;
+    
+    private final int maxRetries;
+    
+    private final long retryBackoffMillis;
+    
+    private final long retryMaxBackoffMillis;
+    
+    private final Set<String> retrySqlStates;
+    
+    private final int targetTpm;
+    
+    private final ArrivalDistribution arrivalDistribution;
+    
+    private final boolean keyingAndThinkTimes;
+    
+    private final double pacingTimeScale;
+    
+    private final int resultRingBufferSize;
+    
+    private final int resultWriteQueueMaxSize;
+    
+    private final ResultFormat resultFormat;
+    
+    private final boolean resultCompression;
+
+    private final int loadWorkers;
+
+    private final int loadBatchRows;
+
+    private final int generateWarehousesPerFile;
+
+    private final String coordinatorAddress;
+
+    private final int agents;
+    
     public BenchmarkConfiguration(Properties props) {
         conn = System.getProperty("conn", props.getProperty("conn"));
         vertxOptions = System.getProperty("vertxOptions", props.getProperty("vertxOptions", "{}"));
         poolOptions = System.getProperty("poolOptions", props.getProperty("poolOptions", "{}"));
         warehouses = Integer.parseInt(System.getProperty("warehouses", props.getProperty("warehouses")));
+        firstWarehouse = Integer.parseInt(System.getProperty("firstWarehouse", props.getProperty("firstWarehouse", "1")));
+        lastWarehouse = Integer.parseInt(System.getProperty("lastWarehouse", props.getProperty("lastWarehouse", String.valueOf(warehouses))));
         terminalWarehouseFixed = Boolean.parseBoolean(System.getProperty("terminalWarehouseFixed", props.getProperty("terminalWarehouseFixed", Boolean.FALSE.toString())));
+        terminalAssignment = TerminalAssignment.valueOf(System.getProperty("terminalAssignment", props.getProperty("terminalAssignment", TerminalAssignment.RANDOM.name())).toUpperCase());
         terminals = Integer.parseInt(System.getProperty("terminals", props.getProperty("terminals")));
         runSeconds = Integer.parseInt(System.getProperty("runSeconds", props.getProperty("runSeconds")));
+        warmupSeconds = Integer.parseInt(System.getProperty("warmupSeconds", props.getProperty("warmupSeconds", "0")));
+        steadyStateIntervals = Integer.parseInt(System.getProperty("steadyStateIntervals", props.getProperty("steadyStateIntervals", "0")));
+        steadyStateMaxCv = Double.parseDouble(System.getProperty("steadyStateMaxCv", props.getProperty("steadyStateMaxCv", "0.05")));
+        maxWarmupSeconds = Integer.parseInt(System.getProperty("maxWarmupSeconds", props.getProperty("maxWarmupSeconds", "600")));
+        sessionPoolSize = Integer.parseInt(System.getProperty("sessionPoolSize", props.getProperty("sessionPoolSize", "0")));
         reportIntervalSeconds = Integer.parseInt(System.getProperty("reportIntervalSeconds", props.getProperty("reportIntervalSeconds", "0")));
+        runSummary = Boolean.parseBoolean(System.getProperty("runSummary", props.getProperty("runSummary", "false")));
+        metricsPort = Integer.parseInt(System.getProperty("metricsPort", props.getProperty("metricsPort", "0")));
+        metricsHost = System.getProperty("metricsHost", props.getProperty("metricsHost", "127.0.0.1"));
+        poolMetrics = Boolean.parseBoolean(System.getProperty("poolMetrics", props.getProperty("poolMetrics", Boolean.TRUE.toString())));
+        statementMetrics = Boolean.parseBoolean(System.getProperty("statementMetrics", props.getProperty("statementMetrics", Boolean.FALSE.toString())));
+        slowTransactions = Integer.parseInt(System.getProperty("slowTransactions", props.getProperty("slowTransactions", "0")));
         newOrderWeight = Integer.parseInt(System.getProperty("newOrderWeight", props.getProperty("newOrderWeight", "45")));
         paymentWeight = Integer.parseInt(System.getProperty("paymentWeight", props.getProperty("paymentWeight", "43")));
         orderStatusWeight = Integer.parseInt(System.getProperty("orderStatusWeight", props.getProperty("orderStatusWeight", "4")));
         deliveryWeight = Integer.parseInt(System.getProperty("deliveryWeight", props.getProperty("deliveryWeight", "4")));
         stockLevelWeight = Integer.parseInt(System.getProperty("stockLevelWeight", props.getProperty("stockLevelWeight", "4")));
+        newOrderProfile = NewOrderProfile.valueOf(System.getProperty("newOrderProfile", props.getProperty("newOrderProfile", NewOrderProfile.STANDARD.name())).toUpperCase());
+        storedProcedures = Boolean.parseBoolean(System.getProperty("storedProcedures", props.getProperty("storedProcedures", Boolean.FALSE.toString())));
+        deliveryWorkers = Integer.parseInt(System.getProperty("deliveryWorkers", props.getProperty("deliveryWorkers", "0")));
+        maxRetries = Integer.parseInt(System.getProperty("maxRetries", props.getProperty("maxRetries", "3")));
+        retryBackoffMillis = Long.parseLong(System.getProperty("retryBackoffMillis", props.getProperty("retryBackoffMillis", "10")));
+        retryMaxBackoffMillis = Long.parseLong(System.getProperty("retryMaxBackoffMillis", props.getProperty("retryMaxBackoffMillis", "1000")));
+        retrySqlStates = Set.of(System.getProperty("retrySqlStates", props.getProperty("retrySqlStates", "40001,40P01")).split("\\s*,\\s*"));
+        targetTpm = Integer.parseInt(System.getProperty("targetTpm", props.getProperty("targetTpm", "0")));
+        arrivalDistribution = ArrivalDistribution.valueOf(System.getProperty("arrivalDistribution", props.getProperty("arrivalDistribution", ArrivalDistribution.POISSON.name())).toUpperCase());
+        keyingAndThinkTimes = Boolean.parseBoolean(System.getProperty("keyingAndThinkTimes", props.getProperty("keyingAndThinkTimes", Boolean.FALSE.toString())));
+        pacingTimeScale = Double.parseDouble(System.getProperty("pacingTimeScale", props.getProperty("pacingTimeScale", "1.0")));
+        resultRingBufferSize = Integer.parseInt(System.getProperty("resultRingBufferSize", props.getProperty("resultRingBufferSize", "65536")));
+        resultWriteQueueMaxSize = Integer.parseInt(System.getProperty("resultWriteQueueMaxSize", props.getProperty("resultWriteQueueMaxSize", "8388608")));
+        resultFormat = ResultFormat.valueOf(System.getProperty("resultFormat", props.getProperty("resultFormat", ResultFormat.CSV.name())).toUpperCase());
+        resultCompression = Boolean.parseBoolean(System.getProperty("resultCompression", props.getProperty("resultCompression", Boolean.FALSE.toString())));
+        loadWorkers = Integer.parseInt(System.getProperty("loadWorkers", props.getProperty("loadWorkers", String.valueOf(Runtime.getRuntime().availableProcessors() * 2))));
+        loadBatchRows = Integer.parseInt(System.getProperty("loadBatchRows", props.getProperty("loadBatchRows", "10000")));
+        generateWarehousesPerFile = Integer.parseInt(System.getProperty("generateWarehousesPerFile", props.getProperty("generateWarehousesPerFile", "10")));
+        coordinatorAddress = System.getProperty("coordinatorAddress", props.getProperty("coordinatorAddress", "127.0.0.1:9091"));
+        agents = Integer.parseInt(System.getProperty("agents", props.getProperty("agents", "1")));
+    }
+    
+    public enum ResultFormat {
+        
+        CSV,
+        
+        BINARY
+    }
+    
+    public enum ArrivalDistribution {
+        
+        POISSON,
+        
+        FIXED
+    }
+    
+    public enum TerminalAssignment {
+        
+        RANDOM,
+        
+        ROUND_ROBIN
+    }
+    
+    public enum NewOrderProfile {
+        
+        STANDARD,
+        
+        BATCH
     }
 }
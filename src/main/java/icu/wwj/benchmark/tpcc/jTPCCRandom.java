@@ -34,8 +34,7 @@ public class jTPCCRandom {
 
     jTPCCRandom() {
         if (initialized) {
-//            TODO create instances by parent
-//            throw new IllegalStateException("Global instance exists");
+            throw new IllegalStateException("Global instance exists");
         }
         random = ThreadLocalRandom.current();
         jTPCCRandom.nURandCLast = nextLong(0, 255);
@@ -77,6 +76,24 @@ public class jTPCCRandom {
         initialized = true;
     }
 
+    /*
+     * jTPCCRandom(CLast, CC_ID, CI_ID)
+     *
+     *     Used to create the master jTPCCRandom instance of a driver
+     *     agent. All terminals of a run must use the same C values,
+     *     so agents take the values chosen by the coordinator.
+     */
+    jTPCCRandom(long nURandCLast, long nURandCC_ID, long nURandCI_ID) {
+        if (initialized) {
+            throw new IllegalStateException("Global instance exists");
+        }
+        random = ThreadLocalRandom.current();
+        jTPCCRandom.nURandCLast = nURandCLast;
+        jTPCCRandom.nURandCC_ID = nURandCC_ID;
+        jTPCCRandom.nURandCI_ID = nURandCI_ID;
+        initialized = true;
+    }
+
     private jTPCCRandom(jTPCCRandom parent) {
         random = ThreadLocalRandom.current();
     }
@@ -114,6 +131,15 @@ public class jTPCCRandom {
         return random.nextInt(x, y + 1);
     }
 
+    /*
+     * nextDouble()
+     *
+     *     Produce a random number uniformly distributed in [0.0 .. 1.0)
+     */
+    public double nextDouble() {
+        return random.nextDouble();
+    }
+
     /*
      * getAString(x, y)
      *
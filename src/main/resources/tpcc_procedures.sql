@@ -0,0 +1,269 @@
+-- Server-side implementations of the TPC-C transactions, installed when storedProcedures=true.
+-- Each function mirrors the statements issued by the corresponding executor.
+
+CREATE OR REPLACE FUNCTION bmsql_proc_new_order(
+    in_w_id integer, in_d_id integer, in_c_id integer, in_o_all_local integer, in_o_entry_d timestamp,
+    in_ol_supply_w_id integer[], in_ol_i_id integer[], in_ol_quantity integer[])
+RETURNS numeric AS $$
+DECLARE
+    var_ol_cnt integer := array_length(in_ol_i_id, 1);
+    var_d_tax numeric;
+    var_o_id integer;
+    var_w_tax numeric;
+    var_c_discount numeric;
+    var_i_price numeric;
+    var_s_quantity integer;
+    var_s_dist_info char(24);
+    var_ol_amount numeric;
+    var_total_amount numeric := 0;
+BEGIN
+    -- Update the DISTRICT bumping the D_NEXT_O_ID.
+    UPDATE bmsql_district
+        SET d_next_o_id = d_next_o_id + 1
+        WHERE d_w_id = in_w_id AND d_id = in_d_id
+        RETURNING d_tax, d_next_o_id - 1 INTO var_d_tax, var_o_id;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'District for W_ID=% D_ID=% not found', in_w_id, in_d_id;
+    END IF;
+    -- Retrieve the required data from CUSTOMER and WAREHOUSE.
+    SELECT c_discount, w_tax INTO var_c_discount, var_w_tax
+        FROM bmsql_customer
+        JOIN bmsql_warehouse ON (w_id = c_w_id)
+        WHERE c_w_id = in_w_id AND c_d_id = in_d_id AND c_id = in_c_id;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Warehouse or Customer for W_ID=% D_ID=% C_ID=% not found', in_w_id, in_d_id, in_c_id;
+    END IF;
+    INSERT INTO bmsql_oorder (
+        o_id, o_d_id, o_w_id, o_c_id, o_entry_d,
+        o_ol_cnt, o_all_local)
+    VALUES (var_o_id, in_d_id, in_w_id, in_c_id, in_o_entry_d, var_ol_cnt, in_o_all_local);
+    INSERT INTO bmsql_new_order (
+        no_o_id, no_d_id, no_w_id)
+    VALUES (var_o_id, in_d_id, in_w_id);
+    -- Order lines are passed in the order of ol_supply_w_id, ol_i_id to avoid deadlocks on STOCK.
+    FOR i IN 1 .. var_ol_cnt LOOP
+        SELECT i_price INTO var_i_price
+            FROM bmsql_item
+            WHERE i_id = in_ol_i_id[i];
+        IF NOT FOUND THEN
+            IF in_ol_i_id[i] < 1 OR in_ol_i_id[i] > 100000 THEN
+                -- The 1% of NewOrders rolled back by an unused item number, see 2.4.2.3.
+                RAISE EXCEPTION 'Item number is not valid' USING ERRCODE = 'TPCC1';
+            END IF;
+            RAISE EXCEPTION 'ITEM with I_ID=% not found', in_ol_i_id[i];
+        END IF;
+        SELECT s_quantity,
+               CASE in_d_id WHEN 1 THEN s_dist_01 WHEN 2 THEN s_dist_02 WHEN 3 THEN s_dist_03
+               WHEN 4 THEN s_dist_04 WHEN 5 THEN s_dist_05 WHEN 6 THEN s_dist_06 WHEN 7 THEN s_dist_07
+               WHEN 8 THEN s_dist_08 WHEN 9 THEN s_dist_09 ELSE s_dist_10 END
+            INTO var_s_quantity, var_s_dist_info
+            FROM bmsql_stock
+            WHERE s_w_id = in_ol_supply_w_id[i] AND s_i_id = in_ol_i_id[i]
+            FOR UPDATE;
+        IF NOT FOUND THEN
+            RAISE EXCEPTION 'STOCK with S_W_ID=% S_I_ID=% not found', in_ol_supply_w_id[i], in_ol_i_id[i];
+        END IF;
+        var_ol_amount := var_i_price * in_ol_quantity[i];
+        UPDATE bmsql_stock
+            SET s_quantity = var_s_quantity + CASE WHEN var_s_quantity >= in_ol_quantity[i] + 10 THEN -in_ol_quantity[i] ELSE 91 END,
+                s_ytd = s_ytd + in_ol_quantity[i],
+                s_order_cnt = s_order_cnt + 1,
+                s_remote_cnt = s_remote_cnt + CASE WHEN in_ol_supply_w_id[i] = in_w_id THEN 0 ELSE 1 END
+            WHERE s_w_id = in_ol_supply_w_id[i] AND s_i_id = in_ol_i_id[i];
+        INSERT INTO bmsql_order_line (
+            ol_o_id, ol_d_id, ol_w_id, ol_number,
+            ol_i_id, ol_supply_w_id, ol_quantity,
+            ol_amount, ol_dist_info)
+        VALUES (var_o_id, in_d_id, in_w_id, i, in_ol_i_id[i], in_ol_supply_w_id[i], in_ol_quantity[i], var_ol_amount, var_s_dist_info);
+        var_total_amount := var_total_amount + var_ol_amount;
+    END LOOP;
+    RETURN var_total_amount * (1.0 - var_c_discount) * (1.0 + var_w_tax + var_d_tax);
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION bmsql_proc_payment(
+    in_w_id integer, in_d_id integer, in_c_w_id integer, in_c_d_id integer, in_c_id integer, in_c_last varchar,
+    in_h_amount numeric, in_h_date timestamp)
+RETURNS integer AS $$
+DECLARE
+    var_c_id integer := in_c_id;
+    var_count integer;
+    var_w_name varchar(10);
+    var_d_name varchar(10);
+    var_c_credit char(2);
+BEGIN
+    -- Update the DISTRICT.
+    UPDATE bmsql_district
+        SET d_ytd = d_ytd + in_h_amount
+        WHERE d_w_id = in_w_id AND d_id = in_d_id
+        RETURNING d_name INTO var_d_name;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'District for W_ID=% D_ID=% not found', in_w_id, in_d_id;
+    END IF;
+    -- Update the WAREHOUSE.
+    UPDATE bmsql_warehouse
+        SET w_ytd = w_ytd + in_h_amount
+        WHERE w_id = in_w_id
+        RETURNING w_name INTO var_w_name;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Warehouse for W_ID=% not found', in_w_id;
+    END IF;
+    -- If C_LAST is given instead of C_ID (60%), determine the C_ID.
+    IF in_c_last IS NOT NULL THEN
+        SELECT count(*) INTO var_count
+            FROM bmsql_customer
+            WHERE c_w_id = in_c_w_id AND c_d_id = in_c_d_id AND c_last = in_c_last;
+        IF var_count = 0 THEN
+            RAISE EXCEPTION 'Customer(s) for C_W_ID=% C_D_ID=% C_LAST=% not found', in_c_w_id, in_c_d_id, in_c_last;
+        END IF;
+        SELECT c_id INTO var_c_id
+            FROM bmsql_customer
+            WHERE c_w_id = in_c_w_id AND c_d_id = in_c_d_id AND c_last = in_c_last
+            ORDER BY c_first
+            OFFSET (var_count + 1) / 2 - 1 LIMIT 1;
+    END IF;
+    -- Select the CUSTOMER.
+    SELECT c_credit INTO var_c_credit
+        FROM bmsql_customer
+        WHERE c_w_id = in_c_w_id AND c_d_id = in_c_d_id AND c_id = var_c_id
+        FOR UPDATE;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Customer for C_W_ID=% C_D_ID=% C_ID=% not found', in_c_w_id, in_c_d_id, var_c_id;
+    END IF;
+    IF var_c_credit = 'GC' THEN
+        -- Customer with good credit, don't update C_DATA.
+        UPDATE bmsql_customer
+            SET c_balance = c_balance - in_h_amount,
+                c_ytd_payment = c_ytd_payment + in_h_amount,
+                c_payment_cnt = c_payment_cnt + 1
+            WHERE c_w_id = in_c_w_id AND c_d_id = in_c_d_id AND c_id = var_c_id;
+    ELSE
+        -- Customer with bad credit, need to do the C_DATA work.
+        UPDATE bmsql_customer
+            SET c_balance = c_balance - in_h_amount,
+                c_ytd_payment = c_ytd_payment + in_h_amount,
+                c_payment_cnt = c_payment_cnt + 1,
+                c_data = substr(format('C_ID=%s C_D_ID=%s C_W_ID=%s D_ID=%s W_ID=%s H_AMOUNT=%s   ',
+                    var_c_id, in_c_d_id, in_c_w_id, in_d_id, in_w_id, to_char(in_h_amount, 'FM999990.00')) || c_data, 1, 500)
+            WHERE c_w_id = in_c_w_id AND c_d_id = in_c_d_id AND c_id = var_c_id;
+    END IF;
+    -- Insert the HISTORY row.
+    INSERT INTO bmsql_history (
+        h_c_id, h_c_d_id, h_c_w_id, h_d_id, h_w_id,
+        h_date, h_amount, h_data)
+    VALUES (var_c_id, in_c_d_id, in_c_w_id, in_d_id, in_w_id, in_h_date, in_h_amount, var_w_name || '    ' || var_d_name);
+    RETURN var_c_id;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION bmsql_proc_order_status(
+    in_w_id integer, in_d_id integer, in_c_id integer, in_c_last varchar)
+RETURNS TABLE (ol_i_id integer, ol_supply_w_id integer, ol_quantity integer, ol_amount numeric, ol_delivery_d timestamp) AS $$
+#variable_conflict use_column
+DECLARE
+    var_c_id integer := in_c_id;
+    var_count integer;
+    var_o_id integer;
+BEGIN
+    -- If C_LAST is given instead of C_ID (60%), determine the C_ID.
+    IF in_c_last IS NOT NULL THEN
+        SELECT count(*) INTO var_count
+            FROM bmsql_customer
+            WHERE c_w_id = in_w_id AND c_d_id = in_d_id AND c_last = in_c_last;
+        IF var_count = 0 THEN
+            RAISE EXCEPTION 'Customer(s) for C_W_ID=% C_D_ID=% C_LAST=% not found', in_w_id, in_d_id, in_c_last;
+        END IF;
+        SELECT c_id INTO var_c_id
+            FROM bmsql_customer
+            WHERE c_w_id = in_w_id AND c_d_id = in_d_id AND c_last = in_c_last
+            ORDER BY c_first
+            OFFSET (var_count + 1) / 2 - 1 LIMIT 1;
+    END IF;
+    PERFORM c_first, c_middle, c_last, c_balance
+        FROM bmsql_customer
+        WHERE c_w_id = in_w_id AND c_d_id = in_d_id AND c_id = var_c_id;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'Customer for C_W_ID=% C_D_ID=% C_ID=% not found', in_w_id, in_d_id, var_c_id;
+    END IF;
+    SELECT max(o_id) INTO var_o_id
+        FROM bmsql_oorder
+        WHERE o_w_id = in_w_id AND o_d_id = in_d_id AND o_c_id = var_c_id;
+    IF var_o_id IS NULL THEN
+        RAISE EXCEPTION 'Last Order for W_ID=% D_ID=% C_ID=% not found', in_w_id, in_d_id, var_c_id;
+    END IF;
+    RETURN QUERY SELECT ol_i_id, ol_supply_w_id, ol_quantity, ol_amount::numeric, ol_delivery_d
+        FROM bmsql_order_line
+        WHERE ol_w_id = in_w_id AND ol_d_id = in_d_id AND ol_o_id = var_o_id
+        ORDER BY ol_w_id, ol_d_id, ol_o_id, ol_number;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION bmsql_proc_delivery(
+    in_w_id integer, in_o_carrier_id integer, in_ol_delivery_d timestamp)
+RETURNS integer AS $$
+DECLARE
+    var_o_id integer;
+    var_c_id integer;
+    var_sum_ol_amount numeric;
+    var_skipped integer := 0;
+BEGIN
+    FOR var_d_id IN 1 .. 10 LOOP
+        LOOP
+            SELECT no_o_id INTO var_o_id
+                FROM bmsql_new_order
+                WHERE no_w_id = in_w_id AND no_d_id = var_d_id
+                ORDER BY no_o_id ASC LIMIT 1;
+            EXIT WHEN NOT FOUND;
+            -- The NEW_ORDER row is not selected FOR UPDATE, retry if a concurrent delivery deleted it first.
+            DELETE FROM bmsql_new_order
+                WHERE no_w_id = in_w_id AND no_d_id = var_d_id AND no_o_id = var_o_id;
+            EXIT WHEN FOUND;
+        END LOOP;
+        IF var_o_id IS NULL THEN
+            var_skipped := var_skipped + 1;
+            CONTINUE;
+        END IF;
+        UPDATE bmsql_oorder
+            SET o_carrier_id = in_o_carrier_id
+            WHERE o_w_id = in_w_id AND o_d_id = var_d_id AND o_id = var_o_id
+            RETURNING o_c_id INTO var_c_id;
+        IF NOT FOUND THEN
+            RAISE EXCEPTION 'ORDER in DELIVERY_BG for O_W_ID=% O_D_ID=% O_ID=% not found', in_w_id, var_d_id, var_o_id;
+        END IF;
+        UPDATE bmsql_order_line
+            SET ol_delivery_d = in_ol_delivery_d
+            WHERE ol_w_id = in_w_id AND ol_d_id = var_d_id AND ol_o_id = var_o_id;
+        SELECT sum(ol_amount) INTO var_sum_ol_amount
+            FROM bmsql_order_line
+            WHERE ol_w_id = in_w_id AND ol_d_id = var_d_id AND ol_o_id = var_o_id;
+        UPDATE bmsql_customer
+            SET c_balance = c_balance + var_sum_ol_amount,
+                c_delivery_cnt = c_delivery_cnt + 1
+            WHERE c_w_id = in_w_id AND c_d_id = var_d_id AND c_id = var_c_id;
+    END LOOP;
+    RETURN var_skipped;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION bmsql_proc_stock_level(
+    in_w_id integer, in_d_id integer, in_threshold integer)
+RETURNS integer AS $$
+DECLARE
+    var_low_stock integer;
+BEGIN
+    SELECT count(*) INTO var_low_stock FROM (
+        SELECT s_w_id, s_i_id, s_quantity
+            FROM bmsql_stock
+            WHERE s_w_id = in_w_id AND s_quantity < in_threshold AND s_i_id IN (
+                SELECT ol_i_id
+                    FROM bmsql_district
+                    JOIN bmsql_order_line ON ol_w_id = d_w_id
+                     AND ol_d_id = d_id
+                     AND ol_o_id >= d_next_o_id - 20
+                     AND ol_o_id < d_next_o_id
+                    WHERE d_w_id = in_w_id AND d_id = in_d_id
+            )
+        ) AS L;
+    RETURN var_low_stock;
+END;
+$$ LANGUAGE plpgsql;